@@ -0,0 +1,214 @@
+package net.conan.collections;
+
+import net.conan.text.RegexAutomaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Predicate;
+
+/**
+ * <p>Matches keys with a {@link RegexAutomaton} instead of a {@link java.util.regex.Matcher}.
+ * The keys are visited in sorted order, which makes them behave like a trie: the automaton
+ * state for a shared prefix is computed once, and as soon as a prefix reaches the
+ * {@link RegexAutomaton#DEAD dead} state every key under it is skipped in one step.</p>
+ *
+ * <p>Expressions using syntax the automaton does not support, or that need more than
+ * {@link RegexAutomaton#MAX_STATES} states, are handled by {@link IndexedStringKeysLookup}.
+ * Sorted maps and the key index are treated exactly as described there, including the need
+ * to {@link #invalidate()} after keys change.</p>
+ *
+ * <p>Values are returned in key order.</p>
+ *
+ * @see net.conan.collections.MapLookup
+ * @author Conan Dombroski
+ */
+public class AutomatonStringKeysLookup<V> extends IndexedStringKeysLookup<V> {
+
+    @Override
+    public List<V> lookup(String regularExpression, Map<String, V> map) {
+        Optional<RegexAutomaton> automaton = RegexAutomaton.compile(regularExpression);
+        if(!automaton.isPresent()){
+            return super.lookup(regularExpression, map);
+        }
+        KeyCursor<V> cursor = isNaturallySorted(map) ?
+              new SortedMapCursor<>((SortedMap<String,V>) map) :
+              new IndexCursor<>(indexFor(map), map);
+        try {
+            return walk(automaton.get(), cursor);
+        }catch (IllegalStateException e){
+            // The automaton hit its state limit, which the backtracking matcher doesn't have.
+            return super.lookup(regularExpression, map);
+        }
+    }
+
+    @Override
+    public Predicate<String> keyMatcher(String regularExpression) {
+        Optional<RegexAutomaton> automaton = RegexAutomaton.compile(regularExpression);
+        if(!automaton.isPresent()){
+            return super.keyMatcher(regularExpression);
+        }
+        final Predicate<String> fallback = super.keyMatcher(regularExpression);
+        final RegexAutomaton compiled = automaton.get();
+        return key -> {
+            try {
+                return compiled.matches(key);
+            }catch (IllegalStateException e){
+                return fallback.test(key);
+            }
+        };
+    }
+
+    private static <V> List<V> walk(RegexAutomaton automaton, KeyCursor<V> cursor){
+        final List<V> values = new ArrayList<>();
+        int[] states = new int[32];
+        states[0] = automaton.start();
+        String previous = "";
+        int computed = 0;
+
+        while(cursor.hasCurrent()){
+            String key = cursor.key();
+            int depth = commonPrefixLength(previous, key, computed);
+            if(depth > 0 && Character.isHighSurrogate(key.charAt(depth - 1))){
+                // The previous key may have paired it with the next char in one step, so resume
+                // before it; a high surrogate always starts a code point.
+                depth--;
+            }
+            int state = states[depth];
+            while(depth < key.length() && !automaton.isDead(state)){
+                int codePoint = key.codePointAt(depth);
+                state = automaton.step(state, codePoint);
+                depth += Character.charCount(codePoint);
+                if(depth >= states.length){
+                    states = Arrays.copyOf(states, states.length * 2);
+                }
+                states[depth] = state;
+            }
+            previous = key;
+            computed = depth;
+
+            if(automaton.isDead(state) && (depth == 0 || !Character.isHighSurrogate(key.charAt(depth - 1)))){
+                cursor.skipPrefix(key.substring(0, depth));
+            }else if(automaton.isDead(state)){
+                // An unpaired high surrogate may start a pair in the next keys, which step differently.
+                cursor.next();
+            }else{
+                if(automaton.isAccepting(state)){
+                    cursor.collect(values);
+                }
+                cursor.next();
+            }
+        }
+        return values;
+    }
+
+    private static int commonPrefixLength(String a, String b, int limit){
+        int max = Math.min(limit, Math.min(a.length(), b.length()));
+        int i = 0;
+        while(i < max && a.charAt(i) == b.charAt(i)){
+            i++;
+        }
+        return i;
+    }
+
+    /*
+    Sorted iteration over the keys of a map, with the ability to jump past every key sharing a prefix.
+     */
+    private interface KeyCursor<V> {
+        boolean hasCurrent();
+        String key();
+        void collect(List<V> values);
+        void next();
+        void skipPrefix(String prefix);
+    }
+
+    private static final class IndexCursor<V> implements KeyCursor<V> {
+        private final SortedKeyIndex index;
+        private final Map<String,V> map;
+        private int position;
+
+        IndexCursor(SortedKeyIndex index, Map<String,V> map){
+            this.index = index;
+            this.map = map;
+        }
+
+        @Override
+        public boolean hasCurrent(){
+            return position < index.size();
+        }
+
+        @Override
+        public String key(){
+            return index.key(position);
+        }
+
+        @Override
+        public void collect(List<V> values){
+            String key = key();
+            V value = map.get(key);
+            if(value != null || map.containsKey(key)){
+                values.add(value);
+            }
+        }
+
+        @Override
+        public void next(){
+            position++;
+        }
+
+        @Override
+        public void skipPrefix(String prefix){
+            position = index.endOf(prefix);
+        }
+    }
+
+    private static final class SortedMapCursor<V> implements KeyCursor<V> {
+        private final SortedMap<String,V> map;
+        private Iterator<Map.Entry<String,V>> iterator;
+        private Map.Entry<String,V> current;
+
+        SortedMapCursor(SortedMap<String,V> map){
+            this.map = map;
+            reposition(map);
+        }
+
+        @Override
+        public boolean hasCurrent(){
+            return current != null;
+        }
+
+        @Override
+        public String key(){
+            return current.getKey();
+        }
+
+        @Override
+        public void collect(List<V> values){
+            values.add(current.getValue());
+        }
+
+        @Override
+        public void next(){
+            current = iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public void skipPrefix(String prefix){
+            String upperBound = SortedKeyIndex.prefixUpperBound(prefix);
+            if(upperBound == null){
+                current = null;
+            }else{
+                reposition(map.tailMap(upperBound));
+            }
+        }
+
+        private void reposition(SortedMap<String,V> range){
+            iterator = range.entrySet().iterator();
+            next();
+        }
+    }
+}
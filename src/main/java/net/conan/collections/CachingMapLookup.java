@@ -0,0 +1,157 @@
+package net.conan.collections;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>Decorates a {@link MapLookup} with a bounded, least recently used cache of results.
+ * A result is remembered per criteria and map instance, together with the map's version
+ * when it was computed.  It is reused until the version changes, after which the next
+ * lookup recomputes it.</p>
+ *
+ * <p>The version comes from a function given to the constructor.  By default only
+ * {@link ObservableMap} is versioned, through {@link ObservableMap#version()}, and nothing is
+ * cached while a write to it is in progress.  Lookups on
+ * any other map return {@link #NOT_VERSIONED} and go straight to the delegate, since there
+ * is no way to tell whether a cached result is still current.  Supply a version function for
+ * maps that track their own modifications.</p>
+ *
+ * <p>Cached results are shared by every caller and are therefore unmodifiable.</p>
+ *
+ * @see StringKeysLookup
+ * @author Conan Dombroski
+ */
+public class CachingMapLookup<S,K,V> implements MapLookup<S,K,V> {
+
+    /**
+     * Version meaning "unknown".  Results for such maps are never cached.
+     */
+    public static final long NOT_VERSIONED = Long.MIN_VALUE;
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final MapLookup<S,K,V> delegate;
+    private final ToLongFunction<? super Map<K,V>> versionFunction;
+    private final LruCache<CacheKey<S>,VersionedResult<V>> results;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingMapLookup(MapLookup<S,K,V> delegate){
+        this(delegate, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CachingMapLookup(MapLookup<S,K,V> delegate, int maxEntries){
+        this(delegate, maxEntries, CachingMapLookup::observableVersion);
+    }
+
+    /**
+     * @param delegate the lookup that computes results
+     * @param maxEntries maximum number of cached results
+     * @param versionFunction returns a number that changes whenever the map changes, or
+     *                        {@link #NOT_VERSIONED}
+     */
+    public CachingMapLookup(MapLookup<S,K,V> delegate, int maxEntries, ToLongFunction<? super Map<K,V>> versionFunction){
+        this.delegate = delegate;
+        this.versionFunction = versionFunction;
+        results = new LruCache<>(maxEntries);
+    }
+
+    @Override
+    public List<V> lookup(S searchCriteria, Map<K,V> map){
+        long version = versionFunction.applyAsLong(map);
+        if(version == NOT_VERSIONED){
+            return delegate.lookup(searchCriteria, map);
+        }
+        CacheKey<S> key = new CacheKey<>(searchCriteria, map);
+        VersionedResult<V> cached = results.get(key);
+        if(cached != null && cached.version == version){
+            hits.increment();
+            return cached.values;
+        }
+        misses.increment();
+        List<V> values = Collections.unmodifiableList(delegate.lookup(searchCriteria, map));
+        results.put(key, new VersionedResult<>(version, values));
+        return values;
+    }
+
+    @Override
+    public Predicate<K> keyMatcher(S searchCriteria){
+        return delegate.keyMatcher(searchCriteria);
+    }
+
+    /**
+     * Forget every cached result.
+     */
+    public void invalidateAll(){
+        results.clear();
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long hitCount(){
+        return hits.sum();
+    }
+
+    /**
+     * @return number of versioned lookups that had to call the delegate, including those
+     * whose cached result was out of date
+     */
+    public long missCount(){
+        return misses.sum();
+    }
+
+    /**
+     * @return hits divided by versioned lookups, or 0 before the first one
+     */
+    public double hitRate(){
+        long hits = hitCount();
+        long total = hits + missCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static long observableVersion(Map<?,?> map){
+        return map instanceof ObservableMap ? ((ObservableMap<?,?>) map).stableVersion() : NOT_VERSIONED;
+    }
+
+    /*
+    Criteria plus the identity of the map it was applied to.
+     */
+    private static final class CacheKey<S> {
+        private final S criteria;
+        private final Map<?,?> map;
+
+        CacheKey(S criteria, Map<?,?> map){
+            this.criteria = criteria;
+            this.map = map;
+        }
+
+        @Override
+        public int hashCode(){
+            return 31 * (criteria == null ? 0 : criteria.hashCode()) + System.identityHashCode(map);
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof CacheKey)){
+                return false;
+            }
+            CacheKey<?> other = (CacheKey<?>) o;
+            return map == other.map && (criteria == null ? other.criteria == null : criteria.equals(other.criteria));
+        }
+    }
+
+    private static final class VersionedResult<V> {
+        private final long version;
+        private final List<V> values;
+
+        VersionedResult(long version, List<V> values){
+            this.version = version;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.conan.collections;
+
+import net.conan.text.Glob;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * <p>A {@link MapLookup} that matches keys against a wildcard {@link Glob} such as
+ * <code>user.*.session</code> or <code>cache-??-*</code>, without going through
+ * {@link java.util.regex.Pattern}.</p>
+ *
+ * <ul>
+ *     <li>A glob without wildcards is a single {@link Map#get(Object)}.</li>
+ *     <li>A {@link SortedMap} using natural ordering only visits the keys starting with the
+ *     glob's literal prefix.</li>
+ *     <li>Any other map is scanned, and each key costs one allocation free
+ *     {@link Glob#matches(CharSequence)}.</li>
+ * </ul>
+ *
+ * @see net.conan.collections.MapLookup
+ * @author Conan Dombroski
+ */
+public class GlobKeysLookup<V> implements StreamingMapLookup<String,String,V> {
+
+    @Override
+    public Stream<Map.Entry<String,V>> lookupStream(String glob, Map<String,V> map) {
+        Glob compiled = Glob.compile(glob);
+        if(Glob.isLiteral(glob)){
+            String key = compiled.literalPrefix();
+            V value = map.get(key);
+            return value != null || map.containsKey(key)
+                  ? Stream.of(new AbstractMap.SimpleImmutableEntry<>(key, value))
+                  : Stream.empty();
+        }
+        String prefix = compiled.literalPrefix();
+        Map<String,V> candidates = prefix.isEmpty() || !IndexedStringKeysLookup.isNaturallySorted(map)
+              ? map
+              : IndexedStringKeysLookup.prefixRange((SortedMap<String,V>) map, prefix);
+        return candidates.entrySet().stream().filter(entry -> compiled.matches(entry.getKey()));
+    }
+
+    @Override
+    public Predicate<String> keyMatcher(String glob) {
+        return Glob.compile(glob)::matches;
+    }
+}
@@ -0,0 +1,98 @@
+package net.conan.collections;
+
+import net.conan.text.RegexLiterals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A {@link StringKeysLookup} alternative for large maps.  The
+ * {@link RegexLiterals#literalPrefix(String) literal prefix} of the regular expression is
+ * used to narrow the keys, so only keys starting with that prefix are given to the
+ * {@link Matcher}.  Expressions without a literal prefix fall back to a full scan.</p>
+ *
+ * <p>A {@link SortedMap} using natural ordering (ie: <code>TreeMap</code>,
+ * <code>ConcurrentSkipListMap</code>) is searched in place.  Any other map gets a sorted
+ * key index that is built on first use and reused as long as the same map instance is
+ * passed in.  The index is a snapshot: call {@link #invalidate()} after adding or removing
+ * keys.  Keys removed since the index was built are skipped.</p>
+ *
+ * <p>Values are returned in key order, unless the full scan is used.</p>
+ *
+ * @see net.conan.collections.MapLookup
+ * @author Conan Dombroski
+ */
+public class IndexedStringKeysLookup<V> implements MapLookup<String,String,V> {
+
+    private volatile SortedKeyIndex index;
+
+    @Override
+    public List<V> lookup(String regularExpression, Map<String, V> map) {
+        final Matcher matcher = Pattern.compile(regularExpression).matcher("");
+        final String prefix = RegexLiterals.literalPrefix(regularExpression);
+        final List<V> values = new ArrayList<>();
+
+        if(prefix.isEmpty()){
+            map.forEach((key, value) -> {
+                if(matcher.reset(key).matches()){
+                    values.add(value);
+                }
+            });
+        }else if(isNaturallySorted(map)){
+            prefixRange((SortedMap<String,V>) map, prefix).forEach((key, value) -> {
+                if(matcher.reset(key).matches()){
+                    values.add(value);
+                }
+            });
+        }else{
+            SortedKeyIndex keyIndex = indexFor(map);
+            for(int i = keyIndex.startOf(prefix), end = keyIndex.endOf(prefix); i < end; i++){
+                String key = keyIndex.key(i);
+                if(matcher.reset(key).matches()){
+                    V value = map.get(key);
+                    if(value != null || map.containsKey(key)){
+                        values.add(value);
+                    }
+                }
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Predicate<String> keyMatcher(String regularExpression) {
+        final Pattern pattern = Pattern.compile(regularExpression);
+        return key -> pattern.matcher(key).matches();
+    }
+
+    /**
+     * Discard the key index so it is rebuilt on the next lookup.  Must be called after keys
+     * are added to or removed from the indexed map.
+     */
+    public void invalidate(){
+        index = null;
+    }
+
+    SortedKeyIndex indexFor(Map<String,V> map){
+        SortedKeyIndex current = index;
+        if(current == null || !current.isIndexOf(map)){
+            current = new SortedKeyIndex(map);
+            index = current;
+        }
+        return current;
+    }
+
+    static boolean isNaturallySorted(Map<String,?> map){
+        return map instanceof SortedMap && ((SortedMap<String,?>) map).comparator() == null;
+    }
+
+    static <V> SortedMap<String,V> prefixRange(SortedMap<String,V> map, String prefix){
+        String upperBound = SortedKeyIndex.prefixUpperBound(prefix);
+        return upperBound == null ? map.tailMap(prefix) : map.subMap(prefix, upperBound);
+    }
+}
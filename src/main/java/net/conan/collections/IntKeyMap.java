@@ -0,0 +1,207 @@
+package net.conan.collections;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * <p>An immutable map from <code>int</code> keys to values, stored as a sorted
+ * <code>int[]</code> of keys with a parallel array of values.  It is the primitive
+ * counterpart of searching a <code>Map&lt;Integer,V&gt;</code> with a {@link MapLookup}:
+ * "all values with a key in [from, to)" is answered with two binary searches and one array
+ * copy, and nothing is boxed.</p>
+ *
+ * <p>Each entry costs an <code>int</code> and a reference, a fraction of what a
+ * <code>HashMap&lt;Integer,V&gt;</code> needs for the entry object and the boxed key.</p>
+ *
+ * @see LongKeyMap
+ * @author Conan Dombroski
+ */
+public final class IntKeyMap<V> {
+    private final int[] keys;
+    private final Object[] values;
+
+    private IntKeyMap(int[] keys, Object[] values){
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @param map entries to copy.  Null keys are not allowed.
+     * @param <V> value type
+     * @return a IntKeyMap with the same entries
+     */
+    public static <V> IntKeyMap<V> of(Map<Integer, ? extends V> map){
+        Builder<V> builder = new Builder<>(map.size());
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size(){
+        return keys.length;
+    }
+
+    /**
+     * @param key key to find
+     * @return the value for key, or null if absent
+     */
+    public V get(int key){
+        int index = Arrays.binarySearch(keys, key);
+        return index < 0 ? null : value(index);
+    }
+
+    /**
+     * @param key key to find
+     * @return true if the key is present
+     */
+    public boolean containsKey(int key){
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    /**
+     * @param index position between 0 and {@link #size()}, exclusive
+     * @return the index-th smallest key
+     */
+    public int keyAt(int index){
+        return keys[index];
+    }
+
+    /**
+     * @param index position between 0 and {@link #size()}, exclusive
+     * @return the value of the index-th smallest key
+     */
+    public V valueAt(int index){
+        return value(index);
+    }
+
+    /**
+     * @param fromInclusive lowest key
+     * @param toExclusive key above the highest key
+     * @return the values of all keys in the range, in key order
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> lookupRange(int fromInclusive, int toExclusive){
+        int from = lowerBound(fromInclusive);
+        int to = Math.max(from, lowerBound(toExclusive));
+        return Collections.unmodifiableList(Arrays.asList((V[]) Arrays.copyOfRange(values, from, to)));
+    }
+
+    /**
+     * @param fromInclusive lowest key
+     * @param toExclusive key above the highest key
+     * @return number of keys in the range
+     */
+    public int countRange(int fromInclusive, int toExclusive){
+        return Math.max(0, lowerBound(toExclusive) - lowerBound(fromInclusive));
+    }
+
+    /**
+     * Visit the entries of a range in key order without copying or boxing.
+     *
+     * @param fromInclusive lowest key
+     * @param toExclusive key above the highest key
+     * @param consumer receives each value and its key
+     */
+    public void forEachInRange(int fromInclusive, int toExclusive, ObjIntConsumer<? super V> consumer){
+        for(int i = lowerBound(fromInclusive), end = lowerBound(toExclusive); i < end; i++){
+            consumer.accept(value(i), keys[i]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int index){
+        return (V) values[index];
+    }
+
+    // First index whose key is >= key.
+    private int lowerBound(int key){
+        int low = 0;
+        int high = keys.length;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(keys[mid] < key){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Collects entries in any order.  When a key is added more than once, the last value
+     * wins, as with {@link Map#put(Object, Object)}.
+     */
+    public static final class Builder<V> {
+        private int[] keys;
+        private Object[] values;
+        private int size;
+        private boolean sorted = true;
+
+        public Builder(){
+            this(16);
+        }
+
+        public Builder(int expectedSize){
+            keys = new int[Math.max(expectedSize, 1)];
+            values = new Object[keys.length];
+        }
+
+        public Builder<V> put(int key, V value){
+            if(size == keys.length){
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            sorted &= size == 0 || keys[size - 1] < key;
+            keys[size] = key;
+            values[size++] = value;
+            return this;
+        }
+
+        public IntKeyMap<V> build(){
+            int[] sortedKeys = Arrays.copyOf(keys, size);
+            Object[] sortedValues = Arrays.copyOf(values, size);
+            if(sorted){
+                return new IntKeyMap<>(sortedKeys, sortedValues);
+            }
+            // Stable merge sort of both arrays, then keep the last value of each key.
+            mergeSort(sortedKeys, sortedValues, keys.clone(), values.clone(), 0, size);
+            int unique = 0;
+            for(int i = 0; i < size; i++){
+                if(unique > 0 && sortedKeys[unique - 1] == sortedKeys[i]){
+                    sortedValues[unique - 1] = sortedValues[i];
+                }else{
+                    sortedKeys[unique] = sortedKeys[i];
+                    sortedValues[unique++] = sortedValues[i];
+                }
+            }
+            return new IntKeyMap<>(Arrays.copyOf(sortedKeys, unique), Arrays.copyOf(sortedValues, unique));
+        }
+
+        // Sorts keys[from..to) and values alongside, using scratch arrays of the same content.
+        private static void mergeSort(int[] keys, Object[] values, int[] scratchKeys, Object[] scratchValues, int from, int to){
+            if(to - from < 2){
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(scratchKeys, scratchValues, keys, values, from, middle);
+            mergeSort(scratchKeys, scratchValues, keys, values, middle, to);
+            int left = from;
+            int right = middle;
+            for(int i = from; i < to; i++){
+                if(right >= to || (left < middle && scratchKeys[left] <= scratchKeys[right])){
+                    keys[i] = scratchKeys[left];
+                    values[i] = scratchValues[left++];
+                }else{
+                    keys[i] = scratchKeys[right];
+                    values[i] = scratchValues[right++];
+                }
+            }
+        }
+    }
+}
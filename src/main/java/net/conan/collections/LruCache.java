@@ -0,0 +1,55 @@
+package net.conan.collections;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A small, synchronized, least recently used cache.
+ *
+ * @author Conan Dombroski
+ */
+final class LruCache<K,V> {
+    private final Map<K,V> entries;
+
+    LruCache(final int maxEntries){
+        if(maxEntries < 1){
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        entries = new LinkedHashMap<K,V>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K,V> eldest){
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Return the cached value, or compute and cache it.  The computation runs without holding
+     * the lock, so two threads missing on the same key may both compute it.
+     */
+    V computeIfAbsent(K key, Function<? super K, ? extends V> compute){
+        V value = get(key);
+        if(value == null){
+            value = compute.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    synchronized V get(K key){
+        return entries.get(key);
+    }
+
+    synchronized void put(K key, V value){
+        entries.put(key, value);
+    }
+
+    synchronized void clear(){
+        entries.clear();
+    }
+
+    synchronized int size(){
+        return entries.size();
+    }
+}
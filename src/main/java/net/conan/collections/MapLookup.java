@@ -1,7 +1,11 @@
 package net.conan.collections;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
 
 /**
  *
@@ -12,4 +16,38 @@ import java.util.Map;
  */
 public interface MapLookup<S,K,V> {
     List<V> lookup(S searchCriteria, Map<K,V> map);
+
+    /**
+     * <p>Run several lookups against the same map.  The default implementation simply calls
+     * {@link #lookup(Object, Map)} once per distinct criteria.  Implementations that can
+     * answer all the criteria in a single pass over the map should override it.</p>
+     *
+     * @param searchCriteria criteria to look up.  Duplicates are only looked up once.
+     * @param map map to search
+     * @return the values found for each criteria, in the iteration order of searchCriteria
+     */
+    default Map<S,List<V>> lookupAll(Collection<S> searchCriteria, Map<K,V> map){
+        Map<S,List<V>> results = new LinkedHashMap<>();
+        for(S criteria : searchCriteria){
+            if(!results.containsKey(criteria)){
+                results.put(criteria, lookup(criteria, map));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * <p>Turn the criteria into a test for a single key, for callers that check keys one at a
+     * time instead of searching a whole map.  The default implementation runs
+     * {@link #lookup(Object, Map)} against a one entry map, which is correct but repeats any
+     * preparation of the criteria on every call.  Implementations should override it to
+     * prepare the criteria once.</p>
+     *
+     * @param searchCriteria criteria applied to each key
+     * @return Predicate that is true for the keys the criteria selects.  Must be safe to use
+     * from several threads.
+     */
+    default Predicate<K> keyMatcher(S searchCriteria){
+        return key -> !lookup(searchCriteria, Collections.singletonMap(key, null)).isEmpty();
+    }
 }
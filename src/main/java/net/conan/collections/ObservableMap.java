@@ -0,0 +1,241 @@
+package net.conan.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <p>A thread safe {@link Map} that maintains the results of registered
+ * {@link StandingQuery standing queries}.  Instead of searching the whole map after every
+ * change, each put or remove tests only the changed key against the registered criteria.
+ * Writes cost one {@link MapLookup#keyMatcher(Object) key test} per query; reading a
+ * query's results costs nothing.</p>
+ *
+ * <pre>
+ *    ObservableMap&lt;String,Session&gt; sessions = new ObservableMap&lt;&gt;();
+ *    StandingQuery&lt;String,String,Session&gt; admins =
+ *          sessions.register("admin\\..*", new StringKeysLookup&lt;&gt;());
+ *    sessions.put("admin.1", session);
+ *    admins.values(); // contains session
+ * </pre>
+ *
+ * <p>Entries are kept in a {@link ConcurrentHashMap}, so null keys and values are not
+ * allowed.  Writes to the same key are serialized together with the query updates they
+ * cause, so the query results always agree with the map for that key.  Registering a query
+ * briefly holds writes back, so that none of them is missed by the new query.  Compound
+ * operations inherited from {@link Map}, such as <code>putIfAbsent</code>, are not atomic.</p>
+ *
+ * <p>{@link #version()} changes with every write, before the written entry becomes visible.
+ * It can be used to tell whether results computed from the map are still current.</p>
+ *
+ * @author Conan Dombroski
+ */
+public class ObservableMap<K,V> extends AbstractMap<K,V> {
+
+    private final ConcurrentHashMap<K,V> entries = new ConcurrentHashMap<>();
+    private final List<StandingQuery<?,K,V>> queries = new CopyOnWriteArrayList<>();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicInteger writesInFlight = new AtomicInteger();
+    // Writers share the read lock; registration takes the write lock to see no write half done.
+    private final ReadWriteLock registration = new ReentrantReadWriteLock();
+    private final Set<Map.Entry<K,V>> entrySet = new EntrySet();
+
+    public ObservableMap(){
+    }
+
+    public ObservableMap(Map<? extends K, ? extends V> map){
+        putAll(map);
+    }
+
+    /**
+     * Register a criteria.  Its results are computed once from the current content and
+     * maintained from then on.
+     *
+     * @param criteria criteria applied to each key
+     * @param lookup the MapLookup that understands the criteria
+     * @param <S> criteria type
+     * @return the query holding the live results
+     */
+    public <S> StandingQuery<S,K,V> register(S criteria, MapLookup<S,K,V> lookup){
+        StandingQuery<S,K,V> query = new StandingQuery<>(criteria, lookup);
+        registration.writeLock().lock();
+        try {
+            // No write is in progress, and the ones waiting will see the query.
+            queries.add(query);
+            entries.forEach(query::update);
+        }finally {
+            registration.writeLock().unlock();
+        }
+        return query;
+    }
+
+    /**
+     * Stop maintaining the query's results.  Its views keep whatever they held.
+     *
+     * @param query previously registered query
+     * @return true if the query was registered
+     */
+    public boolean unregister(StandingQuery<?,K,V> query){
+        registration.writeLock().lock();
+        try {
+            return queries.remove(query);
+        }finally {
+            registration.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return a number that changes with every write to the map
+     */
+    public long version(){
+        return version.get();
+    }
+
+    /*
+    The version, or CachingMapLookup.NOT_VERSIONED while a write is in progress: a result computed
+    then may miss an entry that is already visible, yet be tagged with the version that includes it.
+     */
+    long stableVersion(){
+        long current = version.get();
+        return writesInFlight.get() == 0 ? current : CachingMapLookup.NOT_VERSIONED;
+    }
+
+    @Override
+    public V get(Object key){
+        return entries.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key){
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public int size(){
+        return entries.size();
+    }
+
+    @Override
+    public boolean isEmpty(){
+        return entries.isEmpty();
+    }
+
+    @Override
+    public V put(K key, V value){
+        if(value == null){
+            throw new NullPointerException("ObservableMap does not allow null values");
+        }
+        @SuppressWarnings("unchecked")
+        final V[] previous = (V[]) new Object[1];
+        write(() -> entries.compute(key, (k, old) -> {
+            previous[0] = old;
+            queries.forEach(query -> query.update(k, value));
+            return value;
+        }));
+        return previous[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key){
+        final V[] previous = (V[]) new Object[1];
+        if(entries.containsKey(key)){
+            write(() -> entries.computeIfPresent((K) key, (k, old) -> {
+                previous[0] = old;
+                queries.forEach(query -> query.update(k, null));
+                return null;
+            }));
+        }
+        return previous[0];
+    }
+
+    // The version moves before the write is visible, and stableVersion() stays unknown until it is.
+    private void write(Runnable write){
+        registration.readLock().lock();
+        try {
+            writesInFlight.incrementAndGet();
+            version.incrementAndGet();
+            write.run();
+        }finally {
+            writesInFlight.decrementAndGet();
+            registration.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear(){
+        entries.keySet().forEach(this::remove);
+    }
+
+    @Override
+    public Set<Map.Entry<K,V>> entrySet(){
+        return entrySet;
+    }
+
+    /*
+    Live view whose modifications go through put/remove so the queries see them.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<K,V>> {
+        @Override
+        public Iterator<Map.Entry<K,V>> iterator(){
+            final Iterator<Map.Entry<K,V>> iterator = entries.entrySet().iterator();
+            return new Iterator<Map.Entry<K,V>>() {
+                private K last;
+
+                @Override
+                public boolean hasNext(){
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<K,V> next(){
+                    Map.Entry<K,V> next = iterator.next();
+                    last = next.getKey();
+                    return new ObservedEntry(next.getKey(), next.getValue());
+                }
+
+                @Override
+                public void remove(){
+                    if(last == null){
+                        throw new IllegalStateException();
+                    }
+                    ObservableMap.this.remove(last);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size(){
+            return entries.size();
+        }
+
+        @Override
+        public void clear(){
+            ObservableMap.this.clear();
+        }
+    }
+
+    private final class ObservedEntry extends SimpleEntry<K,V> {
+        private static final long serialVersionUID = 1L;
+
+        ObservedEntry(K key, V value){
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value){
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
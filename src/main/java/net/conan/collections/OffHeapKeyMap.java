@@ -0,0 +1,119 @@
+package net.conan.collections;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * <p>An immutable map whose String keys live in an {@link OffHeapKeyStore}.  Only the values
+ * stay on the heap, in an array aligned with the store's key positions.  Lookups encode the
+ * key once and binary search the stored bytes.</p>
+ *
+ * <p>Iterating the map decodes each key into a new String; search it with
+ * {@link OffHeapKeysLookup} instead to avoid that.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class OffHeapKeyMap<V> extends AbstractMap<String,V> {
+    private final OffHeapKeyStore keys;
+    private final Object[] values;
+
+    /**
+     * Pair a store, typically {@link OffHeapKeyStore#open(java.nio.file.Path) reopened} from a
+     * file, with its values.
+     *
+     * @param keys the keys
+     * @param values one value per key, in key position order
+     * @throws IllegalArgumentException if there is not exactly one value per key
+     */
+    public OffHeapKeyMap(OffHeapKeyStore keys, List<? extends V> values){
+        if(keys.size() != values.size()){
+            throw new IllegalArgumentException("Expected " + keys.size() + " values, got " + values.size());
+        }
+        this.keys = keys;
+        this.values = values.toArray();
+    }
+
+    /**
+     * @param map entries to copy.  Null keys are not allowed.
+     * @param <V> value type
+     * @return an OffHeapKeyMap with the same entries
+     */
+    public static <V> OffHeapKeyMap<V> of(Map<String, ? extends V> map){
+        OffHeapKeyStore keys = OffHeapKeyStore.of(map.keySet());
+        List<V> values = new ArrayList<>(keys.size());
+        for(int i = 0; i < keys.size(); i++){
+            values.add(null);
+        }
+        map.forEach((key, value) -> values.set(keys.indexOf(key), value));
+        return new OffHeapKeyMap<>(keys, values);
+    }
+
+    /**
+     * @return the store holding the keys
+     */
+    public OffHeapKeyStore keyStore(){
+        return keys;
+    }
+
+    /**
+     * @param index key position in the {@link #keyStore() store}
+     * @return the value of that key
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int index){
+        return (V) values[index];
+    }
+
+    @Override
+    public int size(){
+        return values.length;
+    }
+
+    @Override
+    public V get(Object key){
+        int index = key instanceof String ? keys.indexOf((String) key) : -1;
+        return index < 0 ? null : valueAt(index);
+    }
+
+    @Override
+    public boolean containsKey(Object key){
+        return key instanceof String && keys.indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public Set<Entry<String,V>> entrySet(){
+        return new AbstractSet<Entry<String,V>>() {
+            @Override
+            public Iterator<Entry<String,V>> iterator(){
+                return new Iterator<Entry<String,V>>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext(){
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry<String,V> next(){
+                        if(!hasNext()){
+                            throw new NoSuchElementException();
+                        }
+                        int index = next++;
+                        return new SimpleImmutableEntry<>(keys.keyAt(index), valueAt(index));
+                    }
+                };
+            }
+
+            @Override
+            public int size(){
+                return values.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,339 @@
+package net.conan.collections;
+
+import net.conan.text.RegexAutomaton;
+import net.conan.text.RegexLiterals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>An immutable, sorted set of String keys kept outside the Java heap.  Keys are stored as
+ * UTF-8 in a single direct (or memory mapped) {@link ByteBuffer} with a table of offsets, so
+ * tens of millions of keys cost the garbage collector nothing.  Each key is identified by its
+ * position in UTF-8 byte order, which is also code point order.</p>
+ *
+ * <p>{@link #forEachMatch(String, IntConsumer)} matches regular expressions directly against
+ * the encoded bytes.  Only the keys under the expression's literal prefix are visited, and
+ * no String is created per key: expressions supported by {@link RegexAutomaton} are run on
+ * characters decoded on the fly, others use a {@link Matcher} over a reusable character
+ * view.</p>
+ *
+ * <p>A store can be {@link #save(Path) saved} and {@link #open(Path) reopened} by mapping the
+ * file, which takes no time regardless of its size.  The whole store is limited to 2GB.
+ * Keys must be valid Unicode; unpaired surrogates are replaced by the UTF-8 encoder.</p>
+ *
+ * <p>Instances are thread safe.</p>
+ *
+ * @see OffHeapKeyMap
+ * @author Conan Dombroski
+ */
+public final class OffHeapKeyStore {
+
+    // Layout: magic, format version, key count, then count + 1 data offsets, then the key bytes.
+    private static final int MAGIC = 0x4F484B53;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int dataStart;
+
+    private OffHeapKeyStore(ByteBuffer buffer){
+        if(buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION){
+            throw new IllegalStateException("Not an OffHeapKeyStore, or an unsupported version of one");
+        }
+        this.buffer = buffer;
+        count = buffer.getInt(8);
+        dataStart = HEADER_SIZE + (count + 1) * 4;
+        if(count < 0 || dataStart > buffer.capacity() || dataStart + offset(count) != buffer.capacity()){
+            throw new IllegalStateException("OffHeapKeyStore is truncated or corrupt");
+        }
+    }
+
+    /**
+     * @param keys keys to store.  Duplicates are stored once.
+     * @return a new store in direct memory
+     * @throws IllegalArgumentException if the keys need more than 2GB
+     */
+    public static OffHeapKeyStore of(Collection<String> keys){
+        byte[][] encoded = new byte[keys.size()][];
+        int n = 0;
+        for(String key : keys){
+            encoded[n++] = key.getBytes(StandardCharsets.UTF_8);
+        }
+        Arrays.sort(encoded, OffHeapKeyStore::compare);
+
+        int unique = 0;
+        long dataSize = 0;
+        for(int i = 0; i < encoded.length; i++){
+            if(unique == 0 || compare(encoded[unique - 1], encoded[i]) != 0){
+                encoded[unique++] = encoded[i];
+                dataSize += encoded[i].length;
+            }
+        }
+        long total = HEADER_SIZE + (unique + 1L) * 4 + dataSize;
+        if(total > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Keys need " + total + " bytes, more than a single buffer can hold");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) total);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(unique);
+        int offset = 0;
+        for(int i = 0; i < unique; i++){
+            buffer.putInt(offset);
+            offset += encoded[i].length;
+        }
+        buffer.putInt(offset);
+        for(int i = 0; i < unique; i++){
+            buffer.put(encoded[i]);
+        }
+        return new OffHeapKeyStore(buffer);
+    }
+
+    /**
+     * Map a store previously written by {@link #save(Path)}.  Pages are loaded by the
+     * operating system as they are used.
+     *
+     * @param file saved store
+     * @return the store, backed by the file
+     */
+    public static OffHeapKeyStore open(Path file){
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            return new OffHeapKeyStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to open key store " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write the store to a file, replacing any existing content.
+     *
+     * @param file destination
+     */
+    public void save(Path file){
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)){
+            ByteBuffer content = buffer.duplicate();
+            content.clear();
+            while(content.hasRemaining()){
+                channel.write(content);
+            }
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to save key store to " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return number of keys
+     */
+    public int size(){
+        return count;
+    }
+
+    /**
+     * @param key key to find
+     * @return position of the key, or -1 if it is not stored
+     */
+    public int indexOf(String key){
+        byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+        int index = lowerBound(encoded);
+        return index < count && compareAt(index, encoded, false) == 0 ? index : -1;
+    }
+
+    /**
+     * Decode a key.  This creates a String, so use it for occasional access only.
+     *
+     * @param index position between 0 and {@link #size()}, exclusive
+     * @return the key
+     */
+    public String keyAt(int index){
+        int start = dataStart + offset(index);
+        byte[] bytes = new byte[dataStart + offset(index + 1) - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Report the position of every key fully matching the regular expression, in key order.
+     *
+     * @param regularExpression expression in {@link Pattern} syntax
+     * @param onMatch receives the position of each matching key
+     */
+    public void forEachMatch(String regularExpression, IntConsumer onMatch){
+        byte[] prefix = RegexLiterals.literalPrefix(regularExpression).getBytes(StandardCharsets.UTF_8);
+        int from = lowerBound(prefix);
+        int to = prefixEnd(prefix);
+        Optional<RegexAutomaton> automaton = RegexAutomaton.compile(regularExpression);
+        Matcher matcher = Pattern.compile(regularExpression).matcher("");
+        KeyChars chars = new KeyChars();
+        if(automaton.isPresent()){
+            try {
+                for(; from < to; from++){
+                    if(automaton.get().isAccepting(run(automaton.get(), from))){
+                        onMatch.accept(from);
+                    }
+                }
+                return;
+            }catch (IllegalStateException e){
+                // State limit reached, finish with the backtracking matcher.
+            }
+        }
+        for(; from < to; from++){
+            if(matcher.reset(chars.load(from)).matches()){
+                onMatch.accept(from);
+            }
+        }
+    }
+
+    private int offset(int index){
+        return buffer.getInt(HEADER_SIZE + index * 4);
+    }
+
+    /*
+    Feed the key's code points to the automaton, stopping early once the state is dead.
+     */
+    private int run(RegexAutomaton automaton, int index){
+        int state = automaton.start();
+        int i = dataStart + offset(index);
+        int end = dataStart + offset(index + 1);
+        while(i < end && !automaton.isDead(state)){
+            int b = buffer.get(i) & 0xFF;
+            if(b < 0x80){
+                state = automaton.step(state, b);
+                i++;
+                continue;
+            }
+            int length = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+            state = automaton.step(state, decode(i, length));
+            i += length;
+        }
+        return state;
+    }
+
+    private int decode(int position, int length){
+        int codePoint = buffer.get(position) & (0xFF >> (length + 1));
+        for(int k = 1; k < length; k++){
+            codePoint = (codePoint << 6) | (buffer.get(position + k) & 0x3F);
+        }
+        return codePoint;
+    }
+
+    // First index whose key is >= target.
+    private int lowerBound(byte[] target){
+        int low = 0;
+        int high = count;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(compareAt(mid, target, false) < 0){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First index whose key sorts after every key starting with prefix.
+    private int prefixEnd(byte[] prefix){
+        int low = 0;
+        int high = count;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(compareAt(mid, prefix, true) <= 0){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /*
+    Unsigned comparison of the stored key with target.  With prefixOnly, only the first target.length
+    bytes of the key take part, so every key starting with target compares equal.
+     */
+    private int compareAt(int index, byte[] target, boolean prefixOnly){
+        int start = dataStart + offset(index);
+        int length = dataStart + offset(index + 1) - start;
+        int common = Math.min(length, target.length);
+        for(int i = 0; i < common; i++){
+            int difference = (buffer.get(start + i) & 0xFF) - (target[i] & 0xFF);
+            if(difference != 0){
+                return difference;
+            }
+        }
+        return prefixOnly && length >= target.length ? 0 : length - target.length;
+    }
+
+    private static int compare(byte[] a, byte[] b){
+        int common = Math.min(a.length, b.length);
+        for(int i = 0; i < common; i++){
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if(difference != 0){
+                return difference;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /*
+    Reusable CharSequence holding the decoded characters of one key at a time.
+     */
+    private final class KeyChars implements CharSequence {
+        private char[] chars = new char[64];
+        private int length;
+
+        KeyChars load(int index){
+            int i = dataStart + offset(index);
+            int end = dataStart + offset(index + 1);
+            length = 0;
+            while(i < end){
+                if(length + 2 > chars.length){
+                    chars = Arrays.copyOf(chars, chars.length * 2);
+                }
+                int b = buffer.get(i) & 0xFF;
+                if(b < 0x80){
+                    chars[length++] = (char) b;
+                    i++;
+                }else{
+                    int size = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+                    length += Character.toChars(decode(i, size), chars, length);
+                    i += size;
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public int length(){
+            return length;
+        }
+
+        @Override
+        public char charAt(int index){
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end){
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString(){
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package net.conan.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * <p>A {@link MapLookup} that searches an {@link OffHeapKeyMap} without creating a String per
+ * key: the regular expression is matched against the stored UTF-8 bytes by
+ * {@link OffHeapKeyStore#forEachMatch(String, java.util.function.IntConsumer)}, visiting only
+ * the keys under its literal prefix.  Values are returned in key order.</p>
+ *
+ * <p>Any other map is searched with a {@link StringKeysLookup}.</p>
+ *
+ * @see net.conan.collections.MapLookup
+ * @author Conan Dombroski
+ */
+public class OffHeapKeysLookup<V> implements MapLookup<String,String,V> {
+
+    private final StringKeysLookup<V> onHeap = new StringKeysLookup<>();
+
+    @Override
+    public List<V> lookup(String regularExpression, Map<String, V> map) {
+        if(!(map instanceof OffHeapKeyMap)){
+            return onHeap.lookup(regularExpression, map);
+        }
+        OffHeapKeyMap<V> offHeap = (OffHeapKeyMap<V>) map;
+        List<V> values = new ArrayList<>();
+        offHeap.keyStore().forEachMatch(regularExpression, index -> values.add(offHeap.valueAt(index)));
+        return values;
+    }
+
+    @Override
+    public Predicate<String> keyMatcher(String regularExpression) {
+        return onHeap.keyMatcher(regularExpression);
+    }
+}
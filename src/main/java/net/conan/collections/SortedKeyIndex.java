@@ -0,0 +1,81 @@
+package net.conan.collections;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A sorted snapshot of the String keys of a {@link Map}.  Keys sharing a prefix are
+ * contiguous, so a prefix range is found with two binary searches.
+ *
+ * @author Conan Dombroski
+ */
+final class SortedKeyIndex {
+    private final Map<String,?> source;
+    private final String[] keys;
+
+    SortedKeyIndex(Map<String,?> source){
+        this.source = source;
+        keys = source.keySet().toArray(new String[0]);
+        Arrays.sort(keys);
+    }
+
+    boolean isIndexOf(Map<?,?> map){
+        return source == map;
+    }
+
+    int size(){
+        return keys.length;
+    }
+
+    String key(int index){
+        return keys[index];
+    }
+
+    /**
+     * @param prefix literal prefix
+     * @return index of the first key that starts with prefix, or where it would be
+     */
+    int startOf(String prefix){
+        return lowerBound(prefix);
+    }
+
+    /**
+     * @param prefix literal prefix
+     * @return index one past the last key that starts with prefix
+     */
+    int endOf(String prefix){
+        String upperBound = prefixUpperBound(prefix);
+        return upperBound == null ? keys.length : lowerBound(upperBound);
+    }
+
+    private int lowerBound(String s){
+        int low = 0;
+        int high = keys.length;
+        while(low < high){
+            int mid = (low + high) >>> 1;
+            if(keys[mid].compareTo(s) < 0){
+                low = mid + 1;
+            }else{
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Smallest String that sorts after every String starting with prefix, or null if no such
+     * String exists (the prefix is empty or made entirely of {@link Character#MAX_VALUE}).
+     *
+     * @param prefix literal prefix
+     * @return exclusive upper bound of the prefix range
+     */
+    static String prefixUpperBound(String prefix){
+        for(int i = prefix.length() - 1; i >= 0; i--){
+            char c = prefix.charAt(i);
+            if(c != Character.MAX_VALUE){
+                return prefix.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+}
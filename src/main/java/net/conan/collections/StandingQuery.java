@@ -0,0 +1,68 @@
+package net.conan.collections;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * <p>A {@link MapLookup} criteria registered with an {@link ObservableMap}.  The map keeps the
+ * matching entries up to date on every write, so reading the results never searches the
+ * map.</p>
+ *
+ * <p>The views returned here are live and unmodifiable.  They have no particular order.</p>
+ *
+ * @see ObservableMap#register(Object, MapLookup)
+ * @author Conan Dombroski
+ */
+public final class StandingQuery<S,K,V> {
+    private final S criteria;
+    private final Predicate<K> keyMatcher;
+    private final Map<K,V> matches = new ConcurrentHashMap<>();
+
+    StandingQuery(S criteria, MapLookup<S,K,V> lookup){
+        this.criteria = criteria;
+        keyMatcher = lookup.keyMatcher(criteria);
+    }
+
+    /**
+     * @return the registered criteria
+     */
+    public S criteria(){
+        return criteria;
+    }
+
+    /**
+     * @return live view of the matching entries
+     */
+    public Map<K,V> matches(){
+        return Collections.unmodifiableMap(matches);
+    }
+
+    /**
+     * @return live view of the matching values, the equivalent of
+     * {@link MapLookup#lookup(Object, Map)} on the observed map
+     */
+    public Collection<V> values(){
+        return Collections.unmodifiableCollection(matches.values());
+    }
+
+    /**
+     * @return number of matching entries
+     */
+    public int size(){
+        return matches.size();
+    }
+
+    /*
+    Called by ObservableMap while it holds the lock for 'key'.  A null value means the key was removed.
+     */
+    void update(K key, V value){
+        if(value != null && keyMatcher.test(key)){
+            matches.put(key, value);
+        }else{
+            matches.remove(key);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package net.conan.collections;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <p>A {@link MapLookup} that produces its matches lazily.  Matching entries are found while
+ * the {@link Stream} is consumed, so callers that only need a few results, or only want to
+ * know whether anything matches, stop the search as soon as they have enough.</p>
+ *
+ * <p>Implementations should iterate {@link Map#entrySet()} so each match costs a single
+ * pass over the map rather than a key scan followed by {@link Map#get(Object)}.</p>
+ *
+ * @author Conan Dombroski
+ */
+public interface StreamingMapLookup<S,K,V> extends MapLookup<S,K,V> {
+
+    /**
+     * @param searchCriteria criteria applied to each key
+     * @param map map to search
+     * @return sequential Stream of the matching entries, in map iteration order
+     */
+    Stream<Map.Entry<K,V>> lookupStream(S searchCriteria, Map<K,V> map);
+
+    @Override
+    default List<V> lookup(S searchCriteria, Map<K,V> map){
+        try(Stream<Map.Entry<K,V>> matches = lookupStream(searchCriteria, map)){
+            return matches.map(Map.Entry::getValue).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Like {@link #lookup(Object, Map)}, but the search stops once limit values are found.
+     *
+     * @param searchCriteria criteria applied to each key
+     * @param map map to search
+     * @param limit maximum number of values to return
+     * @return at most limit values
+     */
+    default List<V> lookup(S searchCriteria, Map<K,V> map, int limit){
+        try(Stream<Map.Entry<K,V>> matches = lookupStream(searchCriteria, map)){
+            return matches.limit(limit).map(Map.Entry::getValue).collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param searchCriteria criteria applied to each key
+     * @param map map to search
+     * @return value of the first matching entry.  Empty if nothing matches or the value is null.
+     */
+    default Optional<V> lookupFirst(S searchCriteria, Map<K,V> map){
+        try(Stream<Map.Entry<K,V>> matches = lookupStream(searchCriteria, map)){
+            return matches.findFirst().map(Map.Entry::getValue);
+        }
+    }
+
+    /**
+     * @param searchCriteria criteria applied to each key
+     * @param map map to search
+     * @return true as soon as one key matches
+     */
+    default boolean matchesAny(S searchCriteria, Map<K,V> map){
+        try(Stream<Map.Entry<K,V>> matches = lookupStream(searchCriteria, map)){
+            return matches.findAny().isPresent();
+        }
+    }
+}
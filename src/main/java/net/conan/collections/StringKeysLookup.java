@@ -1,23 +1,205 @@
 package net.conan.collections;
 
+import net.conan.text.MultiPatternMatcher;
+import net.conan.text.RegexLiterals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
+ * <p>Keys are matched while iterating {@link Map#entrySet()}, so every matching entry costs
+ * one pass over the map and no second {@link Map#get(Object)}.  {@link #lookupStream} reuses
+ * one {@link Matcher} per thread, so non-matching keys allocate nothing.</p>
+ *
+ * <p>Maps with at least <code>parallelThreshold</code> entries are searched in parallel
+ * on a {@link ForkJoinPool}.  The entries are copied into an array in map iteration order
+ * (sorted order for a <code>TreeMap</code>), the array is split among the workers, and the
+ * partial results are joined back in array order.  The values are therefore returned in the
+ * same order as a sequential lookup, whatever the size of the map.</p>
+ *
+ * <p>{@link #lookupAll(Collection, Map) Batch lookups} make a single pass over the map for all
+ * of their expressions, see {@link MultiPatternMatcher}.  Expressions that are plain
+ * literals don't need the pass at all and are answered with {@link Map#get(Object)}.</p>
+ *
+ * <p>The most recently used compiled {@link Pattern}s are kept, so repeating an expression
+ * does not compile it again.  Wrap the lookup in a {@link CachingMapLookup} to also reuse
+ * results.</p>
+ *
+ * <p>The map must not be structurally modified by other threads during a parallel lookup
+ * unless it is a concurrent map.</p>
+ *
  * @see net.conan.collections.MapLookup
  * @author Conan Dombroski ()
  */
-public class StringKeysLookup<V> implements MapLookup <String,String,V>  {
+public class StringKeysLookup<V> implements StreamingMapLookup<String,String,V> {
+
+    /**
+     * Map size from which the parallel lookup is used by {@link #StringKeysLookup(int)}
+     * callers that have no better number.  It is two tasks' worth of entries, the smallest map
+     * that is split at all; copying and splitting cost less than what a second worker saves from
+     * there (see <code>StringKeysLookupBenchmark</code> in the test sources).
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+
+    // Number of entries a single fork/join task matches without splitting further.
+    static final int TASK_SIZE = 1 << 12;
+
+    private static final int PATTERN_CACHE_SIZE = 64;
+
+    private final LruCache<String,Pattern> patterns = new LruCache<>(PATTERN_CACHE_SIZE);
+
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a StringKeysLookup that always searches sequentially.
+     */
+    public StringKeysLookup(){
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a StringKeysLookup that searches maps with at least parallelThreshold entries
+     * in parallel using the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param parallelThreshold minimum map size for a parallel lookup
+     */
+    public StringKeysLookup(int parallelThreshold){
+        this(parallelThreshold, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a StringKeysLookup that searches maps with at least parallelThreshold entries
+     * in parallel using the given pool.
+     *
+     * @param parallelThreshold minimum map size for a parallel lookup
+     * @param pool pool that runs parallel lookups
+     */
+    public StringKeysLookup(int parallelThreshold, ForkJoinPool pool){
+        if(parallelThreshold < 1){
+            throw new IllegalArgumentException("parallelThreshold must be positive: " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+        this.pool = pool;
+    }
 
     @Override
     public List<V> lookup(String regularExpression, Map<String, V> map) {
-        final Pattern pattern = Pattern.compile(regularExpression);
-        return map.keySet()
+        if(map.size() >= parallelThreshold){
+            final Pattern pattern = compile(regularExpression);
+            List<Map.Entry<String,V>> entries = new ArrayList<>(map.entrySet());
+            return pool.invoke(new MatchTask<>(pattern, entries, 0, entries.size()));
+        }
+        return StreamingMapLookup.super.lookup(regularExpression, map);
+    }
+
+    /**
+     * Always sequential, whatever the parallel threshold.
+     *
+     * @param regularExpression regular expression the keys must fully match
+     * @param map map to search
+     * @return Stream of the matching entries
+     */
+    @Override
+    public Stream<Map.Entry<String,V>> lookupStream(String regularExpression, Map<String,V> map) {
+        final Pattern pattern = compile(regularExpression);
+        // Per thread, in case the caller makes the stream parallel.
+        final ThreadLocal<Matcher> matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        return map.entrySet()
               .stream()
-              .filter(string -> pattern.matcher(string).matches())
-              .map(map::get).collect(Collectors.toList());
+              .filter(entry -> matcher.get().reset(entry.getKey()).matches());
+    }
+
+    @Override
+    public Predicate<String> keyMatcher(String regularExpression) {
+        final Pattern pattern = compile(regularExpression);
+        return key -> pattern.matcher(key).matches();
+    }
+
+    @Override
+    public Map<String,List<V>> lookupAll(Collection<String> regularExpressions, Map<String,V> map) {
+        final Map<String,List<V>> results = new LinkedHashMap<>();
+        final List<String> scanned = new ArrayList<>();
+        for(String regularExpression : regularExpressions){
+            if(results.containsKey(regularExpression)){
+                continue;
+            }
+            List<V> values = new ArrayList<>();
+            results.put(regularExpression, values);
+            if(RegexLiterals.isLiteral(regularExpression)){
+                String key = RegexLiterals.literalPrefix(regularExpression);
+                V value = map.get(key);
+                if(value != null || map.containsKey(key)){
+                    values.add(value);
+                }
+            }else{
+                scanned.add(regularExpression);
+            }
+        }
+
+        if(!scanned.isEmpty()){
+            final MultiPatternMatcher matcher = new MultiPatternMatcher(scanned);
+            final List<List<V>> targets = new ArrayList<>();
+            scanned.forEach(regularExpression -> targets.add(results.get(regularExpression)));
+            for(Map.Entry<String,V> entry : map.entrySet()){
+                matcher.forEachMatch(entry.getKey(), index -> targets.get(index).add(entry.getValue()));
+            }
+        }
+        return results;
     }
-}
 
+    // Repeated expressions reuse their compiled Pattern, which is immutable and thread safe.
+    private Pattern compile(String regularExpression){
+        return patterns.computeIfAbsent(regularExpression, Pattern::compile);
+    }
+
+    /*
+    Matches entries[from..to), splitting in halves until the range is small enough.  The left half's
+    results come first, so the joined list follows the order of the entries list.
+     */
+    private static final class MatchTask<V> extends RecursiveTask<List<V>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Pattern pattern;
+        private final List<Map.Entry<String,V>> entries;
+        private final int from;
+        private final int to;
+
+        MatchTask(Pattern pattern, List<Map.Entry<String,V>> entries, int from, int to){
+            this.pattern = pattern;
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<V> compute(){
+            if(to - from <= TASK_SIZE){
+                List<V> values = new ArrayList<>();
+                Matcher matcher = pattern.matcher("");
+                for(Map.Entry<String,V> entry : entries.subList(from, to)){
+                    if(matcher.reset(entry.getKey()).matches()){
+                        values.add(entry.getValue());
+                    }
+                }
+                return values;
+            }
+            int middle = (from + to) >>> 1;
+            MatchTask<V> left = new MatchTask<>(pattern, entries, from, middle);
+            left.fork();
+            List<V> right = new MatchTask<>(pattern, entries, middle, to).compute();
+            List<V> values = left.join();
+            values.addAll(right);
+            return values;
+        }
+    }
+}
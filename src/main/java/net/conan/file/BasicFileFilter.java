@@ -12,11 +12,15 @@ import java.util.regex.Pattern;
  *     No other path information is used.</li>
  *     <li>Full matching with {@link Pattern} is used.  ie: </li>
  * </ul>
+ * <p>Matching goes through a {@link NameFilter}, so literal and simple wildcard patterns are
+ * checked without a {@link java.util.regex.Matcher}.</p>
  * @author Conan Dombroski ()
  */
 public class BasicFileFilter implements FileFilter, FilenameFilter{
     private final Pattern pattern;
 
+    private final NameFilter filter;
+
     private final int hash;
 
     BasicFileFilter(String filter){
@@ -25,6 +29,7 @@ public class BasicFileFilter implements FileFilter, FilenameFilter{
 
     public BasicFileFilter(Pattern pattern){
         this.pattern = pattern;
+        filter = NameFilter.regex(pattern);
         hash = getClass().hashCode() * pattern.hashCode() * 31;
     }
     public static FileFilter asFileFilter(String filter){
@@ -45,12 +50,12 @@ public class BasicFileFilter implements FileFilter, FilenameFilter{
 
     @Override
     public boolean accept(File pathname) {
-        return pattern.matcher(pathname.getName()).matches();
+        return filter.matches(pathname.getName());
     }
 
     @Override
     public boolean accept(File dir, String name) {
-        return pattern.matcher(name).matches();
+        return filter.matches(name);
     }
 
     @Override
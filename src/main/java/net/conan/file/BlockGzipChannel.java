@@ -0,0 +1,183 @@
+package net.conan.file;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * <p>Gzip compresses what is written to it with several threads, in the manner of pigz.  The
+ * bytes are cut into blocks, each block is deflated by a worker into a complete gzip member,
+ * and the members are written to the underlying channel in order.  A stream of members is a
+ * valid gzip file, read back whole by gzip and {@link java.util.zip.GZIPInputStream}.</p>
+ *
+ * <p>At most two blocks per thread are in flight; writing waits for the oldest one once that
+ * many are pending, which bounds memory.  Blocks are deflated independently, so the output is
+ * slightly larger than a single member would be.  Closing writes the last block and waits for
+ * every member, but leaves the underlying channel open.  Not thread safe.</p>
+ *
+ * @author Conan Dombroski
+ */
+final class BlockGzipChannel implements GatheringByteChannel {
+
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int TRAILER_SIZE = 8;
+
+    private final WritableByteChannel out;
+    private final int level;
+    private final int blockSize;
+    private final int maxInFlight;
+    private final ForkJoinPool pool;
+    private final Deque<Future<ByteBuffer>> inFlight = new ArrayDeque<>();
+    private final Queue<byte[]> freeBlocks = new ConcurrentLinkedQueue<>();
+    private byte[] block;
+    private int blockLength;
+    private boolean written;
+    private boolean open = true;
+
+    /**
+     * @param out channel receiving the gzip stream
+     * @param level deflate level, 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param threads number of compressing threads
+     * @param blockSize bytes per gzip member
+     */
+    BlockGzipChannel(WritableByteChannel out, int level, int threads, int blockSize){
+        this.out = out;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxInFlight = threads * 2;
+        this.pool = new ForkJoinPool(threads);
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if(!open){
+            throw new ClosedChannelException();
+        }
+        int count = src.remaining();
+        while(src.hasRemaining()){
+            int length = Math.min(src.remaining(), blockSize - blockLength);
+            src.get(block, blockLength, length);
+            blockLength += length;
+            if(blockLength == blockSize){
+                submit();
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        long count = 0;
+        for(int i = offset; i < offset + length; i++){
+            count += write(srcs[i]);
+        }
+        return count;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public boolean isOpen(){
+        return open;
+    }
+
+    /**
+     * Compress the last block and write every pending member.
+     */
+    @Override
+    public void close() throws IOException {
+        if(!open){
+            return;
+        }
+        open = false;
+        try {
+            if(blockLength > 0 || !written){
+                // An empty input still needs one member to be a gzip file.
+                submit();
+            }
+            while(!inFlight.isEmpty()){
+                writeOldest();
+            }
+        }finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void submit() throws IOException {
+        if(inFlight.size() >= maxInFlight){
+            writeOldest();
+        }
+        byte[] data = block;
+        int length = blockLength;
+        inFlight.add(pool.submit(() -> compress(data, length)));
+        written = true;
+        byte[] free = freeBlocks.poll();
+        block = free != null ? free : new byte[blockSize];
+        blockLength = 0;
+    }
+
+    private void writeOldest() throws IOException {
+        ByteBuffer member;
+        try {
+            member = inFlight.poll().get();
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        }catch (ExecutionException e){
+            throw new IOException("Failed to compress a block due to " + e.getCause(), e.getCause());
+        }
+        while(member.hasRemaining()){
+            out.write(member);
+        }
+    }
+
+    private ByteBuffer compress(byte[] data, int length){
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            byte[] member = Arrays.copyOf(HEADER, HEADER.length + length + length / 1000 + 64 + TRAILER_SIZE);
+            int size = HEADER.length;
+            while(!deflater.finished()){
+                if(size + TRAILER_SIZE == member.length){
+                    member = Arrays.copyOf(member, member.length * 2);
+                }
+                size += deflater.deflate(member, size, member.length - TRAILER_SIZE - size);
+            }
+            writeIntLE(member, size, (int) crc.getValue());
+            writeIntLE(member, size + 4, length);
+            return ByteBuffer.wrap(member, 0, size + TRAILER_SIZE);
+        }finally {
+            deflater.end();
+            freeBlocks.offer(data);
+        }
+    }
+
+    private static void writeIntLE(byte[] bytes, int offset, int value){
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,335 @@
+package net.conan.file;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Deletes directory trees with several threads.  Each directory is emptied by its own
+ * fork/join task, so independent subtrees are deleted in parallel, and a directory is removed
+ * once the last of its children is gone.  Symbolic links are deleted, never followed.</p>
+ *
+ * <p>Every deletion runs in the background on its own pool of {@link #withParallelism(int)}
+ * threads and is tracked by a {@link Deletion}, which exposes progress counters, cancellation
+ * and the entries that could not be deleted.  A directory holding such an entry is left in
+ * place, and only the entry itself is reported.
+ * {@link #renameAndStart(Path)} first moves the tree out of the way, so its path can be reused
+ * as soon as the call returns.</p>
+ *
+ * <pre>    BulkDeleter.Deletion deletion = new BulkDeleter().withParallelism(16).renameAndStart(cacheDir);
+ *    Files.createDirectory(cacheDir);   // free already
+ *    ...
+ *    deletion.await();</pre>
+ *
+ * @author Conan Dombroski
+ */
+public final class BulkDeleter {
+
+    private final int parallelism;
+
+    /**
+     * A deleter using one thread per processor.
+     */
+    public BulkDeleter(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    private BulkDeleter(int parallelism){
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param parallelism number of deleting threads per deletion
+     * @return a copy using the given number of threads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public BulkDeleter withParallelism(int parallelism){
+        if(parallelism < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        return new BulkDeleter(parallelism);
+    }
+
+    /**
+     * Delete a tree and wait for the result.
+     *
+     * @param root file or directory to delete
+     * @return the finished deletion
+     */
+    public Deletion delete(Path root){
+        return start(root).await();
+    }
+
+    /**
+     * Start deleting a tree in the background.
+     *
+     * @param root file or directory to delete
+     * @return the running deletion
+     */
+    public Deletion start(Path root){
+        Deletion deletion = new Deletion(root, new ForkJoinPool(parallelism));
+        deletion.pool.execute(new DeleteTask(null, root, deletion));
+        return deletion;
+    }
+
+    /**
+     * Atomically rename the tree to a hidden sibling, then delete that in the background.
+     * When this returns, root no longer exists and may be recreated.
+     *
+     * @param root file or directory to delete
+     * @return the running deletion, whose {@link Deletion#path()} is the renamed tree
+     * @throws IllegalArgumentException if root is a file system root
+     * @throws IllegalStateException if the tree cannot be renamed
+     */
+    public Deletion renameAndStart(Path root){
+        Path name = root.getFileName();
+        if(name == null){
+            throw new IllegalArgumentException("Cannot rename the root directory " + root);
+        }
+        Path renamed = root.resolveSibling("." + name + ".deleting-" + Long.toHexString(System.nanoTime()));
+        try {
+            Files.move(root, renamed, StandardCopyOption.ATOMIC_MOVE);
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to rename " + root + " for deletion due to " + e.getMessage(), e);
+        }
+        return start(renamed);
+    }
+
+    /**
+     * Progress and outcome of one deletion.  All methods are thread safe.
+     */
+    public static final class Deletion {
+        private final Path path;
+        private final ForkJoinPool pool;
+        private final LongAdder files = new LongAdder();
+        private final LongAdder directories = new LongAdder();
+        private final Map<Path,Exception> failures = new ConcurrentHashMap<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean cancelled;
+
+        Deletion(Path path, ForkJoinPool pool){
+            this.path = path;
+            this.pool = pool;
+        }
+
+        /**
+         * @return the tree being deleted
+         */
+        public Path path(){
+            return path;
+        }
+
+        /**
+         * @return number of files, links and other non directory entries deleted so far
+         */
+        public long deletedFiles(){
+            return files.sum();
+        }
+
+        /**
+         * @return number of directories deleted so far
+         */
+        public long deletedDirectories(){
+            return directories.sum();
+        }
+
+        /**
+         * @return entries that could not be deleted so far, with the reason
+         */
+        public Map<Path,Exception> failures(){
+            return Collections.unmodifiableMap(failures);
+        }
+
+        /**
+         * Stop deleting.  Entries already deleted stay deleted; directories that were not
+         * emptied stay in place.
+         */
+        public void cancel(){
+            cancelled = true;
+        }
+
+        /**
+         * @return true if {@link #cancel()} was called
+         */
+        public boolean isCancelled(){
+            return cancelled;
+        }
+
+        /**
+         * @return true once the deletion has finished, completely or not
+         */
+        public boolean isDone(){
+            return done.getCount() == 0;
+        }
+
+        /**
+         * @return true if the whole tree is gone
+         */
+        public boolean succeeded(){
+            return isDone() && !cancelled && failures.isEmpty();
+        }
+
+        /**
+         * Wait for the deletion to finish.
+         *
+         * @return this deletion
+         * @throws IllegalStateException if interrupted while waiting
+         */
+        public Deletion await(){
+            try {
+                done.await();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while deleting " + path, e);
+            }
+            return this;
+        }
+
+        /**
+         * @param timeout maximum time to wait
+         * @param unit unit of the timeout
+         * @return true if the deletion finished in time
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+
+        void fail(Path entry, Exception e){
+            if(!(e instanceof NoSuchFileException)){
+                failures.put(entry, e);
+            }
+        }
+
+        void finish(){
+            pool.shutdown();
+            done.countDown();
+        }
+
+        @Override
+        public String toString(){
+            return "Deletion{path=" + path + ", files=" + deletedFiles() + ", directories=" + deletedDirectories() +
+                  ", failures=" + failures.size() + ", done=" + isDone() + ", cancelled=" + cancelled + "}";
+        }
+    }
+
+    /*
+    Deletes one entry.  A directory forks a task per subdirectory, deletes its other entries
+    itself, and is removed in onCompletion once its subtasks are done.  A failure anywhere
+    below marks the ancestors incomplete, so they are left in place without further errors.
+    Anything thrown past that completes the chain exceptionally, and the root then finishes the
+    deletion in onExceptionalCompletion, since onCompletion is never called for it.
+     */
+    private static final class DeleteTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path path;
+        private final Deletion deletion;
+        private volatile boolean incomplete;
+        private boolean directory;
+
+        DeleteTask(DeleteTask parent, Path path, Deletion deletion){
+            super(parent);
+            this.path = path;
+            this.deletion = deletion;
+        }
+
+        @Override
+        public void compute(){
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                directory = attributes.isDirectory();
+                if(directory){
+                    empty();
+                }
+            }catch (IOException | RuntimeException e){
+                failed(path, e);
+            }
+            tryComplete();
+        }
+
+        private void empty() throws IOException {
+            try(DirectoryStream<Path> entries = Files.newDirectoryStream(path)){
+                for(Path entry : entries){
+                    if(deletion.cancelled){
+                        markIncomplete();
+                        return;
+                    }
+                    if(Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)){
+                        addToPendingCount(1);
+                        new DeleteTask(this, entry, deletion).fork();
+                    }else{
+                        try {
+                            Files.delete(entry);
+                            deletion.files.increment();
+                        }catch (IOException e){
+                            failed(entry, e);
+                        }
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller){
+            try {
+                if(!incomplete && !deletion.cancelled){
+                    Files.delete(path);
+                    if(directory){
+                        deletion.directories.increment();
+                    }else{
+                        deletion.files.increment();
+                    }
+                }else if(deletion.cancelled){
+                    markIncomplete();
+                }
+            }catch (IOException | RuntimeException e){
+                failed(path, e);
+            }finally {
+                if(getCompleter() == null){
+                    deletion.finish();
+                }
+            }
+        }
+
+        @Override
+        public boolean onExceptionalCompletion(Throwable ex, CountedCompleter<?> caller){
+            if(caller == this){
+                deletion.fail(path, ex instanceof Exception ? (Exception) ex
+                      : new IllegalStateException("Failed to delete " + path + " due to " + ex, ex));
+                markIncomplete();
+            }
+            if(getCompleter() == null){
+                deletion.finish();
+            }
+            return true;
+        }
+
+        private void failed(Path entry, Exception e){
+            if(!(e instanceof NoSuchFileException)){
+                deletion.fail(entry, e);
+                markIncomplete();
+            }
+        }
+
+        private void markIncomplete(){
+            incomplete = true;
+            for(CountedCompleter<?> parent = getCompleter(); parent != null; parent = parent.getCompleter()){
+                ((DeleteTask) parent).incomplete = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package net.conan.file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * <p>Keeps directory listings in memory, so repeated listings of the same directories do not
+ * read them again.  Each cached directory is registered with a {@link WatchService}, and a
+ * background thread applies create and delete events to the cached names as they arrive.
+ * Listings filtered by name are cached for the last few filters used on each directory, keyed
+ * by filter equality, and recomputed only after the directory changed.  Reuse filter
+ * instances, as most filters only equal themselves.  A {@link FilenameFilter} must therefore
+ * only look at the name.  A {@link FileFilter} may look at the file's attributes, which change
+ * without any create or delete event, so it is applied to the cached names on every call;
+ * {@link NameFilter}s are the exception, being known to look at the name only.</p>
+ *
+ * <p>At most {@link #DEFAULT_MAX_DIRECTORIES} directories, or the number given to the
+ * constructor, are cached.  The least recently listed one is dropped and stops being watched
+ * beyond that, which bounds both memory and the watches held in the operating system.</p>
+ *
+ * <p>When the watch service drops events ({@link StandardWatchEventKinds#OVERFLOW}), cannot
+ * watch a directory, or is not supported by the file system at all, the affected listings
+ * are validated by the directory's modification time before use instead, and reloaded if
+ * it changed.  That costs one attribute read per call, and relies on the file system
+ * updating the time on every change; coarse timestamps can hide changes made in the same
+ * tick as the last load.  Events that arrive while a directory is being read make the
+ * result suspect, so it is read again.</p>
+ *
+ * <p>Instances are thread safe.  Close the cache to stop watching.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class DirectoryListingCache implements Closeable {
+
+    public static final int DEFAULT_MAX_DIRECTORIES = 1024;
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+    private static final int MAX_FILTERS = 16;
+
+    private final WatchService watchService;
+    // Guarded by itself, in access order so the least recently listed directory goes first.
+    private final Map<Path,Entry> entries;
+    private final Map<WatchKey,Entry> watched = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final Thread watcher;
+
+    /**
+     * Cache listings of the default file system.
+     */
+    public DirectoryListingCache(){
+        this(FileSystems.getDefault());
+    }
+
+    /**
+     * @param fileSystem file system of the directories to cache
+     */
+    public DirectoryListingCache(FileSystem fileSystem){
+        this(fileSystem, DEFAULT_MAX_DIRECTORIES);
+    }
+
+    /**
+     * @param fileSystem file system of the directories to cache
+     * @param maxDirectories maximum number of cached directories
+     * @throws IllegalArgumentException if maxDirectories is less than 1
+     */
+    public DirectoryListingCache(FileSystem fileSystem, int maxDirectories){
+        if(maxDirectories < 1){
+            throw new IllegalArgumentException("Maximum directories must be at least 1, got " + maxDirectories);
+        }
+        entries = new LinkedHashMap<Path,Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path,Entry> eldest){
+                if(size() > maxDirectories){
+                    eldest.getValue().discard();
+                    return true;
+                }
+                return false;
+            }
+        };
+        WatchService service;
+        try {
+            service = fileSystem.newWatchService();
+        }catch (IOException | UnsupportedOperationException e){
+            service = null;
+        }
+        watchService = service;
+        if(watchService == null){
+            watcher = null;
+        }else{
+            watcher = new Thread(this::watch, "DirectoryListingCache-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    /**
+     * @param directory directory to list
+     * @return the entries of the directory, sorted by name
+     * @throws IllegalStateException if the directory cannot be read
+     */
+    public List<Path> list(Path directory){
+        return list(directory, null);
+    }
+
+    /**
+     * @param directory directory to list
+     * @param filter names to keep, or null for all
+     * @return the accepted entries of the directory, sorted by name
+     * @throws IllegalStateException if the directory cannot be read
+     */
+    public List<Path> list(Path directory, FilenameFilter filter){
+        Entry entry = entryFor(directory);
+        File dir = directory.toFile();
+        List<String> names = entry.filtered(filter, filter == null ? name -> true : name -> filter.accept(dir, name));
+        List<Path> paths = new ArrayList<>(names.size());
+        for(String name : names){
+            paths.add(directory.resolve(name));
+        }
+        return paths;
+    }
+
+    /**
+     * Cached equivalent of {@link File#listFiles(FileFilter)}.  The names are cached, but the
+     * filter is applied on every call, unless it is a {@link NameFilter}.
+     *
+     * @param directory directory to list
+     * @param filter files to keep, or null for all
+     * @return the accepted files, sorted by name
+     * @throws IllegalStateException if the directory cannot be read
+     */
+    public File[] listFiles(File directory, FileFilter filter){
+        Entry entry = entryFor(directory.toPath());
+        if(filter == null || filter instanceof NameFilter){
+            List<String> names = entry.filtered(filter, filter == null ? name -> true : name -> filter.accept(new File(directory, name)));
+            File[] files = new File[names.size()];
+            for(int i = 0; i < files.length; i++){
+                files[i] = new File(directory, names.get(i));
+            }
+            return files;
+        }
+        List<File> files = new ArrayList<>();
+        for(String name : entry.filtered(null, name -> true)){
+            File file = new File(directory, name);
+            if(filter.accept(file)){
+                files.add(file);
+            }
+        }
+        return files.toArray(new File[0]);
+    }
+
+    /**
+     * Forget one directory, so it is read again on the next call.
+     *
+     * @param directory directory to forget
+     */
+    public void invalidate(Path directory){
+        Entry entry;
+        synchronized(entries){
+            entry = entries.remove(directory.toAbsolutePath().normalize());
+        }
+        if(entry != null){
+            entry.discard();
+        }
+    }
+
+    /**
+     * Forget every directory.
+     */
+    public void invalidateAll(){
+        List<Path> directories;
+        synchronized(entries){
+            directories = new ArrayList<>(entries.keySet());
+        }
+        for(Path directory : directories){
+            invalidate(directory);
+        }
+    }
+
+    /**
+     * @return number of listings answered without reading the directory
+     */
+    public long hitCount(){
+        return hits.sum();
+    }
+
+    /**
+     * @return number of listings that read the directory
+     */
+    public long missCount(){
+        return misses.sum();
+    }
+
+    /**
+     * @return hits divided by all listings, or 0 before the first one
+     */
+    public double hitRate(){
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return number of create and delete events applied to cached listings
+     */
+    public long eventCount(){
+        return events.sum();
+    }
+
+    /**
+     * @return number of times the watch service dropped events
+     */
+    public long overflowCount(){
+        return overflows.sum();
+    }
+
+    /**
+     * @return number of cached directories
+     */
+    public int size(){
+        synchronized(entries){
+            return entries.size();
+        }
+    }
+
+    /**
+     * Stop watching and forget every directory.
+     */
+    @Override
+    public void close(){
+        if(watchService != null){
+            try {
+                watchService.close();
+            }catch (IOException e){
+                throw new IllegalStateException("Failed to close the watch service due to " + e.getMessage(), e);
+            }
+        }
+        invalidateAll();
+    }
+
+    // Same as an overflow of the directory's events; for tests.
+    void simulateOverflow(Path directory){
+        Entry entry;
+        synchronized(entries){
+            entry = entries.get(directory.toAbsolutePath().normalize());
+        }
+        if(entry != null){
+            overflows.increment();
+            entry.markStale();
+        }
+    }
+
+    private Entry entryFor(Path directory){
+        Path key = directory.toAbsolutePath().normalize();
+        Entry entry;
+        synchronized(entries){
+            entry = entries.computeIfAbsent(key, Entry::new);
+        }
+        if(entry.ensureLoaded()){
+            misses.increment();
+        }else{
+            hits.increment();
+        }
+        return entry;
+    }
+
+    private void watch(){
+        try {
+            while(true){
+                WatchKey key = watchService.take();
+                Entry entry = watched.get(key);
+                for(WatchEvent<?> event : key.pollEvents()){
+                    if(entry == null){
+                        continue;
+                    }
+                    if(event.kind() == StandardWatchEventKinds.OVERFLOW){
+                        overflows.increment();
+                        entry.markStale();
+                    }else{
+                        events.increment();
+                        entry.apply(event.kind() == StandardWatchEventKinds.ENTRY_CREATE, event.context().toString());
+                    }
+                }
+                if(!key.reset() && entry != null){
+                    // The directory is gone or no longer watchable.
+                    watched.remove(key);
+                    entry.markUnwatched();
+                }
+            }
+        }catch (ClosedWatchServiceException e){
+            // Closed, stop watching.
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+    One cached directory.  The names are replaced by loads and updated by events, both under
+    the entry's monitor.  Loading itself happens outside the monitor, under loadLock, so events
+    are never held up by a slow directory read: they only mark the load dirty.
+     */
+    private final class Entry {
+        private final Path directory;
+        private final Object loadLock = new Object();
+        private WatchKey key;
+        private boolean watching;
+        private boolean discarded;
+        private Set<String> names;
+        private long version;
+        private boolean loading;
+        private boolean dirty;
+        private boolean stale;
+        private FileTime loadedTime;
+        private final Map<Object,Filtered> filtered = new LinkedHashMap<Object,Filtered>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object,Filtered> eldest){
+                return size() > MAX_FILTERS;
+            }
+        };
+
+        Entry(Path directory){
+            this.directory = directory;
+        }
+
+        // Returns true if the directory had to be read.
+        boolean ensureLoaded(){
+            synchronized(loadLock){
+                if(!needsLoad()){
+                    return false;
+                }
+                watch();
+                for(int attempt = 1; ; attempt++){
+                    synchronized(this){
+                        loading = true;
+                        dirty = false;
+                    }
+                    FileTime time = modifiedTime();
+                    Set<String> read = read();
+                    synchronized(this){
+                        loading = false;
+                        if(!dirty || attempt == MAX_LOAD_ATTEMPTS){
+                            names = read;
+                            loadedTime = time;
+                            // Still changing: check the time on the next call.
+                            stale = dirty || !watching;
+                            dirty = false;
+                            version++;
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+
+        private synchronized boolean needsLoad(){
+            if(names == null){
+                return true;
+            }
+            if(!stale){
+                return false;
+            }
+            FileTime time = modifiedTime();
+            if(time.equals(loadedTime)){
+                stale = !watching;
+                return false;
+            }
+            return true;
+        }
+
+        private void watch(){
+            if(watchService == null || watching){
+                return;
+            }
+            try {
+                WatchKey watchKey = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                      StandardWatchEventKinds.ENTRY_DELETE);
+                synchronized(this){
+                    if(discarded){
+                        // Evicted or invalidated while loading: do not pin a watch.
+                        watchKey.cancel();
+                        return;
+                    }
+                    key = watchKey;
+                    watching = true;
+                    watched.put(watchKey, this);
+                }
+            }catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e){
+                // Not watchable, rely on the modification time.
+            }
+        }
+
+        private Set<String> read(){
+            Set<String> read = new HashSet<>();
+            try(DirectoryStream<Path> stream = Files.newDirectoryStream(directory)){
+                for(Path path : stream){
+                    read.add(path.getFileName().toString());
+                }
+            }catch (IOException e){
+                invalidate(directory);
+                throw new IllegalStateException("Failed to list " + directory + " due to " + e.getMessage(), e);
+            }
+            return read;
+        }
+
+        private FileTime modifiedTime(){
+            try {
+                return Files.getLastModifiedTime(directory);
+            }catch (IOException e){
+                return FileTime.fromMillis(0);
+            }
+        }
+
+        synchronized void apply(boolean created, String name){
+            if(loading){
+                dirty = true;
+            }else if(names != null && (created ? names.add(name) : names.remove(name))){
+                version++;
+            }
+        }
+
+        synchronized void markStale(){
+            if(loading){
+                dirty = true;
+            }
+            stale = true;
+        }
+
+        synchronized void markUnwatched(){
+            watching = false;
+            key = null;
+            stale = true;
+        }
+
+        synchronized void discard(){
+            if(key != null){
+                key.cancel();
+                watched.remove(key);
+            }
+            watching = false;
+            discarded = true;
+            key = null;
+            // Callers still holding the entry get its last names, later ones a new entry.
+            stale = true;
+        }
+
+        synchronized List<String> filtered(Object filter, Predicate<String> accept){
+            Filtered cached = filtered.get(filter);
+            if(cached == null || cached.version != version){
+                List<String> accepted = new ArrayList<>();
+                for(String name : names){
+                    if(accept.test(name)){
+                        accepted.add(name);
+                    }
+                }
+                Collections.sort(accepted);
+                cached = new Filtered(version, Collections.unmodifiableList(accepted));
+                filtered.put(filter, cached);
+            }
+            return cached.names;
+        }
+    }
+
+    private static final class Filtered {
+        final long version;
+        final List<String> names;
+
+        Filtered(long version, List<String> names){
+            this.version = version;
+            this.names = names;
+        }
+    }
+}
@@ -3,13 +3,27 @@ package net.conan.file;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.FilenameFilter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.function.BiPredicate;
 import java.util.regex.Pattern;
 
 /**
  * <p>Convenience class for creating a {@link FilenameFilter} or
  * {@link FileFilter} using a String or {@link Pattern}.</p>
  *
- * <p>All methods do full matching on the {@link File#getName() file name}</p>
+ * <p>All methods do full matching on the {@link File#getName() file name}.  The filters are
+ * {@link NameFilter}s, so simple expressions such as <code>.*\.log</code> are checked without
+ * a {@link java.util.regex.Matcher}, and they can be combined.</p>
+ *
+ * <p>The <code>BiPredicate&lt;Path,BasicFileAttributes&gt;</code> methods filter on attributes
+ * read once per entry by the traversal, as done by {@link FileUtil#walk(Path, BiPredicate,
+ * java.util.function.BiConsumer)} or {@link Files#find}.  Checking size or type through
+ * {@link File} costs an extra <code>stat</code> per attribute per file.  They combine with
+ * {@link BiPredicate#and(BiPredicate)}.</p>
  * @author Conan Dombroski ()
  */
 public class FileFilters {
@@ -19,7 +33,7 @@ public class FileFilters {
     }
 
     public static FilenameFilter usingRegex(final Pattern pattern){
-        return (dir, name) -> pattern.matcher(name).matches();
+        return NameFilter.regex(pattern);
     }
 
     public static FileFilter withRegex(String regex){
@@ -27,14 +41,77 @@ public class FileFilters {
     }
 
     public static FileFilter withRegex(final Pattern pattern){
-        return file -> pattern.matcher(file.getName()).matches();
+        return NameFilter.regex(pattern);
     }
 
     public static FilenameFilter literal(String s){
-        return (dir, name) -> name.equals(s);
+        return NameFilter.literal(s);
     }
 
     public static FileFilter literalFilter(String s){
-        return file -> file.getName().equals(s);
+        return NameFilter.literal(s);
+    }
+
+    /**
+     * @param minInclusive smallest size accepted, in bytes
+     * @param maxExclusive size above the largest size accepted, in bytes
+     * @return predicate on {@link BasicFileAttributes#size()}
+     */
+    public static BiPredicate<Path,BasicFileAttributes> sizeBetween(long minInclusive, long maxExclusive){
+        return (path, attributes) -> attributes.size() >= minInclusive && attributes.size() < maxExclusive;
+    }
+
+    /**
+     * @param instant oldest modification time accepted
+     * @return predicate on {@link BasicFileAttributes#lastModifiedTime()}
+     */
+    public static BiPredicate<Path,BasicFileAttributes> modifiedSince(Instant instant){
+        FileTime time = FileTime.from(instant);
+        return (path, attributes) -> attributes.lastModifiedTime().compareTo(time) >= 0;
+    }
+
+    /**
+     * @param instant modification time after the newest accepted
+     * @return predicate on {@link BasicFileAttributes#lastModifiedTime()}
+     */
+    public static BiPredicate<Path,BasicFileAttributes> modifiedBefore(Instant instant){
+        FileTime time = FileTime.from(instant);
+        return (path, attributes) -> attributes.lastModifiedTime().compareTo(time) < 0;
+    }
+
+    /**
+     * @return predicate accepting regular files
+     */
+    public static BiPredicate<Path,BasicFileAttributes> regularFile(){
+        return (path, attributes) -> attributes.isRegularFile();
+    }
+
+    /**
+     * @return predicate accepting directories
+     */
+    public static BiPredicate<Path,BasicFileAttributes> directory(){
+        return (path, attributes) -> attributes.isDirectory();
+    }
+
+    /**
+     * Only useful when the traversal does not follow links, otherwise the attributes are those
+     * of the link target.
+     *
+     * @return predicate accepting symbolic links
+     */
+    public static BiPredicate<Path,BasicFileAttributes> symbolicLink(){
+        return (path, attributes) -> attributes.isSymbolicLink();
+    }
+
+    /**
+     * @param filter filter on the file name
+     * @return predicate applying the filter to {@link Path#getFileName()}, without reading
+     * anything from the file system
+     */
+    public static BiPredicate<Path,BasicFileAttributes> named(NameFilter filter){
+        return (path, attributes) -> {
+            Path name = path.getFileName();
+            return filter.matches(name == null ? "" : name.toString());
+        };
     }
 }
@@ -0,0 +1,434 @@
+package net.conan.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>Reads the lines appended to a growing file, like <code>tail -f</code>.  The follower
+ * remembers how far it read and which file it read, as a {@link Checkpoint} that can be saved
+ * between runs, so each {@link #poll(Consumer)} only reads the bytes appended since.</p>
+ *
+ * <p>Rotation is detected by the file key, the inode on Unix: once the path names another
+ * file, the rest of the old one is read, if it is still open, and the new one is read from its
+ * start.  Truncation, as done by copy and truncate rotation, is detected by the file being
+ * shorter than the checkpoint, and also restarts from the start.  Where the file system has no
+ * file keys only truncation is detected.</p>
+ *
+ * <p>Lines end at <code>"\n"</code>, with a preceding <code>"\r"</code> removed.  A last line
+ * without a terminator is left for a later poll, as it may still be being written, unless the
+ * file was rotated.  {@link #follow(Consumer)} keeps polling until the follower is closed,
+ * woken by a {@link WatchService} on the file's directory when the file changes.</p>
+ *
+ * <pre>    Path state = Paths.get("access.log.checkpoint");
+ *    try(FileFollower follower = new FileFollower(log, FileFollower.Checkpoint.load(state))){
+ *        follower.poll(this::process);
+ *        follower.checkpoint().save(state);
+ *    }</pre>
+ *
+ * <p>Instances are thread safe.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class FileFollower implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final long DEFAULT_MAX_WAIT_MILLIS = 1000;
+
+    private final Path file;
+    private final Charset charset;
+    private final Object watchLock = new Object();
+    private FileChannel channel;
+    private Object channelKey;
+    private long offset;
+    private String fileKey;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private WatchService watchService;
+    private volatile boolean closed;
+
+    /**
+     * Follow a UTF-8 file from its start.
+     *
+     * @param file file to follow
+     */
+    public FileFollower(Path file){
+        this(file, Checkpoint.START);
+    }
+
+    /**
+     * Follow a UTF-8 file from a checkpoint.
+     *
+     * @param file file to follow
+     * @param checkpoint where a previous follower stopped
+     */
+    public FileFollower(Path file, Checkpoint checkpoint){
+        this(file, checkpoint, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param file file to follow
+     * @param checkpoint where a previous follower stopped
+     * @param charset charset of the file
+     * @throws IllegalArgumentException if the charset does not encode <code>"\n"</code> and
+     *         <code>"\r"</code> as single ASCII bytes, as UTF-16 does not
+     */
+    public FileFollower(Path file, Checkpoint checkpoint, Charset charset){
+        checkCharset(charset);
+        this.file = file;
+        this.charset = charset;
+        this.offset = checkpoint.offset;
+        this.fileKey = checkpoint.fileKey;
+    }
+
+    /**
+     * Read the complete lines appended since the last poll.
+     *
+     * @param consumer receives each new line
+     * @return number of lines read
+     * @throws IllegalStateException if the file cannot be read, or the follower is closed
+     */
+    public synchronized int poll(Consumer<String> consumer){
+        if(closed){
+            throw new IllegalStateException("Follower of " + file + " is closed");
+        }
+        try {
+            int lines = 0;
+            if(channel == null && !openFile()){
+                return 0;
+            }
+            lines += readAppended(consumer, false);
+            BasicFileAttributes current = attributes();
+            if(current == null || (channelKey != null && !channelKey.equals(current.fileKey()))){
+                // Rotated: what the old file still held was just read, its last line is complete.
+                lines += readAppended(consumer, true);
+                closeChannel();
+                offset = 0;
+                fileKey = null;
+                if(current != null && openFile()){
+                    lines += readAppended(consumer, false);
+                }
+            }else if(current.size() < offset){
+                offset = 0;
+                lines += readAppended(consumer, false);
+            }
+            return lines;
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to read " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Poll until the follower is closed, waiting at most a second between polls.
+     *
+     * @see #follow(Consumer, long, TimeUnit)
+     */
+    public void follow(Consumer<String> consumer){
+        follow(consumer, DEFAULT_MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Poll until the follower is closed by another thread.  Between polls the calling thread
+     * sleeps until the file's directory changes, or the wait is over for file systems whose
+     * watch service misses changes.
+     *
+     * @param consumer receives each new line
+     * @param maxWait longest time between polls
+     * @param unit unit of maxWait
+     * @throws IllegalStateException if the file cannot be read, or if interrupted
+     */
+    public void follow(Consumer<String> consumer, long maxWait, TimeUnit unit){
+        WatchService watcher = watch();
+        try {
+            while(!closed){
+                poll(consumer);
+                WatchKey key = watcher == null ? null : watcher.poll(maxWait, unit);
+                if(key == null && watcher == null){
+                    unit.sleep(maxWait);
+                }else if(key != null){
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        }catch (ClosedWatchServiceException e){
+            // Closed while waiting.
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while following " + file, e);
+        }catch (IllegalStateException e){
+            if(!closed){
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * @return where the follower stands; the position after the last line read, and the file
+     *         it was read from
+     */
+    public synchronized Checkpoint checkpoint(){
+        return new Checkpoint(offset, fileKey);
+    }
+
+    /**
+     * Stop following and close the file.  A thread in {@link #follow(Consumer)} returns.
+     */
+    @Override
+    public void close(){
+        closed = true;
+        synchronized(watchLock){
+            if(watchService != null){
+                try {
+                    watchService.close();
+                }catch (IOException e){
+                    // Closing anyway.
+                }
+            }
+        }
+        synchronized(this){
+            try {
+                closeChannel();
+            }catch (IOException e){
+                throw new IllegalStateException("Failed to close " + file + " due to " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private WatchService watch(){
+        Path directory = file.toAbsolutePath().getParent();
+        synchronized(watchLock){
+            if(watchService == null && !closed){
+                try {
+                    watchService = file.getFileSystem().newWatchService();
+                    directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                          StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                }catch (IOException | UnsupportedOperationException e){
+                    // Poll on the timer only.
+                    watchService = null;
+                }
+            }
+            return watchService;
+        }
+    }
+
+    // Opens the file at the path, restarting from its start if it is not the checkpointed one.
+    private boolean openFile() throws IOException {
+        FileChannel opened;
+        BasicFileAttributes attributes;
+        long size;
+        try {
+            opened = FileChannel.open(file, StandardOpenOption.READ);
+        }catch (NoSuchFileException e){
+            return false;
+        }
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            size = opened.size();
+        }catch (IOException | RuntimeException e){
+            // Not kept half open: the next poll opens it again.
+            opened.close();
+            if(e instanceof NoSuchFileException){
+                return false;
+            }
+            throw e;
+        }
+        channel = opened;
+        channelKey = attributes.fileKey();
+        String key = channelKey == null ? null : channelKey.toString();
+        if((fileKey != null && !fileKey.equals(key)) || size < offset){
+            offset = 0;
+        }
+        fileKey = key;
+        return true;
+    }
+
+    private BasicFileAttributes attributes() throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        }catch (NoSuchFileException e){
+            return null;
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if(channel != null){
+            channel.close();
+            channel = null;
+            channelKey = null;
+        }
+    }
+
+    // Reads from offset to the end of the open file, moving offset past each line handed out.
+    private int readAppended(Consumer<String> consumer, boolean lastLineComplete) throws IOException {
+        int lines = 0;
+        long position = offset;
+        buffer.clear();
+        int read;
+        while((read = channel.read(buffer, position)) > 0){
+            position += read;
+            byte[] bytes = buffer.array();
+            int start = 0;
+            int end = buffer.position();
+            for(int i = end - read; i < end; i++){
+                if(bytes[i] == '\n'){
+                    emit(consumer, bytes, start, i);
+                    offset += i + 1 - start;
+                    start = i + 1;
+                    lines++;
+                }
+            }
+            buffer.flip().position(start);
+            buffer.compact();
+            if(!buffer.hasRemaining()){
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+        }
+        if(lastLineComplete && buffer.position() > 0){
+            emit(consumer, buffer.array(), 0, buffer.position());
+            offset += buffer.position();
+            lines++;
+        }
+        return lines;
+    }
+
+    private static void checkCharset(Charset charset){
+        byte[] encoded = charset.canEncode() ? "\n\r".getBytes(charset) : new byte[0];
+        if(encoded.length != 2 || encoded[0] != '\n' || encoded[1] != '\r'){
+            throw new IllegalArgumentException(charset + " does not encode line terminators as single bytes");
+        }
+    }
+
+    private void emit(Consumer<String> consumer, byte[] bytes, int start, int end){
+        if(end > start && bytes[end - 1] == '\r'){
+            end--;
+        }
+        consumer.accept(new String(bytes, start, end - start, charset));
+    }
+
+    /**
+     * Position of a follower: the offset after the last line read, and the key of the file
+     * read, or null if unknown.  Saved as a small properties file.
+     */
+    public static final class Checkpoint {
+        /**
+         * The start of whatever file is found.
+         */
+        public static final Checkpoint START = new Checkpoint(0, null);
+
+        private final long offset;
+        private final String fileKey;
+
+        /**
+         * @param offset bytes already read
+         * @param fileKey {@link BasicFileAttributes#fileKey()} of the file read, as a string, or null
+         */
+        public Checkpoint(long offset, String fileKey){
+            if(offset < 0){
+                throw new IllegalArgumentException("Offset must not be negative, got " + offset);
+            }
+            this.offset = offset;
+            this.fileKey = fileKey;
+        }
+
+        /**
+         * @return bytes already read
+         */
+        public long offset(){
+            return offset;
+        }
+
+        /**
+         * @return key of the file read, or null if unknown
+         */
+        public String fileKey(){
+            return fileKey;
+        }
+
+        /**
+         * Write the checkpoint, replacing the previous one atomically.
+         *
+         * @param path file to write
+         * @throws IllegalStateException if it cannot be written
+         */
+        public void save(Path path){
+            Properties properties = new Properties();
+            properties.setProperty("offset", Long.toString(offset));
+            if(fileKey != null){
+                properties.setProperty("fileKey", fileKey);
+            }
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try {
+                try(Writer out = Files.newBufferedWriter(temporary, StandardCharsets.ISO_8859_1)){
+                    properties.store(out, null);
+                }
+                Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }catch (IOException e){
+                throw new IllegalStateException("Failed to save the checkpoint to " + path + " due to " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * @param path file written by {@link #save(Path)}
+         * @return the saved checkpoint, or {@link #START} if there is none
+         * @throws IllegalStateException if it cannot be read
+         */
+        public static Checkpoint load(Path path){
+            Properties properties = new Properties();
+            try(Reader in = Files.newBufferedReader(path, StandardCharsets.ISO_8859_1)){
+                properties.load(in);
+            }catch (NoSuchFileException e){
+                return START;
+            }catch (IOException e){
+                throw new IllegalStateException("Failed to load the checkpoint from " + path + " due to " + e.getMessage(), e);
+            }
+            try {
+                return new Checkpoint(Long.parseLong(properties.getProperty("offset", "0")), properties.getProperty("fileKey"));
+            }catch (IllegalArgumentException e){
+                throw new IllegalStateException("Invalid checkpoint in " + path + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this == o){
+                return true;
+            }
+            if(!(o instanceof Checkpoint)){
+                return false;
+            }
+            Checkpoint other = (Checkpoint) o;
+            return offset == other.offset && Objects.equals(fileKey, other.fileKey);
+        }
+
+        @Override
+        public int hashCode(){
+            return Long.hashCode(offset) * 31 + Objects.hashCode(fileKey);
+        }
+
+        @Override
+        public String toString(){
+            return "Checkpoint{offset=" + offset + ", fileKey=" + fileKey + "}";
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package net.conan.file;
 
+import net.conan.io.LineScanner;
 import net.conan.lambda.ExceptionWrapper;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -13,28 +25,52 @@ import java.util.stream.Stream;
  * @author Conan Dombroski ()
  */
 public class FileUtil {
+    /**
+     * Delete a file or a directory tree on the calling thread.  Symbolic links are deleted,
+     * not followed.  See {@link BulkDeleter} for large trees.
+     *
+     * @param path file or directory to delete
+     */
     public static void deleteRecursively(Path path){
-        if(Files.isDirectory(path)){
-            ExceptionWrapper.wrapSupplier(() -> Files.list(path)).get().forEach(FileUtil::deleteRecursively);
+        if(Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)){
+            try(Stream<Path> children = ExceptionWrapper.wrapSupplier(() -> Files.list(path)).get()){
+                children.forEach(FileUtil::deleteRecursively);
+            }
         }
         ExceptionWrapper.wrapConsumer(Files::delete).accept(path);
     }
 
-    public static long countAll(File f){
-        if(!f.isDirectory()){
-            return 0;
+    /**
+     * Delete a file or a directory tree with a {@link BulkDeleter} using its defaults.
+     *
+     * @param path file or directory to delete
+     * @throws IllegalStateException if any entry could not be deleted
+     */
+    public static void deleteParallel(Path path){
+        BulkDeleter.Deletion deletion = new BulkDeleter().delete(path);
+        if(!deletion.failures().isEmpty()){
+            Map.Entry<Path,Exception> first = deletion.failures().entrySet().iterator().next();
+            throw new IllegalStateException("Failed to delete " + deletion.failures().size() + " entries under " + path +
+                  ", ie: " + first.getKey() + " due to " + first.getValue().getMessage(), first.getValue());
         }
-        File[] files = f.listFiles();
+    }
 
-        if(files == null || files.length < 1){
+    /**
+     * Count every entry below a directory, following links to directories as
+     * {@link File#isDirectory()} does.  Unreadable directories count as empty.  Use
+     * {@link TreeStatistics} for more than the count.
+     *
+     * @param f directory
+     * @return number of files and directories below f, or 0 if f is not a directory
+     */
+    public static long countAll(File f){
+        if(!f.isDirectory()){
             return 0;
         }
-
-        long sum = files.length;
-        for(File file : files){
-            sum+=countAll(file);
-        }
-        return sum;
+        ParallelFileWalker walker = new ParallelFileWalker()
+              .withSymlinkPolicy(ParallelFileWalker.SymlinkPolicy.FOLLOW)
+              .withErrorHandler((path, e) -> {});
+        return TreeStatistics.of(f.toPath(), walker).entryCount();
     }
 
     public static void forAllLines(File target, Consumer<String> consumeLine){
@@ -44,4 +80,158 @@ public class FileUtil {
             throw new IllegalStateException("Failed to create the stream or read from " + target + " due to " + e.getMessage(),e);
         }
     }
+
+    /**
+     * Read only the lines appended to a UTF-8 file since the previous call with the same
+     * checkpoint file, which is created or updated afterwards.  Rotation and truncation of the
+     * target restart from its start; see {@link FileFollower}.
+     *
+     * @param target growing file to read
+     * @param checkpoint file remembering how far the target was read
+     * @param consumeLine receives each new line
+     * @return number of new lines
+     */
+    public static int forNewLines(File target, Path checkpoint, Consumer<String> consumeLine){
+        try(FileFollower follower = new FileFollower(target.toPath(), FileFollower.Checkpoint.load(checkpoint))){
+            int lines = follower.poll(consumeLine);
+            follower.checkpoint().save(checkpoint);
+            return lines;
+        }
+    }
+
+    /**
+     * Scan the lines of a UTF-8 file without creating a String per line.  See
+     * {@link LineScanner} for what can be done with the views.
+     *
+     * @param target file to read
+     * @param consumeLine receives a reusable view of each line, valid only during the call
+     * @return number of lines
+     */
+    public static long scanLines(File target, Consumer<LineScanner.Line> consumeLine){
+        return new LineScanner().scan(target.toPath(), consumeLine);
+    }
+
+    /**
+     * Read the lines of a UTF-8 file with a {@link ParallelLineReader} using one thread per
+     * processor.
+     *
+     * @param target file to read
+     * @param consumeLine receives each line
+     * @param ordered true to receive the lines in file order on the calling thread, false to
+     *                receive them concurrently from the reading threads, in any order
+     */
+    public static void forAllLinesParallel(File target, Consumer<String> consumeLine, boolean ordered){
+        new ParallelLineReader().withOrdered(ordered).forEachLine(target.toPath(), consumeLine);
+    }
+
+    /**
+     * Walk the tree under start, including start itself, without following symbolic links.
+     *
+     * @see #walk(Path, int, boolean, BiPredicate, BiConsumer)
+     */
+    public static void walk(Path start, BiPredicate<Path,BasicFileAttributes> filter,
+                            BiConsumer<Path,BasicFileAttributes> consumer){
+        walk(start, Integer.MAX_VALUE, false, filter, consumer);
+    }
+
+    /**
+     * Walk the tree under start, skipping the entries that cannot be read.
+     *
+     * @see #walk(Path, int, boolean, BiPredicate, BiConsumer, BiConsumer)
+     */
+    public static void walk(Path start, int maxDepth, boolean followLinks,
+                            BiPredicate<Path,BasicFileAttributes> filter,
+                            BiConsumer<Path,BasicFileAttributes> consumer){
+        walk(start, maxDepth, followLinks, filter, consumer, (path, e) -> {});
+    }
+
+    /**
+     * <p>Walk the tree under start with {@link Files#walkFileTree}, handing every entry accepted
+     * by the filter to the consumer together with its attributes.  The attributes are read once
+     * per entry by the traversal, so filters such as {@link FileFilters#sizeBetween(long, long)}
+     * cost no additional system calls.</p>
+     *
+     * <p>Directories are offered to the filter before their content.  A rejected directory is
+     * still descended into.</p>
+     *
+     * <p>An entry that cannot be visited, such as an unreadable directory, a file removed during
+     * the walk or a link cycle while following links, is handed to the error handler and the
+     * walk goes on.  Only a start that cannot be visited fails the walk.</p>
+     *
+     * @param start root of the walk
+     * @param maxDepth maximum number of levels below start to visit
+     * @param followLinks true to follow symbolic links
+     * @param filter chooses the entries to consume
+     * @param consumer receives each accepted entry
+     * @param errorHandler receives the path and the error of each entry that could not be visited
+     * @throws IllegalStateException if start cannot be visited
+     */
+    public static void walk(Path start, int maxDepth, boolean followLinks,
+                            BiPredicate<Path,BasicFileAttributes> filter,
+                            BiConsumer<Path,BasicFileAttributes> consumer,
+                            BiConsumer<Path,IOException> errorHandler){
+        Set<FileVisitOption> options = followLinks
+              ? EnumSet.of(FileVisitOption.FOLLOW_LINKS)
+              : Collections.emptySet();
+        try {
+            Files.walkFileTree(start, options, maxDepth, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes){
+                    return visitFile(dir, attributes);
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes){
+                    if(filter.test(file, attributes)){
+                        consumer.accept(file, attributes);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+                    if(file.equals(start)){
+                        throw e;
+                    }
+                    errorHandler.accept(file, e);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e){
+                    if(e != null){
+                        // The listing broke off part way, what was read has been visited.
+                        errorHandler.accept(dir, e);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to walk " + start + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Walk the tree under start with a {@link ParallelFileWalker} using its defaults.
+     *
+     * @param start root of the walk
+     * @param filter chooses the entries to consume
+     * @param consumer receives each accepted entry, concurrently from several threads
+     */
+    public static void walkParallel(Path start, BiPredicate<Path,BasicFileAttributes> filter,
+                                    BiConsumer<Path,BasicFileAttributes> consumer){
+        new ParallelFileWalker().withFilter(filter).walk(start, consumer);
+    }
+
+    /**
+     * Stream the entries under start accepted by the filter, found by a
+     * {@link ParallelFileWalker} using its defaults.  Close the stream when done.
+     *
+     * @param start root of the walk
+     * @param filter chooses the entries to stream
+     * @return the accepted paths, in no particular order
+     */
+    public static Stream<Path> findParallel(Path start, BiPredicate<Path,BasicFileAttributes> filter){
+        return new ParallelFileWalker().withFilter(filter).stream(start);
+    }
 }
@@ -0,0 +1,192 @@
+package net.conan.file;
+
+import net.conan.text.MultiPatternMatcher;
+import net.conan.text.RegexLiterals;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>Accepts file names fully matching any of many regular expressions, and reports which of
+ * them matched.  Unlike chaining one {@link BasicFileFilter} per expression, a name is not
+ * tried against each expression in turn:</p>
+ * <ul>
+ *     <li>Extension patterns such as <code>.*\.log</code> are found with one hash lookup of the
+ *     name's extension.</li>
+ *     <li>The other expressions go through a {@link MultiPatternMatcher}: literal names are a
+ *     hash lookup, most expressions share one automaton, and the rest are only tried when
+ *     their required literal occurs in the name.</li>
+ * </ul>
+ * <p>So the cost of {@link #accept(File)} stays roughly flat as expressions are added.</p>
+ *
+ * <p>Only the {@link File#getName() file name} is matched.  Instances are thread safe.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class MultiPatternFileFilter implements FileFilter, FilenameFilter {
+
+    private final List<String> patterns;
+    private final Map<String,int[]> extensions = new HashMap<>();
+    private final MultiPatternMatcher others;
+    private final int[] otherIndexes;
+
+    /**
+     * @param regularExpressions expressions in {@link java.util.regex.Pattern} syntax
+     * @throws java.util.regex.PatternSyntaxException if any expression is invalid
+     */
+    public MultiPatternFileFilter(String... regularExpressions){
+        this(Arrays.asList(regularExpressions));
+    }
+
+    /**
+     * @param regularExpressions expressions in {@link java.util.regex.Pattern} syntax
+     * @throws java.util.regex.PatternSyntaxException if any expression is invalid
+     */
+    public MultiPatternFileFilter(List<String> regularExpressions){
+        patterns = Collections.unmodifiableList(new ArrayList<>(regularExpressions));
+        List<String> otherPatterns = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        for(int i = 0; i < patterns.size(); i++){
+            String extension = extensionOf(patterns.get(i));
+            if(extension != null){
+                extensions.merge(extension, new int[]{i}, MultiPatternFileFilter::concat);
+            }else{
+                otherPatterns.add(patterns.get(i));
+                indexes.add(i);
+            }
+        }
+        others = new MultiPatternMatcher(otherPatterns);
+        otherIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return number of expressions
+     */
+    public int size(){
+        return patterns.size();
+    }
+
+    /**
+     * @param index position of the expression
+     * @return the expression as given to the constructor
+     */
+    public String pattern(int index){
+        return patterns.get(index);
+    }
+
+    @Override
+    public boolean accept(File pathname){
+        return matches(pathname.getName());
+    }
+
+    @Override
+    public boolean accept(File dir, String name){
+        return matches(name);
+    }
+
+    /**
+     * Stops at the first matching expression, whichever it is.
+     *
+     * @param name simple file name
+     * @return true if any expression fully matches the name
+     */
+    public boolean matches(String name){
+        return matchesExtension(name) != null || (otherIndexes.length > 0 && others.matchesAny(name));
+    }
+
+    /**
+     * Report every expression that fully matches the name.  Each index is reported once, in
+     * no particular order.
+     *
+     * @param name simple file name
+     * @param onMatch receives the index of each matching expression
+     */
+    public void forEachMatch(String name, IntConsumer onMatch){
+        int[] matched = matchesExtension(name);
+        if(matched != null){
+            for(int index : matched){
+                onMatch.accept(index);
+            }
+        }
+        if(otherIndexes.length > 0){
+            others.forEachMatch(name, index -> onMatch.accept(otherIndexes[index]));
+        }
+    }
+
+    /**
+     * @param name simple file name
+     * @return lowest index of a matching expression, or -1 if none match
+     */
+    public int firstMatch(String name){
+        int[] first = {-1};
+        forEachMatch(name, index -> {
+            if(first[0] < 0 || index < first[0]){
+                first[0] = index;
+            }
+        });
+        return first[0];
+    }
+
+    /**
+     * @param file file to check
+     * @return the first expression, in constructor order, matching the file name
+     */
+    public Optional<String> matchingPattern(File file){
+        int index = firstMatch(file.getName());
+        return index < 0 ? Optional.empty() : Optional.of(patterns.get(index));
+    }
+
+    /**
+     * @param file file to check
+     * @return every expression matching the file name, in constructor order
+     */
+    public List<String> matchingPatterns(File file){
+        List<Integer> indexes = new ArrayList<>();
+        forEachMatch(file.getName(), indexes::add);
+        Collections.sort(indexes);
+        List<String> matched = new ArrayList<>(indexes.size());
+        for(int index : indexes){
+            matched.add(patterns.get(index));
+        }
+        return matched;
+    }
+
+    // Indexes of the extension patterns matching the name, or null.
+    private int[] matchesExtension(String name){
+        if(extensions.isEmpty()){
+            return null;
+        }
+        int dot = name.lastIndexOf('.');
+        int[] matched = dot < 0 ? null : extensions.get(name.substring(dot));
+        // The .* before the extension does not match line terminators.
+        return matched != null && !NameFilter.hasLineTerminator(name) ? matched : null;
+    }
+
+    // ".ext" for expressions of the form .*\.ext (greedy or reluctant), otherwise null.
+    private static String extensionOf(String regex){
+        String rest = regex.startsWith(".*?") ? regex.substring(3) : regex.startsWith(".*") ? regex.substring(2) : null;
+        if(rest == null || rest.startsWith("^") || !RegexLiterals.isLiteral(rest)){
+            return null;
+        }
+        String extension = RegexLiterals.literalPrefix(rest);
+        return extension.startsWith(".") && extension.indexOf('.', 1) < 0 && !NameFilter.hasLineTerminator(extension)
+              ? extension
+              : null;
+    }
+
+    private static int[] concat(int[] a, int[] b){
+        int[] joined = new int[a.length + b.length];
+        System.arraycopy(a, 0, joined, 0, a.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+}
@@ -0,0 +1,631 @@
+package net.conan.file;
+
+import net.conan.text.Glob;
+import net.conan.text.RegexLiterals;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A composable filter on the {@link File#getName() file name}.  Filters are built from
+ * primitives and combined with {@link #and(NameFilter)}, {@link #or(NameFilter)} and
+ * {@link #negate()}, and each combination is compiled into the cheapest equivalent
+ * check:</p>
+ * <ul>
+ *     <li>Nested combinations of the same kind are flattened, and their checks reordered so
+ *     the cheap ones run first and short circuit the rest.</li>
+ *     <li>Alternatives between literal names become a single hash lookup.</li>
+ *     <li>Regular expressions and globs made of a literal and up to two wildcards, such as
+ *     <code>.*\.log</code>, <code>report-.*</code> or <code>*.tmp</code>, are checked with
+ *     <code>startsWith</code>, <code>endsWith</code> and <code>indexOf</code> instead of a
+ *     {@link Matcher}.  Other expressions first reject names missing their literal prefix or
+ *     a {@link RegexLiterals#requiredLiteral(String) required literal}.</li>
+ * </ul>
+ *
+ * <p>Instances are immutable and thread safe.</p>
+ *
+ * @author Conan Dombroski
+ */
+public abstract class NameFilter implements FileFilter, FilenameFilter {
+
+    private static final NameFilter ALL = new Constant(true);
+    private static final NameFilter NONE = new Constant(false);
+
+    // Relative cost of the checks, used to order the children of and/or.
+    private static final int CHEAP = 1;
+    private static final int SCAN = 4;
+    private static final int MATCHER = 32;
+
+    NameFilter(){
+    }
+
+    /**
+     * @param name simple file name
+     * @return true if the name passes the filter
+     */
+    public abstract boolean matches(String name);
+
+    abstract int cost();
+
+    @Override
+    public boolean accept(File pathname){
+        return matches(pathname.getName());
+    }
+
+    @Override
+    public boolean accept(File dir, String name){
+        return matches(name);
+    }
+
+    /**
+     * @param other filter to combine with
+     * @return a filter accepting names accepted by both
+     */
+    public NameFilter and(NameFilter other){
+        return allOf(this, other);
+    }
+
+    /**
+     * @param other filter to combine with
+     * @return a filter accepting names accepted by either
+     */
+    public NameFilter or(NameFilter other){
+        return anyOf(this, other);
+    }
+
+    /**
+     * @return a filter accepting exactly the names this one rejects
+     */
+    public NameFilter negate(){
+        return new Not(this);
+    }
+
+    /**
+     * @return a filter accepting every name
+     */
+    public static NameFilter all(){
+        return ALL;
+    }
+
+    /**
+     * @return a filter rejecting every name
+     */
+    public static NameFilter none(){
+        return NONE;
+    }
+
+    /**
+     * @param name the only name to accept
+     * @return filter using {@link String#equals(Object)}
+     */
+    public static NameFilter literal(String name){
+        return new Literal(name);
+    }
+
+    /**
+     * @param prefix text names must start with
+     * @return filter using {@link String#startsWith(String)}
+     */
+    public static NameFilter prefix(String prefix){
+        return prefix.isEmpty() ? ALL : new Affix(prefix, "", "", 0, 0, false);
+    }
+
+    /**
+     * @param suffix text names must end with
+     * @return filter using {@link String#endsWith(String)}
+     */
+    public static NameFilter suffix(String suffix){
+        return suffix.isEmpty() ? ALL : new Affix("", "", suffix, 0, 0, false);
+    }
+
+    /**
+     * @param extension extension with or without the leading dot, ie: <code>log</code>
+     * @return filter accepting names ending with the extension
+     */
+    public static NameFilter extension(String extension){
+        return suffix(extension.startsWith(".") ? extension : "." + extension);
+    }
+
+    /**
+     * @param text text names must contain
+     * @return filter using {@link String#contains(CharSequence)}
+     */
+    public static NameFilter contains(String text){
+        return text.isEmpty() ? ALL : new Affix("", text, "", 0, 0, false);
+    }
+
+    /**
+     * @param glob wildcard pattern, see {@link Glob}
+     * @return filter fully matching names against the glob
+     */
+    public static NameFilter glob(String glob){
+        String[] pieces = split(glob);
+        if(pieces != null){
+            for(int i = 0; i < pieces.length; i++){
+                if(!Glob.isLiteral(pieces[i])){
+                    return new GlobFilter(Glob.compile(glob));
+                }
+                pieces[i] = Glob.compile(pieces[i]).literalPrefix();
+            }
+            NameFilter simple = fromPieces(pieces, new boolean[pieces.length], false);
+            if(simple != null){
+                return simple;
+            }
+        }
+        return new GlobFilter(Glob.compile(glob));
+    }
+
+    /**
+     * @param regex regular expression, fully matched against names
+     * @return the cheapest filter equivalent to the expression
+     */
+    public static NameFilter regex(String regex){
+        return regex(Pattern.compile(regex));
+    }
+
+    /**
+     * @param pattern pattern, fully matched against names
+     * @return the cheapest filter equivalent to the pattern
+     */
+    public static NameFilter regex(Pattern pattern){
+        if(pattern.flags() == 0){
+            NameFilter simple = simpleRegex(pattern.pattern());
+            if(simple != null){
+                return simple;
+            }
+        }
+        return new RegexFilter(pattern);
+    }
+
+    /**
+     * @param filters filters to combine
+     * @return a filter accepting names accepted by all of them, or every name if there are none
+     */
+    public static NameFilter allOf(NameFilter... filters){
+        List<NameFilter> flat = new ArrayList<>();
+        for(NameFilter filter : filters){
+            if(filter == NONE){
+                return NONE;
+            }
+            if(filter instanceof And){
+                flat.addAll(Arrays.asList(((And) filter).filters));
+            }else if(filter != ALL){
+                flat.add(filter);
+            }
+        }
+        if(flat.size() <= 1){
+            return flat.isEmpty() ? ALL : flat.get(0);
+        }
+        flat.sort(Comparator.comparingInt(NameFilter::cost));
+        return new And(flat.toArray(new NameFilter[0]));
+    }
+
+    /**
+     * @param filters filters to combine
+     * @return a filter accepting names accepted by any of them, or no name if there are none
+     */
+    public static NameFilter anyOf(NameFilter... filters){
+        List<NameFilter> flat = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for(NameFilter filter : filters){
+            if(filter == ALL){
+                return ALL;
+            }
+            if(filter instanceof Or){
+                for(NameFilter child : ((Or) filter).filters){
+                    addAlternative(child, flat, names);
+                }
+            }else if(filter != NONE){
+                addAlternative(filter, flat, names);
+            }
+        }
+        if(names.size() == 1){
+            flat.add(new Literal(names.iterator().next()));
+        }else if(names.size() > 1){
+            flat.add(new LiteralSet(names));
+        }
+        if(flat.size() <= 1){
+            return flat.isEmpty() ? NONE : flat.get(0);
+        }
+        flat.sort(Comparator.comparingInt(NameFilter::cost));
+        return new Or(flat.toArray(new NameFilter[0]));
+    }
+
+    /**
+     * @param filter filter to invert
+     * @return a filter accepting exactly the names the given filter rejects
+     */
+    public static NameFilter not(NameFilter filter){
+        return filter.negate();
+    }
+
+    private static void addAlternative(NameFilter filter, List<NameFilter> flat, Set<String> names){
+        if(filter instanceof Literal){
+            names.add(((Literal) filter).name);
+        }else if(filter instanceof LiteralSet){
+            names.addAll(((LiteralSet) filter).names);
+        }else{
+            flat.add(filter);
+        }
+    }
+
+    /*
+    Recognizes expressions made of literals separated by at most two .* or .+ wildcards,
+    reluctant or greedy, with optional ^ and $ anchors.  Returns null for anything else.
+     */
+    private static NameFilter simpleRegex(String regex){
+        String body = regex.startsWith("^") ? regex.substring(1) : regex;
+        if(body.endsWith("$") && !body.endsWith("\\$")){
+            body = body.substring(0, body.length() - 1);
+        }
+        List<String> pieces = new ArrayList<>();
+        List<Boolean> plus = new ArrayList<>();
+        int start = 0;
+        for(int i = 0; i < body.length(); i++){
+            char c = body.charAt(i);
+            if(c == '\\'){
+                if(i + 1 < body.length() && body.charAt(i + 1) == 'Q'){
+                    int end = body.indexOf("\\E", i + 2);
+                    i = end < 0 ? body.length() : end + 1;
+                }else{
+                    i++;
+                }
+            }else if(c == '.' && i + 1 < body.length() && (body.charAt(i + 1) == '*' || body.charAt(i + 1) == '+')){
+                int next = i + 2;
+                if(next < body.length() && body.charAt(next) == '+'){
+                    return null;
+                }
+                pieces.add(body.substring(start, i));
+                plus.add(body.charAt(i + 1) == '+');
+                start = next < body.length() && body.charAt(next) == '?' ? next + 1 : next;
+                i = start - 1;
+            }
+        }
+        pieces.add(body.substring(start));
+
+        String[] literals = new String[pieces.size()];
+        for(int i = 0; i < literals.length; i++){
+            String piece = pieces.get(i);
+            if(piece.startsWith("^") || piece.endsWith("$") || !RegexLiterals.isLiteral(piece)){
+                return null;
+            }
+            literals[i] = RegexLiterals.literalPrefix(piece);
+            // Keeps line terminators out of the literals, so a name with one never matches a wildcard.
+            if(literals.length > 1 && hasLineTerminator(literals[i])){
+                return null;
+            }
+        }
+        boolean[] atLeastOne = new boolean[literals.length];
+        for(int i = 0; i < plus.size(); i++){
+            atLeastOne[i] = plus.get(i);
+        }
+        return fromPieces(literals, atLeastOne, true);
+    }
+
+    // Splits a glob at unescaped stars, or returns null if there are more than two.
+    private static String[] split(String glob){
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        for(int i = 0; i < glob.length(); i++){
+            char c = glob.charAt(i);
+            if(c == '\\'){
+                i++;
+            }else if(c == '*'){
+                pieces.add(glob.substring(start, i));
+                start = i + 1;
+            }
+        }
+        pieces.add(glob.substring(start));
+        return pieces.size() > 3 ? null : pieces.toArray(new String[0]);
+    }
+
+    /*
+    Literal pieces separated by wildcards; atLeastOne[i] is set when the wildcard after piece i
+    must match a character.  Wildcards from a regular expression do not match line terminators.
+     */
+    private static NameFilter fromPieces(String[] pieces, boolean[] atLeastOne, boolean singleLine){
+        switch(pieces.length){
+            case 1:
+                return new Literal(pieces[0]);
+            case 2:
+                return new Affix(pieces[0], "", pieces[1], atLeastOne[0] ? 1 : 0, 0, singleLine);
+            case 3:
+                return new Affix(pieces[0], pieces[1], pieces[2], atLeastOne[0] ? 1 : 0, atLeastOne[1] ? 1 : 0, singleLine);
+            default:
+                return null;
+        }
+    }
+
+    static boolean hasLineTerminator(String name){
+        for(int i = 0; i < name.length(); i++){
+            char c = name.charAt(i);
+            if(c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029'){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Constant extends NameFilter {
+        private final boolean result;
+
+        Constant(boolean result){
+            this.result = result;
+        }
+
+        @Override
+        public boolean matches(String name){
+            return result;
+        }
+
+        @Override
+        int cost(){
+            return 0;
+        }
+
+        @Override
+        public NameFilter negate(){
+            return result ? NONE : ALL;
+        }
+
+        @Override
+        public String toString(){
+            return result ? "all" : "none";
+        }
+    }
+
+    private static final class Literal extends NameFilter {
+        private final String name;
+
+        Literal(String name){
+            this.name = name;
+        }
+
+        @Override
+        public boolean matches(String name){
+            return this.name.equals(name);
+        }
+
+        @Override
+        int cost(){
+            return CHEAP;
+        }
+
+        @Override
+        public String toString(){
+            return "literal(" + name + ")";
+        }
+    }
+
+    private static final class LiteralSet extends NameFilter {
+        private final Set<String> names;
+
+        LiteralSet(Set<String> names){
+            this.names = new HashSet<>(names);
+        }
+
+        @Override
+        public boolean matches(String name){
+            return names.contains(name);
+        }
+
+        @Override
+        int cost(){
+            return CHEAP;
+        }
+
+        @Override
+        public String toString(){
+            return "literal" + names;
+        }
+    }
+
+    /*
+    prefix, then a gap of at least minGap1 characters, then infix (if not empty), then a gap of
+    at least minGap2, then suffix.  The infix is placed at its first occurrence, which leaves the
+    most room for the rest.
+     */
+    private static final class Affix extends NameFilter {
+        private final String prefix;
+        private final String infix;
+        private final String suffix;
+        private final int minGap1;
+        private final int minGap2;
+        private final int minLength;
+        private final boolean singleLine;
+
+        Affix(String prefix, String infix, String suffix, int minGap1, int minGap2, boolean singleLine){
+            this.prefix = prefix;
+            this.infix = infix;
+            this.suffix = suffix;
+            this.minGap1 = minGap1;
+            this.minGap2 = minGap2;
+            this.singleLine = singleLine;
+            minLength = prefix.length() + minGap1 + infix.length() + minGap2 + suffix.length();
+        }
+
+        @Override
+        public boolean matches(String name){
+            if(name.length() < minLength || !name.startsWith(prefix) || !name.endsWith(suffix)){
+                return false;
+            }
+            if(!infix.isEmpty()){
+                int found = name.indexOf(infix, prefix.length() + minGap1);
+                if(found < 0 || found + infix.length() + minGap2 + suffix.length() > name.length()){
+                    return false;
+                }
+            }
+            return !singleLine || !hasLineTerminator(name);
+        }
+
+        @Override
+        int cost(){
+            return infix.isEmpty() && !singleLine ? CHEAP : SCAN;
+        }
+
+        @Override
+        public String toString(){
+            StringBuilder description = new StringBuilder();
+            if(!prefix.isEmpty()){
+                description.append("prefix(").append(prefix).append(')');
+            }
+            if(!infix.isEmpty()){
+                description.append(description.length() > 0 ? "&" : "").append("contains(").append(infix).append(')');
+            }
+            if(!suffix.isEmpty()){
+                description.append(description.length() > 0 ? "&" : "").append("suffix(").append(suffix).append(')');
+            }
+            return description.length() > 0 ? description.toString() : "any";
+        }
+    }
+
+    private static final class GlobFilter extends NameFilter {
+        private final Glob glob;
+
+        GlobFilter(Glob glob){
+            this.glob = glob;
+        }
+
+        @Override
+        public boolean matches(String name){
+            return glob.matches(name);
+        }
+
+        @Override
+        int cost(){
+            return SCAN * 2;
+        }
+
+        @Override
+        public String toString(){
+            return "glob(" + glob + ")";
+        }
+    }
+
+    private static final class RegexFilter extends NameFilter {
+        private final Pattern pattern;
+        private final String prefix;
+        private final String required;
+        private final ThreadLocal<Matcher> matcher;
+
+        RegexFilter(Pattern pattern){
+            this.pattern = pattern;
+            boolean plain = pattern.flags() == 0;
+            prefix = plain ? RegexLiterals.literalPrefix(pattern.pattern()) : "";
+            required = plain ? RegexLiterals.requiredLiteral(pattern.pattern()) : "";
+            matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+        }
+
+        @Override
+        public boolean matches(String name){
+            return name.startsWith(prefix) && name.contains(required) && matcher.get().reset(name).matches();
+        }
+
+        @Override
+        int cost(){
+            return MATCHER;
+        }
+
+        @Override
+        public String toString(){
+            return "regex(" + pattern + ")";
+        }
+    }
+
+    private static final class Not extends NameFilter {
+        private final NameFilter filter;
+
+        Not(NameFilter filter){
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean matches(String name){
+            return !filter.matches(name);
+        }
+
+        @Override
+        int cost(){
+            return filter.cost();
+        }
+
+        @Override
+        public NameFilter negate(){
+            return filter;
+        }
+
+        @Override
+        public String toString(){
+            return "not(" + filter + ")";
+        }
+    }
+
+    private static final class And extends NameFilter {
+        private final NameFilter[] filters;
+        private final int cost;
+
+        And(NameFilter[] filters){
+            this.filters = filters;
+            cost = Arrays.stream(filters).mapToInt(NameFilter::cost).sum();
+        }
+
+        @Override
+        public boolean matches(String name){
+            for(NameFilter filter : filters){
+                if(!filter.matches(name)){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int cost(){
+            return cost;
+        }
+
+        @Override
+        public String toString(){
+            return "and" + Arrays.toString(filters);
+        }
+    }
+
+    private static final class Or extends NameFilter {
+        private final NameFilter[] filters;
+        private final int cost;
+
+        Or(NameFilter[] filters){
+            this.filters = filters;
+            cost = Arrays.stream(filters).mapToInt(NameFilter::cost).sum();
+        }
+
+        @Override
+        public boolean matches(String name){
+            for(NameFilter filter : filters){
+                if(filter.matches(name)){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        int cost(){
+            return cost;
+        }
+
+        @Override
+        public String toString(){
+            return "or" + Arrays.toString(filters);
+        }
+    }
+}
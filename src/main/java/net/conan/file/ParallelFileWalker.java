@@ -0,0 +1,489 @@
+package net.conan.file;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p>Walks a directory tree with several threads.  Every directory is listed by its own
+ * fork/join task, so idle threads steal whole subtrees from busy ones.  Each entry is read
+ * once with a {@link DirectoryStream} and one attribute read, and the attributes are handed to
+ * the filter, so attribute predicates from {@link FileFilters} cost no extra system calls.</p>
+ *
+ * <p>Matching entries are either passed to a consumer, called concurrently from the walking
+ * threads, or {@link #stream(Path) streamed} through a bounded queue that blocks the walk
+ * while the reader falls behind.  Memory stays bounded either way: directories are read
+ * lazily, and at most {@value #QUEUED_DIRECTORIES_PER_THREAD} directories per thread wait to
+ * be listed.  Beyond that, the thread that finds a subdirectory lists it at once, depth first,
+ * so the open listings are bounded by the depth of the tree.</p>
+ *
+ * <p>The walker is immutable; each <code>with</code> method returns a modified copy:</p>
+ * <pre>    new ParallelFileWalker()
+ *          .withParallelism(32)
+ *          .withMaxDepth(10)
+ *          .withFilter(FileFilters.regularFile().and(FileFilters.sizeBetween(0, 1024)))
+ *          .walk(root, (path, attributes) -&gt; ...);</pre>
+ *
+ * <p>Like {@link Files#walk(Path, java.nio.file.FileVisitOption...)}, the start itself is the
+ * first entry, at depth 0.  A start that is a symbolic link is always followed.  Entries
+ * that disappear during the walk are skipped.  Any other {@link IOException} goes to the
+ * {@link #withErrorHandler(BiConsumer) error handler}, which by default fails the walk.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class ParallelFileWalker {
+
+    /**
+     * What to do with symbolic links met during the walk.
+     */
+    public enum SymlinkPolicy {
+        /**
+         * Ignore links entirely.
+         */
+        SKIP,
+        /**
+         * Offer the link itself to the filter, with its own attributes, but do not descend
+         * into it.
+         */
+        REPORT,
+        /**
+         * Use the attributes of the target and descend into linked directories, unless that
+         * would loop back to a directory being walked.  Loops are detected through
+         * {@link BasicFileAttributes#fileKey()}, where the file system provides one.  Dangling
+         * links are reported with their own attributes.
+         */
+        FOLLOW
+    }
+
+    /**
+     * Number of entries the stream buffers before the walk waits for the reader.
+     */
+    public static final int STREAM_BUFFER_SIZE = 4096;
+
+    /**
+     * Number of directories per thread that may wait to be listed before subdirectories are
+     * listed by the thread that found them.
+     */
+    public static final int QUEUED_DIRECTORIES_PER_THREAD = 64;
+
+    private static final Object END = new Object();
+    private static final long OFFER_WAIT_MILLIS = 50;
+
+    private final int parallelism;
+    private final int maxDepth;
+    private final SymlinkPolicy symlinkPolicy;
+    private final BiPredicate<Path,BasicFileAttributes> filter;
+    private final BiConsumer<Path,IOException> errorHandler;
+
+    /**
+     * A walker using one thread per processor, with no depth limit, not following links and
+     * accepting every entry.
+     */
+    public ParallelFileWalker(){
+        this(Runtime.getRuntime().availableProcessors(), Integer.MAX_VALUE, SymlinkPolicy.REPORT,
+              (path, attributes) -> true, null);
+    }
+
+    private ParallelFileWalker(int parallelism, int maxDepth, SymlinkPolicy symlinkPolicy,
+                               BiPredicate<Path,BasicFileAttributes> filter,
+                               BiConsumer<Path,IOException> errorHandler){
+        this.parallelism = parallelism;
+        this.maxDepth = maxDepth;
+        this.symlinkPolicy = symlinkPolicy;
+        this.filter = filter;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * @param parallelism number of walking threads.  Walks of network file systems are bound
+     *                    by latency, and profit from more threads than processors.
+     * @return a copy using the given number of threads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public ParallelFileWalker withParallelism(int parallelism){
+        if(parallelism < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        return new ParallelFileWalker(parallelism, maxDepth, symlinkPolicy, filter, errorHandler);
+    }
+
+    /**
+     * @param maxDepth maximum number of levels below the start to visit; 0 only visits the start
+     * @return a copy limited to the given depth
+     * @throws IllegalArgumentException if maxDepth is negative
+     */
+    public ParallelFileWalker withMaxDepth(int maxDepth){
+        if(maxDepth < 0){
+            throw new IllegalArgumentException("Depth must not be negative, got " + maxDepth);
+        }
+        return new ParallelFileWalker(parallelism, maxDepth, symlinkPolicy, filter, errorHandler);
+    }
+
+    /**
+     * @param symlinkPolicy how to treat symbolic links
+     * @return a copy using the given policy
+     */
+    public ParallelFileWalker withSymlinkPolicy(SymlinkPolicy symlinkPolicy){
+        return new ParallelFileWalker(parallelism, maxDepth, symlinkPolicy, filter, errorHandler);
+    }
+
+    /**
+     * @param filter chooses the entries to report.  It is called concurrently and does not
+     *               stop the walk from descending into rejected directories.
+     * @return a copy reporting only entries accepted by the filter
+     */
+    public ParallelFileWalker withFilter(BiPredicate<Path,BasicFileAttributes> filter){
+        return new ParallelFileWalker(parallelism, maxDepth, symlinkPolicy, filter, errorHandler);
+    }
+
+    /**
+     * @param errorHandler receives the path and the error for entries or directories that
+     *                     cannot be read, after which the walk goes on.  Called concurrently.
+     * @return a copy that tolerates read errors
+     */
+    public ParallelFileWalker withErrorHandler(BiConsumer<Path,IOException> errorHandler){
+        return new ParallelFileWalker(parallelism, maxDepth, symlinkPolicy, filter, errorHandler);
+    }
+
+    /**
+     * Walk the tree, returning once every entry has been visited.
+     *
+     * @param start root of the walk
+     * @param consumer receives each accepted entry.  Called concurrently from the walking
+     *                 threads, so it must be thread safe.
+     * @throws IllegalStateException if the walk fails
+     */
+    public void walk(Path start, BiConsumer<Path,BasicFileAttributes> consumer){
+        Walk walk = new Walk(consumer);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            DirectoryTask root = walk.begin(start);
+            if(root != null){
+                pool.invoke(root);
+            }
+        }finally {
+            pool.shutdown();
+        }
+        walk.rethrowFailure();
+    }
+
+    /**
+     * Walk the tree in the background, streaming the accepted paths in no particular order.
+     * The stream must be closed, ie: with try-with-resources, so an unfinished walk is stopped.
+     * A stream that is abandoned without being closed stops its walk once it has been garbage
+     * collected; until then the walking threads wait for room in the buffer.
+     *
+     * @param start root of the walk
+     * @return the accepted paths
+     * @throws IllegalStateException from the stream's terminal operation if the walk fails
+     */
+    public Stream<Path> stream(Path start){
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(STREAM_BUFFER_SIZE);
+        Walk walk = new Walk(null);
+        walk.queue = queue;
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        walk.pool = pool;
+        DirectoryTask root;
+        try {
+            root = walk.begin(start);
+        }catch (RuntimeException e){
+            pool.shutdown();
+            throw e;
+        }
+        if(root == null){
+            walk.finish();
+        }else{
+            pool.execute(root);
+        }
+
+        Iterator<Path> iterator = new Iterator<Path>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext(){
+                if(next == null){
+                    try {
+                        next = queue.take();
+                    }catch (InterruptedException e){
+                        Thread.currentThread().interrupt();
+                        walk.close();
+                        throw new IllegalStateException("Interrupted while walking " + start, e);
+                    }
+                    if(next == END){
+                        walk.rethrowFailure();
+                    }
+                }
+                return next != END;
+            }
+
+            @Override
+            public Path next(){
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                Path path = (Path) next;
+                next = null;
+                return path;
+            }
+        };
+        walk.reader = new WeakReference<>(iterator);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+              .onClose(walk::close);
+    }
+
+    /**
+     * @param start root of the walk
+     * @return number of entries accepted by the filter
+     */
+    public long count(Path start){
+        LongAdder count = new LongAdder();
+        walk(start, (path, attributes) -> count.increment());
+        return count.sum();
+    }
+
+    /*
+    State of one walk: where accepted entries go and the first failure.  The walk is stopped on
+    failure or when the stream is closed; closed means nobody reads the queue anymore.  The reader
+    is only weakly referenced, so an abandoned stream can be collected, which closes the walk too.
+     */
+    private final class Walk {
+        private final BiConsumer<Path,BasicFileAttributes> consumer;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private volatile boolean stopped;
+        private volatile boolean closed;
+        private final AtomicInteger queuedDirectories = new AtomicInteger();
+        BlockingQueue<Object> queue;
+        ForkJoinPool pool;
+        volatile WeakReference<Iterator<Path>> reader;
+
+        Walk(BiConsumer<Path,BasicFileAttributes> consumer){
+            this.consumer = consumer;
+        }
+
+        // Report the start and return the task listing it, or null if there is nothing to list.
+        DirectoryTask begin(Path start){
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(start, BasicFileAttributes.class);
+            }catch (IOException e){
+                throw new IllegalStateException("Failed to walk " + start + " due to " + e.getMessage(), e);
+            }
+            offer(start, attributes);
+            if(!attributes.isDirectory() || maxDepth == 0){
+                return null;
+            }
+            queuedDirectories.incrementAndGet();
+            return new DirectoryTask(null, start, attributes.fileKey(), 0, this);
+        }
+
+        void offer(Path path, BasicFileAttributes attributes){
+            if(stopped || !filter.test(path, attributes)){
+                return;
+            }
+            if(queue == null){
+                consumer.accept(path, attributes);
+            }else{
+                put(path);
+            }
+        }
+
+        void error(Path path, IOException e){
+            if(e instanceof NoSuchFileException){
+                return;
+            }
+            if(errorHandler == null){
+                fail(new IllegalStateException("Failed to read " + path + " due to " + e.getMessage(), e));
+            }else{
+                errorHandler.accept(path, e);
+            }
+        }
+
+        void fail(Throwable t){
+            failure.compareAndSet(null, t);
+            stopped = true;
+        }
+
+        void close(){
+            closed = true;
+            stopped = true;
+            queue.clear();
+        }
+
+        // Reserve a place in the pool's queues for a subdirectory, or return false to list it inline.
+        boolean reserveQueued(){
+            if(queuedDirectories.incrementAndGet() > parallelism * QUEUED_DIRECTORIES_PER_THREAD){
+                queuedDirectories.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        void releaseQueued(){
+            queuedDirectories.decrementAndGet();
+        }
+
+        boolean isStopped(){
+            return stopped;
+        }
+
+        // Called once, when every directory task has completed.
+        void finish(){
+            if(queue != null){
+                pool.shutdown();
+                if(failure.get() != null){
+                    // Entries are incomplete anyway, let the reader see the failure now.
+                    queue.clear();
+                }
+                put(END);
+            }
+        }
+
+        // Wait for room in the queue.  Entries are dropped once the walk stops, the end marker
+        // only once nobody reads anymore.
+        private void put(Object item){
+            try {
+                while(!queue.offer(item, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)){
+                    if(reader != null && reader.get() == null){
+                        close();
+                    }
+                    if(closed || (stopped && item != END)){
+                        return;
+                    }
+                }
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                fail(e);
+            }
+        }
+
+        void rethrowFailure(){
+            Throwable t = failure.get();
+            if(t instanceof RuntimeException){
+                throw (RuntimeException) t;
+            }
+            if(t instanceof Error){
+                throw (Error) t;
+            }
+            if(t != null){
+                throw new IllegalStateException(t);
+            }
+        }
+    }
+
+    /*
+    Lists one directory, reporting its entries and forking a task per subdirectory, or listing it
+    inline while too many are queued.  The completer chain is the chain of parent directories, used
+    to detect link loops.
+     */
+    private final class DirectoryTask extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final Object fileKey;
+        private final int depth;
+        private final Walk walk;
+
+        DirectoryTask(DirectoryTask parent, Path directory, Object fileKey, int depth, Walk walk){
+            super(parent);
+            this.directory = directory;
+            this.fileKey = fileKey;
+            this.depth = depth;
+            this.walk = walk;
+        }
+
+        @Override
+        public void compute(){
+            walk.releaseQueued();
+            list();
+        }
+
+        private void list(){
+            try(DirectoryStream<Path> entries = Files.newDirectoryStream(directory)){
+                for(Path entry : entries){
+                    if(walk.isStopped()){
+                        break;
+                    }
+                    visit(entry);
+                }
+            }catch (IOException e){
+                walk.error(directory, e);
+            }catch (RuntimeException | Error e){
+                walk.fail(e);
+            }
+            tryComplete();
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller){
+            if(getCompleter() == null){
+                walk.finish();
+            }
+        }
+
+        private void visit(Path entry){
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            }catch (IOException e){
+                walk.error(entry, e);
+                return;
+            }
+            boolean link = attributes.isSymbolicLink();
+            if(link){
+                if(symlinkPolicy == SymlinkPolicy.SKIP){
+                    return;
+                }
+                if(symlinkPolicy == SymlinkPolicy.FOLLOW){
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    }catch (IOException e){
+                        // Dangling link, report the link itself.
+                    }
+                }
+            }
+            walk.offer(entry, attributes);
+            if(attributes.isDirectory() && depth + 1 < maxDepth && !(link && loops(attributes.fileKey()))){
+                addToPendingCount(1);
+                DirectoryTask child = new DirectoryTask(this, entry, attributes.fileKey(), depth + 1, walk);
+                if(walk.reserveQueued()){
+                    child.fork();
+                }else{
+                    child.list();
+                }
+            }
+        }
+
+        private boolean loops(Object key){
+            if(key == null){
+                return false;
+            }
+            for(DirectoryTask task = this; task != null; task = (DirectoryTask) task.getCompleter()){
+                if(key.equals(task.fileKey)){
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
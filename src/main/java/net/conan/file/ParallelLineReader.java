@@ -0,0 +1,305 @@
+package net.conan.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * <p>Reads the lines of a file with several threads.  The file is cut into chunks of about
+ * {@link #withChunkSize(int) chunkSize} bytes, each ending right after a <code>'\n'</code>, and
+ * every chunk is memory mapped, decoded and split into lines by its own task.  Lines end at
+ * <code>"\n"</code>, <code>"\r"</code> or <code>"\r\n"</code>, as with {@link Files#lines(Path)}.</p>
+ *
+ * <p>{@link #withOrdered(boolean) Ordered} reading hands the lines to the consumer in file
+ * order on the calling thread, while chunks ahead of it are decoded in parallel; at most two
+ * chunks per thread are held in memory.  Unordered reading calls the consumer from the reading
+ * threads as lines are found, which is faster but needs a thread safe consumer.</p>
+ *
+ * <p>Chunks can only be cut at newline bytes in charsets that encode <code>'\n'</code> and
+ * <code>'\r'</code> as single bytes, such as UTF-8 and the ISO-8859 family.  Files in other
+ * charsets, UTF-16 for one, are read sequentially instead.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class ParallelLineReader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+
+    private static final int PROBE_SIZE = 8192;
+
+    private final int parallelism;
+    private final int chunkSize;
+    private final Charset charset;
+    private final boolean ordered;
+
+    /**
+     * An unordered UTF-8 reader using one thread per processor.
+     */
+    public ParallelLineReader(){
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE, StandardCharsets.UTF_8, false);
+    }
+
+    private ParallelLineReader(int parallelism, int chunkSize, Charset charset, boolean ordered){
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.charset = charset;
+        this.ordered = ordered;
+    }
+
+    /**
+     * @param parallelism number of reading threads
+     * @return a copy using the given number of threads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public ParallelLineReader withParallelism(int parallelism){
+        if(parallelism < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        return new ParallelLineReader(parallelism, chunkSize, charset, ordered);
+    }
+
+    /**
+     * @param chunkSize bytes per chunk before extending it to the end of its last line
+     * @return a copy cutting the file into chunks of the given size
+     * @throws IllegalArgumentException if chunkSize is less than 1
+     */
+    public ParallelLineReader withChunkSize(int chunkSize){
+        if(chunkSize < 1){
+            throw new IllegalArgumentException("Chunk size must be at least 1, got " + chunkSize);
+        }
+        return new ParallelLineReader(parallelism, chunkSize, charset, ordered);
+    }
+
+    /**
+     * @param charset charset of the files
+     * @return a copy decoding the given charset
+     */
+    public ParallelLineReader withCharset(Charset charset){
+        return new ParallelLineReader(parallelism, chunkSize, charset, ordered);
+    }
+
+    /**
+     * @param ordered true to consume lines in file order on the calling thread, false to
+     *                consume them from the reading threads in any order
+     * @return a copy with the given order
+     */
+    public ParallelLineReader withOrdered(boolean ordered){
+        return new ParallelLineReader(parallelism, chunkSize, charset, ordered);
+    }
+
+    /**
+     * Read every line of the file, returning once all were consumed.  The first failure,
+     * thrown by the consumer or by reading, stops the remaining chunks and is rethrown.
+     *
+     * @param file file to read
+     * @param consumer receives each line; called concurrently unless the reader is ordered
+     * @throws IllegalStateException if the file cannot be read or decoded
+     */
+    public void forEachLine(Path file, Consumer<String> consumer){
+        if(!splitsOnNewlineBytes(charset)){
+            readSequentially(file, consumer);
+            return;
+        }
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            long[] bounds = chunkBounds(channel);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                if(ordered){
+                    readOrdered(file, channel, bounds, pool, consumer);
+                }else{
+                    readUnordered(channel, bounds, pool, consumer);
+                }
+            }finally {
+                pool.shutdownNow();
+            }
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to read " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    private void readOrdered(Path file, FileChannel channel, long[] bounds, ForkJoinPool pool, Consumer<String> consumer){
+        Deque<ForkJoinTask<List<String>>> window = new ArrayDeque<>();
+        int next = 0;
+        int chunks = bounds.length - 1;
+        while(next < chunks || !window.isEmpty()){
+            while(next < chunks && window.size() < parallelism * 2){
+                long start = bounds[next];
+                long end = bounds[++next];
+                window.add(pool.submit(() -> {
+                    List<String> lines = new ArrayList<>();
+                    splitLines(decode(channel, start, end), lines::add);
+                    return lines;
+                }));
+            }
+            List<String> lines;
+            try {
+                lines = window.poll().get();
+            }catch (ExecutionException e){
+                throw rethrow(e.getCause());
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading " + file, e);
+            }
+            lines.forEach(consumer);
+        }
+    }
+
+    private void readUnordered(FileChannel channel, long[] bounds, ForkJoinPool pool, Consumer<String> consumer){
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(bounds.length - 1);
+        for(int i = 0; i + 1 < bounds.length; i++){
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            tasks.add(pool.submit(() -> {
+                try {
+                    if(failure.get() == null){
+                        splitLines(decode(channel, start, end), line -> {
+                            if(failure.get() != null){
+                                throw new CancelledChunk();
+                            }
+                            consumer.accept(line);
+                        });
+                    }
+                }catch (CancelledChunk e){
+                    // Stopped after a failure elsewhere.
+                }catch (RuntimeException | Error e){
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        tasks.forEach(ForkJoinTask::quietlyJoin);
+        if(failure.get() != null){
+            throw rethrow(failure.get());
+        }
+    }
+
+    private static RuntimeException rethrow(Throwable t){
+        if(t instanceof RuntimeException){
+            return (RuntimeException) t;
+        }
+        if(t instanceof Error){
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+
+    /*
+    Offsets where chunks start, followed by the file size.  Each chunk but the last ends right
+    after a '\n', found by probing forward from the nominal chunk end.
+     */
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long[] bounds = new long[16];
+        int count = 0;
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        long start = 0;
+        while(start < size){
+            if(count + 2 > bounds.length){
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[count++] = start;
+            start = nextLineStart(channel, probe, start + chunkSize, size);
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static long nextLineStart(FileChannel channel, ByteBuffer probe, long position, long size) throws IOException {
+        while(position < size){
+            probe.clear();
+            int read = channel.read(probe, position);
+            if(read <= 0){
+                break;
+            }
+            for(int i = 0; i < read; i++){
+                if(probe.get(i) == '\n'){
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private CharBuffer decode(FileChannel channel, long start, long end){
+        long length = end - start;
+        if(length > Integer.MAX_VALUE){
+            throw new IllegalStateException("Line at " + start + " is longer than " + Integer.MAX_VALUE + " bytes");
+        }
+        CharsetDecoder decoder = charset.newDecoder()
+              .onMalformedInput(CodingErrorAction.REPORT)
+              .onUnmappableCharacter(CodingErrorAction.REPORT);
+        try {
+            return decoder.decode(channel.map(FileChannel.MapMode.READ_ONLY, start, length));
+        }catch (CharacterCodingException e){
+            throw new IllegalStateException("Failed to decode the bytes from " + start + " to " + end + " as " + charset, e);
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to map the bytes from " + start + " to " + end + " due to " + e.getMessage(), e);
+        }
+    }
+
+    private static void splitLines(CharBuffer text, Consumer<String> consumer){
+        char[] chars = text.array();
+        int end = text.arrayOffset() + text.limit();
+        int start = text.arrayOffset() + text.position();
+        for(int i = start; i < end; i++){
+            char c = chars[i];
+            if(c == '\n' || c == '\r'){
+                consumer.accept(new String(chars, start, i - start));
+                if(c == '\r' && i + 1 < end && chars[i + 1] == '\n'){
+                    i++;
+                }
+                start = i + 1;
+            }
+        }
+        if(start < end){
+            consumer.accept(new String(chars, start, end - start));
+        }
+    }
+
+    private void readSequentially(Path file, Consumer<String> consumer){
+        try(Stream<String> lines = Files.lines(file, charset)){
+            lines.forEach(consumer);
+        }catch (IOException | UncheckedIOException e){
+            throw new IllegalStateException("Failed to read " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    static boolean splitsOnNewlineBytes(Charset charset){
+        if(!charset.canEncode()){
+            return false;
+        }
+        byte[] encoded = "\n\r".getBytes(charset);
+        return encoded.length == 2 && encoded[0] == '\n' && encoded[1] == '\r';
+    }
+
+    // Ends an unordered chunk once another one failed.
+    private static final class CancelledChunk extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CancelledChunk(){
+            super(null, null, false, false);
+        }
+    }
+}
@@ -3,21 +3,81 @@ package net.conan.file;
 import net.conan.lambda.ExceptionWrapper;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.Deflater;
 
 /**
- * Combines text files into a single file.
+ * <p>Combines text files into a single file.</p>
+ *
+ * <p>By default the files are copied one after the other.  With a
+ * {@link #withParallelism(int) parallelism} above 1, the offset of every file in the target is
+ * computed up front from the file sizes and the separator length, the target is extended to its
+ * final size, and the files are copied concurrently into their regions with positional
+ * transfers.  That keeps several I/O requests in flight, which fast storage needs to reach its
+ * throughput, but requires the files not to change while they are combined.</p>
+ *
+ * <p>Copying in order, files of at most {@link #withSmallFileThreshold(int) smallFileThreshold}
+ * bytes are batched: they are read into one reused direct buffer and written, interleaved
+ * with the separator, by a single gathering write, instead of a transfer and a separate write
+ * each.  Larger files still take the zero-copy transfer.</p>
+ *
+ * <p>Given an {@link #withOutputCharset(Charset) output charset}, files are transcoded to it
+ * while they are copied, in order.  The charset of each file is, by priority, the one
+ * {@link #withCharsets(Map) mapped} to it, the one named by its byte order mark, or the
+ * {@link #withInputCharset(Charset) input charset}.  Byte order marks are not copied.  Files
+ * already in the output charset still take the zero-copy transfer; the others stream through
+ * one decoder per charset and one encoder, reused from file to file.  The separator is encoded
+ * in the output charset too.  Choose an output charset that writes no byte order mark, such as
+ * UTF-16LE rather than UTF-16, or every file gets one.  Without an output charset, bytes are copied as they are and the
+ * separator is encoded in the platform's default charset.</p>
+ *
+ * <p>{@link #withGzip(int) Gzip} compresses the combined content on the fly, pigz style: it is
+ * cut into blocks of {@value BlockGzipChannel#DEFAULT_BLOCK_SIZE} bytes that are deflated in
+ * parallel and written in order as the members of a multi-member gzip file.  At most two blocks
+ * per compressing thread are in flight.  Files are then read in order, so the parallel copying
+ * mode does not apply, while batching and transcoding still do.</p>
  *
  * @author Conan Dombroski ()
  */
 public class TextFileCombiner implements FileCombiner {
 
     private static final String LINE_FEED = System.getProperty("line.separator");
+    private static final int BATCH_SIZE = 1 << 20;
+    // Buffers per gathering write, within the usual IOV_MAX.
+    private static final int MAX_BATCH_BUFFERS = 1024;
+
+    public static final int MAX_SMALL_FILE_THRESHOLD = 16 << 20;
+
+    private static final int TRANSCODE_BUFFER_SIZE = 1 << 16;
 
     private final String contentSeparator;
+    private final int parallelism;
+    private final int smallFileThreshold;
+    private final Charset outputCharset;
+    private final Charset inputCharset;
+    private final Map<File,Charset> charsets;
+    private final int gzipLevel;
+    private final int gzipThreads;
 
     /**
      * Create a new TextFileCombiner using no delimter.
@@ -35,37 +95,452 @@ public class TextFileCombiner implements FileCombiner {
      *                         the combined file.
      */
     public TextFileCombiner(String contentDelimLine){
-        contentSeparator = contentDelimLine + LINE_FEED;
+        this(contentDelimLine + LINE_FEED, 1, 0, null, null, Collections.emptyMap(), 0, 0);
+    }
+
+    private TextFileCombiner(String contentSeparator, int parallelism, int smallFileThreshold,
+                             Charset outputCharset, Charset inputCharset, Map<File,Charset> charsets,
+                             int gzipLevel, int gzipThreads){
+        this.contentSeparator = contentSeparator;
+        this.parallelism = parallelism;
+        this.smallFileThreshold = smallFileThreshold;
+        this.outputCharset = outputCharset;
+        this.inputCharset = inputCharset;
+        this.charsets = charsets;
+        this.gzipLevel = gzipLevel;
+        this.gzipThreads = gzipThreads;
+    }
+
+    /**
+     * @param parallelism number of files copied at the same time; 1 copies them in order
+     * @return a copy combining with the given number of threads
+     * @throws IllegalArgumentException if parallelism is less than 1
+     */
+    public TextFileCombiner withParallelism(int parallelism){
+        if(parallelism < 1){
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        return new TextFileCombiner(contentSeparator, parallelism, smallFileThreshold, outputCharset, inputCharset, charsets,
+              gzipLevel, gzipThreads);
+    }
+
+    /**
+     * @param smallFileThreshold largest file, in bytes, batched into gathering writes when
+     *                           copying in order; 0 transfers every file on its own
+     * @return a copy batching files up to the given size
+     * @throws IllegalArgumentException if the threshold is negative or above {@link #MAX_SMALL_FILE_THRESHOLD}
+     */
+    public TextFileCombiner withSmallFileThreshold(int smallFileThreshold){
+        if(smallFileThreshold < 0 || smallFileThreshold > MAX_SMALL_FILE_THRESHOLD){
+            throw new IllegalArgumentException("Small file threshold must be between 0 and " + MAX_SMALL_FILE_THRESHOLD +
+                  ", got " + smallFileThreshold);
+        }
+        return new TextFileCombiner(contentSeparator, parallelism, smallFileThreshold, outputCharset, inputCharset, charsets,
+              gzipLevel, gzipThreads);
+    }
+
+    /**
+     * @param outputCharset charset of the target, or null to copy bytes without transcoding
+     * @return a copy transcoding to the given charset
+     */
+    public TextFileCombiner withOutputCharset(Charset outputCharset){
+        return new TextFileCombiner(contentSeparator, parallelism, smallFileThreshold, outputCharset, inputCharset, charsets,
+              gzipLevel, gzipThreads);
+    }
+
+    /**
+     * @param inputCharset charset of the files that are neither mapped nor marked, or null
+     *                     for the output charset
+     * @return a copy assuming the given charset
+     */
+    public TextFileCombiner withInputCharset(Charset inputCharset){
+        return new TextFileCombiner(contentSeparator, parallelism, smallFileThreshold, outputCharset, inputCharset, charsets,
+              gzipLevel, gzipThreads);
+    }
+
+    /**
+     * @param charsets charset of individual files, overriding their byte order marks
+     * @return a copy using the given charsets
+     */
+    public TextFileCombiner withCharsets(Map<File,Charset> charsets){
+        return new TextFileCombiner(contentSeparator, parallelism, smallFileThreshold, outputCharset, inputCharset,
+              Collections.unmodifiableMap(new HashMap<>(charsets)), gzipLevel, gzipThreads);
+    }
+
+    /**
+     * Gzip the target with one compressing thread per processor.
+     *
+     * @see #withGzip(int, int)
+     */
+    public TextFileCombiner withGzip(int level){
+        return withGzip(level, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param level deflate level, 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param threads number of compressing threads
+     * @return a copy writing a gzip compressed target
+     * @throws IllegalArgumentException if the level or the number of threads is invalid
+     */
+    public TextFileCombiner withGzip(int level, int threads){
+        if(level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)){
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        if(threads < 1){
+            throw new IllegalArgumentException("Threads must be at least 1, got " + threads);
+        }
+        return new TextFileCombiner(contentSeparator, parallelism, smallFileThreshold, outputCharset, inputCharset, charsets,
+              level, threads);
+    }
+
+    /**
+     * @return a copy writing the target uncompressed
+     */
+    public TextFileCombiner withoutGzip(){
+        return new TextFileCombiner(contentSeparator, parallelism, smallFileThreshold, outputCharset, inputCharset, charsets,
+              0, 0);
     }
 
     /**
      * Combine all files into one.  This is a very simplistic implementation as it does not
-     * attempt to verify any content.  This method assumes all Files within the list are
-     * valid text files and also assumes the system's default encoding. Mixed encodings will
-     * have unpredictable results in the file merged File.
+     * attempt to verify any content.  Without an output charset, this method assumes all
+     * Files within the list are valid text files in the system's default encoding. Mixed
+     * encodings will have unpredictable results in the file merged File.  With one, files that
+     * cannot be decoded or encoded fail the combine.
      *
      * @see File
      * @param files List of Files to merge
-     * @param target merge destination
+     * @param target merge destination, replaced if it exists
      * @return The target.
      */
     @Override
     public File combine(List<File> files, File target) {
-        try{
-            final ByteBuffer separatorByteBuffer = ByteBuffer.wrap(contentSeparator.getBytes());
-            final FileChannel out = FileChannel.open(target.toPath(),StandardOpenOption.CREATE,StandardOpenOption.WRITE);
-            files.stream().forEach(
-                  ExceptionWrapper.wrapConsumer(
-                        f -> {
-                            FileChannel in = FileChannel.open(f.toPath(), StandardOpenOption.READ);
-                            in.transferTo(0, f.length(), out);
-                            out.write(separatorByteBuffer);
-                            separatorByteBuffer.rewind();
-                            in.close();
-                        }));
-        }catch (Exception e){
-            throw new IllegalStateException(e);
+        if(parallelism > 1 && outputCharset == null && gzipThreads == 0){
+            return combineParallel(files, target);
+        }
+        try(FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)){
+            if(gzipThreads > 0){
+                try(BlockGzipChannel gzip = new BlockGzipChannel(out, gzipLevel, gzipThreads, BlockGzipChannel.DEFAULT_BLOCK_SIZE)){
+                    write(files, gzip);
+                }
+            }else{
+                write(files, out);
+            }
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to combine into " + target + " due to " + e.getMessage(), e);
+        }
+        return target;
+    }
+
+    private void write(List<File> files, GatheringByteChannel out) throws IOException {
+        if(outputCharset != null){
+            writeTranscoded(files, out);
+            return;
+        }
+        final ByteBuffer separatorByteBuffer = ByteBuffer.wrap(contentSeparator.getBytes());
+        final Batch batch = smallFileThreshold > 0 ? new Batch(out, separatorByteBuffer, smallFileThreshold) : null;
+        files.stream().forEach(
+              ExceptionWrapper.wrapConsumer(
+                    f -> {
+                        long length = f.length();
+                        if(batch != null && length <= smallFileThreshold){
+                            batch.add(f, (int) length);
+                            return;
+                        }
+                        if(batch != null){
+                            batch.flush();
+                        }
+                        try(FileChannel in = FileChannel.open(f.toPath(), StandardOpenOption.READ)){
+                            transfer(in, 0, length, out);
+                        }
+                        writeFully(separatorByteBuffer, out);
+                        separatorByteBuffer.rewind();
+                    }));
+        if(batch != null){
+            batch.flush();
+        }
+    }
+
+    private void writeTranscoded(List<File> files, WritableByteChannel out) throws IOException {
+        Transcoder transcoder = new Transcoder(out, outputCharset);
+        ByteBuffer separator = ByteBuffer.wrap(contentSeparator.getBytes(outputCharset));
+        ByteBuffer head = ByteBuffer.allocate(4);
+        for(File file : files){
+            try(FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+                head.clear();
+                while(head.hasRemaining() && in.read(head, head.position()) >= 0){
+                    // Up to four bytes, fewer for shorter files.
+                }
+                head.flip();
+                Bom bom = Bom.of(head);
+                Charset charset = charsets.get(file);
+                if(charset == null){
+                    charset = bom != null ? bom.charset() : inputCharset != null ? inputCharset : outputCharset;
+                }
+                long start = bom != null && bom.charset().equals(charset) ? bom.length : 0;
+                if(charset.equals(outputCharset)){
+                    transfer(in, start, in.size() - start, out);
+                }else{
+                    transcoder.transcode(in, start, charset);
+                }
+            }catch (CharacterCodingException e){
+                throw new IllegalStateException("Failed to transcode " + file + " to " + outputCharset + " due to " + e, e);
+            }
+            writeFully(separator, out);
+            separator.rewind();
+        }
+    }
+
+    // Copies up to length bytes, fewer if the file shrank since its length was read.
+    private static void transfer(FileChannel in, long position, long length, WritableByteChannel out) throws IOException {
+        long end = position + length;
+        while(position < end){
+            long transferred = in.transferTo(position, end - position, out);
+            if(transferred <= 0){
+                return;
+            }
+            position += transferred;
+        }
+    }
+
+    private static void writeFully(ByteBuffer bytes, WritableByteChannel out) throws IOException {
+        while(bytes.hasRemaining()){
+            out.write(bytes);
+        }
+    }
+
+    private File combineParallel(List<File> files, File target){
+        byte[] separator = contentSeparator.getBytes();
+        long[] offsets = new long[files.size() + 1];
+        for(int i = 0; i < files.size(); i++){
+            offsets[i + 1] = offsets[i] + files.get(i).length() + separator.length;
+        }
+        long total = offsets[files.size()];
+        try(FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)){
+            // Cut whatever a previous target held beyond the new size, then extend to it.
+            out.truncate(total);
+            if(total > 0){
+                out.write(ByteBuffer.wrap(new byte[1]), total - 1);
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                List<ForkJoinTask<?>> copies = new ArrayList<>(files.size());
+                for(int i = 0; i < files.size(); i++){
+                    File file = files.get(i);
+                    long offset = offsets[i];
+                    long length = offsets[i + 1] - offset - separator.length;
+                    copies.add(pool.submit(() -> copy(file, length, out, offset, separator)));
+                }
+                for(ForkJoinTask<?> copy : copies){
+                    copy.quietlyJoin();
+                }
+                for(ForkJoinTask<?> copy : copies){
+                    Throwable failure = copy.getException();
+                    if(failure != null){
+                        throw failure instanceof IllegalStateException
+                              ? (IllegalStateException) failure : new IllegalStateException(failure);
+                    }
+                }
+            }finally {
+                pool.shutdown();
+            }
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to combine into " + target + " due to " + e.getMessage(), e);
         }
         return target;
     }
+
+    private static void copy(File file, long length, FileChannel out, long offset, byte[] separator){
+        try(FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+            long copied = 0;
+            while(copied < length){
+                long transferred = out.transferFrom(in, offset + copied, length - copied);
+                if(transferred <= 0){
+                    throw new IllegalStateException(file + " shrank from " + length + " to " + copied + " bytes while combining");
+                }
+                copied += transferred;
+            }
+            ByteBuffer separatorBuffer = ByteBuffer.wrap(separator);
+            long position = offset + length;
+            while(separatorBuffer.hasRemaining()){
+                position += out.write(separatorBuffer, position);
+            }
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to copy " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /*
+    Small files waiting to be written.  Their content is read into consecutive slices of one
+    direct buffer, and the pending slices and separators are written by one gathering write
+    once the buffer or the list of buffers is full.
+     */
+    private static final class Batch {
+        private final GatheringByteChannel out;
+        private final ByteBuffer separator;
+        private final ByteBuffer content;
+        private final ByteBuffer[] pending = new ByteBuffer[MAX_BATCH_BUFFERS];
+        private int count;
+
+        Batch(GatheringByteChannel out, ByteBuffer separator, int smallFileThreshold){
+            this.out = out;
+            this.separator = separator;
+            this.content = ByteBuffer.allocateDirect(Math.max(BATCH_SIZE, smallFileThreshold));
+        }
+
+        void add(File file, int length) throws IOException {
+            if(content.remaining() < length || count + 2 > pending.length){
+                flush();
+            }
+            ByteBuffer slice = content.slice();
+            slice.limit(length);
+            try(FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+                while(slice.hasRemaining() && in.read(slice) >= 0){
+                    // Until the length seen before opening, as a transfer would copy.
+                }
+            }
+            slice.flip();
+            content.position(content.position() + slice.limit());
+            pending[count++] = slice;
+            pending[count++] = separator.duplicate();
+        }
+
+        void flush() throws IOException {
+            int first = 0;
+            while(first < count){
+                out.write(pending, first, count - first);
+                while(first < count && !pending[first].hasRemaining()){
+                    first++;
+                }
+            }
+            Arrays.fill(pending, 0, count, null);
+            count = 0;
+            content.clear();
+        }
+    }
+
+    private enum Bom {
+        UTF_32BE(new byte[]{0, 0, (byte) 0xFE, (byte) 0xFF}, "UTF-32BE"),
+        UTF_32LE(new byte[]{(byte) 0xFF, (byte) 0xFE, 0, 0}, "UTF-32LE"),
+        UTF_8(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, "UTF-8"),
+        UTF_16BE(new byte[]{(byte) 0xFE, (byte) 0xFF}, "UTF-16BE"),
+        UTF_16LE(new byte[]{(byte) 0xFF, (byte) 0xFE}, "UTF-16LE");
+
+        final byte[] bytes;
+        final int length;
+        private final String charsetName;
+
+        Bom(byte[] bytes, String charsetName){
+            this.bytes = bytes;
+            this.length = bytes.length;
+            this.charsetName = charsetName;
+        }
+
+        Charset charset(){
+            return Charset.forName(charsetName);
+        }
+
+        // The longest mark head starts with, UTF-32LE before UTF-16LE, or null.
+        static Bom of(ByteBuffer head){
+            for(Bom bom : values()){
+                if(head.remaining() >= bom.length && Charset.isSupported(bom.charsetName)){
+                    boolean matches = true;
+                    for(int i = 0; i < bom.length && matches; i++){
+                        matches = head.get(head.position() + i) == bom.bytes[i];
+                    }
+                    if(matches){
+                        return bom;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /*
+    Streams files from their charset to the output charset through direct byte buffers.  The
+    encoder and a decoder per input charset are reused from file to file.
+     */
+    private static final class Transcoder {
+        private final WritableByteChannel out;
+        private final CharsetEncoder encoder;
+        private final Map<Charset,CharsetDecoder> decoders = new HashMap<>();
+        private final ByteBuffer input = ByteBuffer.allocateDirect(TRANSCODE_BUFFER_SIZE);
+        private final CharBuffer chars = CharBuffer.allocate(TRANSCODE_BUFFER_SIZE);
+        private final ByteBuffer output = ByteBuffer.allocateDirect(TRANSCODE_BUFFER_SIZE);
+
+        Transcoder(WritableByteChannel out, Charset outputCharset){
+            this.out = out;
+            this.encoder = outputCharset.newEncoder()
+                  .onMalformedInput(CodingErrorAction.REPORT)
+                  .onUnmappableCharacter(CodingErrorAction.REPORT);
+        }
+
+        void transcode(FileChannel in, long position, Charset charset) throws IOException {
+            CharsetDecoder decoder = decoders.computeIfAbsent(charset, c -> c.newDecoder()
+                  .onMalformedInput(CodingErrorAction.REPORT)
+                  .onUnmappableCharacter(CodingErrorAction.REPORT));
+            decoder.reset();
+            encoder.reset();
+            input.clear();
+            chars.clear();
+            boolean eof = false;
+            while(true){
+                if(!eof){
+                    int read = in.read(input, position);
+                    if(read < 0){
+                        eof = true;
+                    }else{
+                        position += read;
+                    }
+                }
+                input.flip();
+                CoderResult result = decoder.decode(input, chars, eof);
+                if(result.isError()){
+                    result.throwException();
+                }
+                input.compact();
+                boolean done = eof && result.isUnderflow();
+                if(done){
+                    while(decoder.flush(chars).isOverflow()){
+                        encode(false);
+                    }
+                }
+                encode(done);
+                if(done){
+                    while(encoder.flush(output).isOverflow()){
+                        drain();
+                    }
+                    drain();
+                    return;
+                }
+            }
+        }
+
+        // Encodes the decoded characters, keeping an incomplete surrogate pair for later.
+        private void encode(boolean endOfInput) throws IOException {
+            chars.flip();
+            while(true){
+                CoderResult result = encoder.encode(chars, output, endOfInput);
+                if(result.isError()){
+                    result.throwException();
+                }
+                if(result.isOverflow()){
+                    drain();
+                }else{
+                    break;
+                }
+            }
+            chars.compact();
+        }
+
+        private void drain() throws IOException {
+            output.flip();
+            while(output.hasRemaining()){
+                out.write(output);
+            }
+            output.clear();
+        }
+    }
 }
@@ -0,0 +1,214 @@
+package net.conan.file;
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * <p>Disk usage of a directory tree, gathered in one parallel pass by a
+ * {@link ParallelFileWalker}: entry counts by type, total bytes, and histograms by file
+ * extension and by depth.  Attributes come from the walk itself, so each entry costs one
+ * directory read and one attribute read.  Every walking thread fills its own tallies, which
+ * are merged once the walk is done.</p>
+ *
+ * <p>The root itself is not counted.  Extensions are taken after the last dot of the file
+ * name and lower cased; names without a dot, or with only a leading one, have the extension
+ * <code>""</code>.  Bytes are the sizes of regular files.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class TreeStatistics {
+    private final long files;
+    private final long directories;
+    private final long others;
+    private final long bytes;
+    private final Map<String,Long> filesByExtension;
+    private final Map<String,Long> bytesByExtension;
+    private final long[] entriesByDepth;
+
+    private TreeStatistics(Tally total){
+        files = total.files;
+        directories = total.directories;
+        others = total.others;
+        bytes = total.bytes;
+        Map<String,Long> fileCounts = new TreeMap<>();
+        Map<String,Long> byteCounts = new TreeMap<>();
+        total.extensions.forEach((extension, counts) -> {
+            fileCounts.put(extension, counts[0]);
+            byteCounts.put(extension, counts[1]);
+        });
+        filesByExtension = Collections.unmodifiableMap(fileCounts);
+        bytesByExtension = Collections.unmodifiableMap(byteCounts);
+        entriesByDepth = Arrays.copyOf(total.depths, total.maxDepth + 1);
+    }
+
+    /**
+     * Gather statistics with a walker using its defaults.
+     *
+     * @param root directory to measure
+     * @return the statistics
+     */
+    public static TreeStatistics of(Path root){
+        return of(root, new ParallelFileWalker());
+    }
+
+    /**
+     * Gather statistics over the entries accepted by the walker's filter.  The walker's
+     * parallelism, depth limit, symbolic link policy and error handling apply.
+     *
+     * @param root directory to measure
+     * @param walker walker to use
+     * @return the statistics
+     */
+    public static TreeStatistics of(Path root, ParallelFileWalker walker){
+        Queue<Tally> tallies = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Tally> local = ThreadLocal.withInitial(() -> {
+            Tally tally = new Tally();
+            tallies.add(tally);
+            return tally;
+        });
+        int rootDepth = root.getNameCount();
+        walker.walk(root, (path, attributes) -> {
+            int depth = path.getNameCount() - rootDepth;
+            if(depth > 0){
+                local.get().add(path, attributes, depth);
+            }
+        });
+        Tally total = new Tally();
+        tallies.forEach(total::merge);
+        return new TreeStatistics(total);
+    }
+
+    /**
+     * @return number of regular files
+     */
+    public long fileCount(){
+        return files;
+    }
+
+    /**
+     * @return number of directories, not counting the root
+     */
+    public long directoryCount(){
+        return directories;
+    }
+
+    /**
+     * @return number of other entries: symbolic links that were not followed, devices, ...
+     */
+    public long otherCount(){
+        return others;
+    }
+
+    /**
+     * @return number of entries of any type
+     */
+    public long entryCount(){
+        return files + directories + others;
+    }
+
+    /**
+     * @return total size of the regular files
+     */
+    public long totalBytes(){
+        return bytes;
+    }
+
+    /**
+     * @return number of regular files per extension, sorted by extension
+     */
+    public Map<String,Long> filesByExtension(){
+        return filesByExtension;
+    }
+
+    /**
+     * @return total size of the regular files per extension, sorted by extension
+     */
+    public Map<String,Long> bytesByExtension(){
+        return bytesByExtension;
+    }
+
+    /**
+     * @return deepest level holding an entry; 1 for the root's children, 0 if it is empty
+     */
+    public int maxDepth(){
+        return entriesByDepth.length - 1;
+    }
+
+    /**
+     * @param depth level below the root, 1 being the root's children
+     * @return number of entries at that level
+     */
+    public long entriesAtDepth(int depth){
+        return depth > 0 && depth < entriesByDepth.length ? entriesByDepth[depth] : 0;
+    }
+
+    @Override
+    public String toString(){
+        return "TreeStatistics{files=" + files + ", directories=" + directories + ", others=" + others +
+              ", bytes=" + bytes + ", maxDepth=" + maxDepth() + "}";
+    }
+
+    static String extensionOf(String name){
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+    }
+
+    /*
+    Counts of one walking thread.  extensions holds {files, bytes} per extension.
+     */
+    private static final class Tally {
+        long files;
+        long directories;
+        long others;
+        long bytes;
+        final Map<String,long[]> extensions = new HashMap<>();
+        long[] depths = new long[16];
+        int maxDepth;
+
+        void add(Path path, BasicFileAttributes attributes, int depth){
+            if(attributes.isRegularFile()){
+                files++;
+                bytes += attributes.size();
+                long[] counts = extensions.computeIfAbsent(extensionOf(path.getFileName().toString()), e -> new long[2]);
+                counts[0]++;
+                counts[1] += attributes.size();
+            }else if(attributes.isDirectory()){
+                directories++;
+            }else{
+                others++;
+            }
+            countDepth(depth, 1);
+        }
+
+        void merge(Tally other){
+            files += other.files;
+            directories += other.directories;
+            others += other.others;
+            bytes += other.bytes;
+            other.extensions.forEach((extension, counts) -> {
+                long[] mine = extensions.computeIfAbsent(extension, e -> new long[2]);
+                mine[0] += counts[0];
+                mine[1] += counts[1];
+            });
+            for(int depth = 1; depth <= other.maxDepth; depth++){
+                countDepth(depth, other.depths[depth]);
+            }
+        }
+
+        private void countDepth(int depth, long count){
+            if(depth >= depths.length){
+                depths = Arrays.copyOf(depths, Math.max(depths.length * 2, depth + 1));
+            }
+            depths[depth] += count;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package net.conan.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Random access to the lines of a text file.  The index is built in one pass over the file
+ * and holds the offset of every line start: lengths are stored as variable length deltas,
+ * about one or two bytes per line, with the absolute offset of every
+ * {@value #CHECKPOINT_INTERVAL}th line as a checkpoint.  Finding a line decodes at most
+ * {@value #CHECKPOINT_INTERVAL} deltas, and reading it is one positional read of the open
+ * file, so repeated accesses cost microseconds whatever the size of the file.</p>
+ *
+ * <p>{@link #open(Path)} keeps the index in a sidecar file next to the text file, named
+ * after it with the {@value #SIDECAR_SUFFIX} suffix, and only rebuilds it when the text file's
+ * size or modification time changed.  Lines are numbered from 0 and end at
+ * <code>"\n"</code>, <code>"\r"</code> or <code>"\r\n"</code>, as with
+ * {@link Files#lines(Path)}.  The charset must encode those as single bytes, as UTF-8 and the
+ * ISO-8859 family do.</p>
+ *
+ * <p>Instances are thread safe.  Close them to close the text file.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class LineIndex implements Closeable {
+
+    public static final int CHECKPOINT_INTERVAL = 64;
+    public static final String SIDECAR_SUFFIX = ".lineindex";
+
+    private static final int MAGIC = 0x4C494458;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Magic, version, file size, modified time, line count, checkpoint count and delta length.
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 4;
+    // Offset and delta position.
+    private static final int CHECKPOINT_SIZE = 8 + 4;
+
+    private final Path file;
+    private final Charset charset;
+    private final long fileSize;
+    private final long modified;
+    private final long lineCount;
+    private final long[] checkpointOffsets;
+    private final int[] checkpointPositions;
+    private final byte[] deltas;
+    private final FileChannel channel;
+
+    private LineIndex(Path file, Charset charset, long fileSize, long modified, long lineCount,
+                      long[] checkpointOffsets, int[] checkpointPositions, byte[] deltas){
+        this.file = file;
+        this.charset = charset;
+        this.fileSize = fileSize;
+        this.modified = modified;
+        this.lineCount = lineCount;
+        this.checkpointOffsets = checkpointOffsets;
+        this.checkpointPositions = checkpointPositions;
+        this.deltas = deltas;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to open " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Index a UTF-8 file in memory, without a sidecar.
+     *
+     * @param file file to index
+     * @return the index
+     * @throws IllegalStateException if the file cannot be read
+     */
+    public static LineIndex build(Path file){
+        return build(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Index a file in memory, without a sidecar.
+     *
+     * @param file file to index
+     * @param charset charset of the file
+     * @return the index
+     * @throws IllegalArgumentException if the charset does not encode line terminators as single bytes
+     * @throws IllegalStateException if the file cannot be read
+     */
+    public static LineIndex build(Path file, Charset charset){
+        checkCharset(charset);
+        Builder builder = new Builder();
+        try(FileChannel in = FileChannel.open(file, StandardOpenOption.READ)){
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            long position = 0;
+            boolean inLine = false;
+            boolean afterCarriageReturn = false;
+            int read;
+            while((read = in.read(buffer)) >= 0){
+                for(int i = 0; i < read; i++, position++){
+                    byte b = buffer.get(i);
+                    if(afterCarriageReturn){
+                        afterCarriageReturn = false;
+                        if(b == '\n'){
+                            continue;
+                        }
+                    }
+                    if(!inLine){
+                        builder.addLine(position);
+                        inLine = true;
+                    }
+                    if(b == '\n' || b == '\r'){
+                        inLine = false;
+                        afterCarriageReturn = b == '\r';
+                    }
+                }
+                buffer.clear();
+            }
+            return builder.finish(file, charset, position, modified);
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to index " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Open the index of a UTF-8 file from its sidecar, or build it and write the sidecar if
+     * there is none or it is out of date.
+     *
+     * @see #open(Path, Charset)
+     */
+    public static LineIndex open(Path file){
+        return open(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Open the index of a file from its sidecar, or build it and write the sidecar if there is
+     * none or it is out of date.  A sidecar that cannot be written, in a read only directory for
+     * instance, is skipped: the index works without it.
+     *
+     * @param file file to index
+     * @param charset charset of the file
+     * @return the index
+     * @throws IllegalStateException if the file cannot be read
+     */
+    public static LineIndex open(Path file, Charset charset){
+        LineIndex index = load(file, charset);
+        if(index != null && index.isCurrent()){
+            return index;
+        }
+        if(index != null){
+            index.close();
+        }
+        index = build(file, charset);
+        try {
+            index.save();
+        }catch (IllegalStateException e){
+            // No sidecar then, the index itself is complete.
+        }
+        return index;
+    }
+
+    /**
+     * @param file text file
+     * @return where {@link #open(Path)} keeps the index of file
+     */
+    public static Path sidecarOf(Path file){
+        return file.resolveSibling(file.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Write the index to its sidecar, replacing any previous one.
+     *
+     * @throws IllegalStateException if the sidecar cannot be written
+     */
+    public void save(){
+        Path sidecar = sidecarOf(file);
+        Path temporary = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try {
+            try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE))){
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fileSize);
+                out.writeLong(modified);
+                out.writeLong(lineCount);
+                out.writeInt(checkpointOffsets.length);
+                for(int i = 0; i < checkpointOffsets.length; i++){
+                    out.writeLong(checkpointOffsets[i]);
+                    out.writeInt(checkpointPositions[i]);
+                }
+                out.writeInt(deltas.length);
+                out.write(deltas);
+            }
+            Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (IOException e){
+            try {
+                Files.deleteIfExists(temporary);
+            }catch (IOException ignored){
+                // Reporting the original failure.
+            }
+            throw new IllegalStateException("Failed to write the line index " + sidecar + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true if the file still has the size and modification time it was indexed with
+     */
+    public boolean isCurrent(){
+        try {
+            return Files.size(file) == fileSize && Files.getLastModifiedTime(file).toMillis() == modified;
+        }catch (IOException e){
+            return false;
+        }
+    }
+
+    /**
+     * @return the indexed file
+     */
+    public Path file(){
+        return file;
+    }
+
+    /**
+     * @return number of lines; a terminator at the end of the file does not start another one
+     */
+    public long lineCount(){
+        return lineCount;
+    }
+
+    /**
+     * @param line line number
+     * @return offset of the first byte of the line
+     * @throws IndexOutOfBoundsException if there is no such line
+     */
+    public long offsetOf(long line){
+        if(line < 0 || line >= lineCount){
+            throw new IndexOutOfBoundsException("Line " + line + " outside of 0.." + lineCount);
+        }
+        return startOf(line);
+    }
+
+    /**
+     * @param line line number
+     * @return the line without its terminator
+     * @throws IndexOutOfBoundsException if there is no such line
+     * @throws IllegalStateException if the file cannot be read
+     */
+    public String line(long line){
+        ByteBuffer bytes = read(offsetOf(line), startOf(line + 1));
+        int end = bytes.limit();
+        if(end > 0 && bytes.get(end - 1) == '\n'){
+            end--;
+        }
+        if(end > 0 && bytes.get(end - 1) == '\r'){
+            end--;
+        }
+        bytes.limit(end);
+        return charset.decode(bytes).toString();
+    }
+
+    /**
+     * Read consecutive lines with one positional read.
+     *
+     * @param from first line number
+     * @param to line number after the last line
+     * @return the lines without their terminators
+     * @throws IndexOutOfBoundsException if the range is not within the file
+     * @throws IllegalStateException if the file cannot be read
+     */
+    public List<String> lines(long from, long to){
+        if(from < 0 || to > lineCount || from > to){
+            throw new IndexOutOfBoundsException("Lines " + from + ".." + to + " outside of 0.." + lineCount);
+        }
+        List<String> lines = new ArrayList<>((int) Math.min(to - from, Integer.MAX_VALUE));
+        if(from < to){
+            LineScanner.forEachLine(read(startOf(from), startOf(to)), line -> lines.add(charset.decode(line).toString()));
+        }
+        return lines;
+    }
+
+    @Override
+    public void close(){
+        try {
+            channel.close();
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to close " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString(){
+        return "LineIndex{file=" + file + ", lines=" + lineCount + ", size=" + fileSize + "}";
+    }
+
+    // Offset where the line starts, or the file size for lineCount.
+    private long startOf(long line){
+        if(line == lineCount){
+            return fileSize;
+        }
+        int checkpoint = (int) (line / CHECKPOINT_INTERVAL);
+        long offset = checkpointOffsets[checkpoint];
+        int position = checkpointPositions[checkpoint];
+        for(long skip = line % CHECKPOINT_INTERVAL; skip > 0; skip--){
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = deltas[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            }while(b < 0);
+            offset += delta;
+        }
+        return offset;
+    }
+
+    private ByteBuffer read(long start, long end){
+        if(end - start > Integer.MAX_VALUE){
+            throw new IllegalStateException("Cannot read " + (end - start) + " bytes of " + file + " at once");
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        try {
+            while(bytes.hasRemaining()){
+                if(channel.read(bytes, start + bytes.position()) < 0){
+                    throw new IllegalStateException(file + " is shorter than when it was indexed");
+                }
+            }
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to read " + file + " due to " + e.getMessage(), e);
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    private static LineIndex load(Path file, Charset charset){
+        checkCharset(charset);
+        Path sidecar = sidecarOf(file);
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(sidecar), BUFFER_SIZE))){
+            long sidecarSize = Files.size(sidecar);
+            if(in.readInt() != MAGIC || in.readInt() != VERSION){
+                return null;
+            }
+            long fileSize = in.readLong();
+            long modified = in.readLong();
+            long lineCount = in.readLong();
+            int checkpoints = in.readInt();
+            // Sizes come from the sidecar: check them before allocating anything.
+            if(fileSize < 0 || lineCount < 0 || lineCount > fileSize + 1
+                  || checkpoints != (lineCount + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL
+                  || checkpoints > (sidecarSize - HEADER_SIZE) / CHECKPOINT_SIZE){
+                return null;
+            }
+            long[] offsets = new long[checkpoints];
+            int[] positions = new int[checkpoints];
+            for(int i = 0; i < checkpoints; i++){
+                offsets[i] = in.readLong();
+                positions[i] = in.readInt();
+            }
+            int length = in.readInt();
+            if(length != sidecarSize - HEADER_SIZE - (long) checkpoints * CHECKPOINT_SIZE){
+                return null;
+            }
+            for(int i = 0; i < checkpoints; i++){
+                if(offsets[i] < 0 || offsets[i] > fileSize || positions[i] < 0 || positions[i] > length){
+                    return null;
+                }
+            }
+            byte[] deltas = new byte[length];
+            in.readFully(deltas);
+            return new LineIndex(file, charset, fileSize, modified, lineCount, offsets, positions, deltas);
+        }catch (IOException | RuntimeException e){
+            // Missing, unreadable, truncated or corrupt: build it again.
+            return null;
+        }
+    }
+
+    private static void checkCharset(Charset charset){
+        byte[] encoded = charset.canEncode() ? "\n\r".getBytes(charset) : new byte[0];
+        if(encoded.length != 2 || encoded[0] != '\n' || encoded[1] != '\r'){
+            throw new IllegalArgumentException(charset + " does not encode line terminators as single bytes");
+        }
+    }
+
+    /*
+    Collects line starts while the file is scanned.  A line starts at the first byte after a
+    terminator, so a terminator at the end of the file adds no line.
+     */
+    private static final class Builder {
+        long[] checkpointOffsets = new long[16];
+        int[] checkpointPositions = new int[16];
+        byte[] deltas = new byte[1024];
+        int length;
+        long lines;
+        long lastStart;
+
+        void addLine(long start){
+            if(lines % CHECKPOINT_INTERVAL == 0){
+                int checkpoint = (int) (lines / CHECKPOINT_INTERVAL);
+                if(checkpoint == checkpointOffsets.length){
+                    checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpoint * 2);
+                    checkpointPositions = Arrays.copyOf(checkpointPositions, checkpoint * 2);
+                }
+                checkpointOffsets[checkpoint] = start;
+                checkpointPositions[checkpoint] = length;
+            }else{
+                writeDelta(start - lastStart);
+            }
+            lastStart = start;
+            lines++;
+        }
+
+        private void writeDelta(long delta){
+            if(length + 10 > deltas.length){
+                if(deltas.length == Integer.MAX_VALUE - 8){
+                    throw new IllegalStateException("Too many lines to index");
+                }
+                deltas = Arrays.copyOf(deltas, (int) Math.min((long) deltas.length * 2, Integer.MAX_VALUE - 8));
+            }
+            while((delta & ~0x7FL) != 0){
+                deltas[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            deltas[length++] = (byte) delta;
+        }
+
+        LineIndex finish(Path file, Charset charset, long size, long modified){
+            int checkpoints = (int) ((lines + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL);
+            return new LineIndex(file, charset, size, modified, lines,
+                  Arrays.copyOf(checkpointOffsets, checkpoints), Arrays.copyOf(checkpointPositions, checkpoints),
+                  Arrays.copyOf(deltas, length));
+        }
+    }
+}
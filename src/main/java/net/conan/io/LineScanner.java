@@ -0,0 +1,687 @@
+package net.conan.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * <p>Scans lines without creating a String per line.  The consumer receives a reusable view of
+ * each line, a {@link Line} over the decoded characters or a {@link ByteBuffer} over the raw
+ * bytes, that is only valid during the callback: copy what has to be kept, with
+ * {@link Line#toString()} for instance.  Lines end at <code>"\n"</code>, <code>"\r"</code>
+ * or <code>"\r\n"</code>, as with {@link java.nio.file.Files#lines(Path)}.</p>
+ *
+ * <p>Views split into fields and parse numbers in place, so a consumer checking a prefix or
+ * summing a column allocates nothing:</p>
+ *
+ * <pre>    long[] total = {0};
+ *    new LineScanner().scan(path, line -> {
+ *        if(line.startsWith("GET")){
+ *            total[0] += line.field(3, ' ').parseLong();
+ *        }
+ *    });</pre>
+ *
+ * <p>Files are read through a buffer of {@link #withBufferSize(int) bufferSize} bytes, which
+ * grows to hold the longest line.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class LineScanner {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Charset charset;
+    private final int bufferSize;
+
+    /**
+     * A UTF-8 scanner with the default buffer size.
+     */
+    public LineScanner(){
+        this(StandardCharsets.UTF_8, DEFAULT_BUFFER_SIZE);
+    }
+
+    private LineScanner(Charset charset, int bufferSize){
+        this.charset = charset;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @param charset charset of the files, used by {@link #scan(Path, Consumer)}
+     * @return a copy decoding the given charset
+     */
+    public LineScanner withCharset(Charset charset){
+        return new LineScanner(charset, bufferSize);
+    }
+
+    /**
+     * @param bufferSize initial size of the read buffers
+     * @return a copy reading with the given buffer size
+     * @throws IllegalArgumentException if bufferSize is less than 16
+     */
+    public LineScanner withBufferSize(int bufferSize){
+        if(bufferSize < 16){
+            throw new IllegalArgumentException("Buffer size must be at least 16, got " + bufferSize);
+        }
+        return new LineScanner(charset, bufferSize);
+    }
+
+    /**
+     * Scan the decoded lines of a file.
+     *
+     * @param file file to read
+     * @param consumer receives a view of each line, valid only during the call
+     * @return number of lines
+     * @throws IllegalStateException if the file cannot be read or decoded
+     */
+    public long scan(Path file, Consumer<Line> consumer){
+        CharsetDecoder decoder = charset.newDecoder()
+              .onMalformedInput(CodingErrorAction.REPORT)
+              .onUnmappableCharacter(CodingErrorAction.REPORT);
+        ByteBuffer bytes = ByteBuffer.allocate(bufferSize);
+        CharBuffer chars = CharBuffer.allocate(bufferSize);
+        CharSplitter splitter = new CharSplitter(consumer);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            boolean eof = false;
+            while(true){
+                if(!eof && channel.read(bytes) < 0){
+                    eof = true;
+                }
+                bytes.flip();
+                CoderResult result = decoder.decode(bytes, chars, eof);
+                if(result.isError()){
+                    result.throwException();
+                }
+                boolean done = eof && result.isUnderflow();
+                if(done){
+                    while(decoder.flush(chars).isOverflow()){
+                        chars = grow(chars);
+                    }
+                }
+                bytes.compact();
+                chars.flip();
+                splitter.split(chars, done);
+                if(done){
+                    return splitter.count;
+                }
+                chars.compact();
+                if(!chars.hasRemaining()){
+                    chars = grow(chars);
+                }
+            }
+        }catch (CharacterCodingException e){
+            throw new IllegalStateException("Failed to decode " + file + " as " + charset + " after line " + splitter.count, e);
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to read " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Scan the raw lines of a file, without decoding them.  Fits single byte and UTF-8
+     * content, where the bytes of <code>'\n'</code> and <code>'\r'</code> never occur
+     * inside other characters.
+     *
+     * @param file file to read
+     * @param consumer receives a read only buffer whose position and limit enclose the line,
+     *                 valid only during the call
+     * @return number of lines
+     * @throws IllegalStateException if the file cannot be read
+     */
+    public long scanBytes(Path file, Consumer<ByteBuffer> consumer){
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        ByteSplitter splitter = new ByteSplitter(consumer, buffer);
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            while(true){
+                boolean done = channel.read(buffer) < 0;
+                buffer.flip();
+                splitter.split(buffer, done);
+                if(done){
+                    return splitter.count;
+                }
+                buffer.compact();
+                if(!buffer.hasRemaining()){
+                    ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                    splitter.view = buffer.asReadOnlyBuffer();
+                }
+            }
+        }catch (IOException e){
+            throw new IllegalStateException("Failed to read " + file + " due to " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Scan the lines between the position and the limit of text, which is left unchanged.
+     *
+     * @param text characters to scan
+     * @param consumer receives a view of each line, valid only during the call
+     * @return number of lines
+     */
+    public static long forEachLine(CharBuffer text, Consumer<Line> consumer){
+        CharBuffer chars = text;
+        if(!text.hasArray() || text.isReadOnly()){
+            chars = CharBuffer.allocate(text.remaining());
+            chars.put(text.duplicate()).flip();
+        }
+        CharSplitter splitter = new CharSplitter(consumer);
+        splitter.split(chars.duplicate(), true);
+        return splitter.count;
+    }
+
+    /**
+     * Scan the raw lines between the position and the limit of bytes, which is left
+     * unchanged.  Works on memory mapped files as on any other buffer.
+     *
+     * @param bytes bytes to scan
+     * @param consumer receives a read only buffer whose position and limit enclose the line,
+     *                 valid only during the call
+     * @return number of lines
+     */
+    public static long forEachLine(ByteBuffer bytes, Consumer<ByteBuffer> consumer){
+        ByteSplitter splitter = new ByteSplitter(consumer, bytes);
+        splitter.split(bytes.duplicate(), true);
+        return splitter.count;
+    }
+
+    /**
+     * @param line buffer to search
+     * @param b byte to find
+     * @param from absolute index to start at
+     * @return absolute index of the first b at or after from and before the limit, or -1
+     */
+    public static int indexOf(ByteBuffer line, byte b, int from){
+        for(int i = Math.max(from, line.position()); i < line.limit(); i++){
+            if(line.get(i) == b){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse ASCII decimal digits, with an optional sign, in place.
+     *
+     * @param line buffer holding the number
+     * @param from absolute index of the first byte
+     * @param to absolute index after the last byte
+     * @return the number
+     * @throws NumberFormatException if the bytes are not a decimal long
+     */
+    public static long parseLong(ByteBuffer line, int from, int to){
+        if(from >= to){
+            throw new NumberFormatException("Empty number at " + from);
+        }
+        int i = from;
+        boolean negative = false;
+        byte first = line.get(i);
+        if(first == '-' || first == '+'){
+            negative = first == '-';
+            if(++i == to){
+                throw new NumberFormatException("Sign without digits at " + from);
+            }
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for(; i < to; i++){
+            int digit = line.get(i) - '0';
+            if(digit < 0 || digit > 9 || value < limit / 10 || value * 10 < limit + digit){
+                throw new NumberFormatException("Not a long between " + from + " and " + to);
+            }
+            // Accumulated negatively, as Long.MIN_VALUE has no positive counterpart.
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    private static CharBuffer grow(CharBuffer chars){
+        CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+        chars.flip();
+        larger.put(chars);
+        return larger;
+    }
+
+    /*
+    Hands complete lines from successive buffer contents to the consumer.  A "\r" ending one
+    content may be followed by the "\n" starting the next, which then belongs to the same line.
+     */
+    private static final class CharSplitter {
+        final Consumer<Line> consumer;
+        final Line line = new Line();
+        boolean skipLineFeed;
+        long count;
+
+        CharSplitter(Consumer<Line> consumer){
+            this.consumer = consumer;
+        }
+
+        // Consumes the complete lines, or all lines when last, and moves the position past them.
+        void split(CharBuffer chars, boolean last){
+            char[] array = chars.array();
+            int offset = chars.arrayOffset();
+            int start = offset + chars.position();
+            int end = offset + chars.limit();
+            if(skipLineFeed && start < end){
+                skipLineFeed = false;
+                if(array[start] == '\n'){
+                    start++;
+                }
+            }
+            for(int i = start; i < end; i++){
+                char c = array[i];
+                if(c == '\n' || c == '\r'){
+                    emit(array, start, i);
+                    if(c == '\r'){
+                        if(i + 1 == end){
+                            skipLineFeed = true;
+                        }else if(array[i + 1] == '\n'){
+                            i++;
+                        }
+                    }
+                    start = i + 1;
+                }
+            }
+            if(last && start < end){
+                emit(array, start, end);
+                start = end;
+            }
+            chars.position(start - offset);
+        }
+
+        private void emit(char[] array, int start, int end){
+            line.set(array, start, end, ++count);
+            consumer.accept(line);
+        }
+    }
+
+    private static final class ByteSplitter {
+        final Consumer<ByteBuffer> consumer;
+        ByteBuffer view;
+        boolean skipLineFeed;
+        long count;
+
+        ByteSplitter(Consumer<ByteBuffer> consumer, ByteBuffer buffer){
+            this.consumer = consumer;
+            this.view = buffer.asReadOnlyBuffer();
+        }
+
+        void split(ByteBuffer bytes, boolean last){
+            int start = bytes.position();
+            int end = bytes.limit();
+            if(skipLineFeed && start < end){
+                skipLineFeed = false;
+                if(bytes.get(start) == '\n'){
+                    start++;
+                }
+            }
+            for(int i = start; i < end; i++){
+                byte b = bytes.get(i);
+                if(b == '\n' || b == '\r'){
+                    emit(start, i);
+                    if(b == '\r'){
+                        if(i + 1 == end){
+                            skipLineFeed = true;
+                        }else if(bytes.get(i + 1) == '\n'){
+                            i++;
+                        }
+                    }
+                    start = i + 1;
+                }
+            }
+            if(last && start < end){
+                emit(start, end);
+                start = end;
+            }
+            bytes.position(start);
+        }
+
+        private void emit(int start, int end){
+            view.limit(end).position(start);
+            count++;
+            consumer.accept(view);
+            view.clear();
+        }
+    }
+
+    /**
+     * <p>A reusable view of characters in a larger array.  Reading methods never allocate,
+     * except {@link #toString()}, {@link #subSequence(int, int)} and parsing numbers that
+     * need the general algorithm of {@link Double#parseDouble(String)}.</p>
+     */
+    public static abstract class View implements CharSequence {
+        private static final double[] POWERS_OF_TEN = {
+              1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+              1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        char[] chars;
+        int start;
+        int end;
+
+        View(){
+        }
+
+        @Override
+        public int length(){
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index){
+            if(index < 0 || index >= end - start){
+                throw new IndexOutOfBoundsException("Index " + index + " outside of 0.." + (end - start));
+            }
+            return chars[start + index];
+        }
+
+        /**
+         * @return a copy of the characters, which outlives the view
+         */
+        @Override
+        public CharSequence subSequence(int from, int to){
+            if(from < 0 || to > end - start || from > to){
+                throw new IndexOutOfBoundsException("Range " + from + ".." + to + " outside of 0.." + (end - start));
+            }
+            return new String(chars, start + from, to - from);
+        }
+
+        /**
+         * @return a copy of the characters, which outlives the view
+         */
+        @Override
+        public String toString(){
+            return new String(chars, start, end - start);
+        }
+
+        /**
+         * @param c character to find
+         * @param from index to start at
+         * @return index of the first c at or after from, or -1
+         */
+        public int indexOf(char c, int from){
+            for(int i = start + Math.max(from, 0); i < end; i++){
+                if(chars[i] == c){
+                    return i - start;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param c character to find
+         * @return index of the first c, or -1
+         */
+        public int indexOf(char c){
+            return indexOf(c, 0);
+        }
+
+        /**
+         * @param prefix characters to compare
+         * @return true if this view starts with prefix
+         */
+        public boolean startsWith(CharSequence prefix){
+            return regionMatches(0, prefix);
+        }
+
+        /**
+         * @param suffix characters to compare
+         * @return true if this view ends with suffix
+         */
+        public boolean endsWith(CharSequence suffix){
+            return regionMatches(length() - suffix.length(), suffix);
+        }
+
+        /**
+         * @param other characters to compare
+         * @return true if this view holds the same characters as other
+         */
+        public boolean contentEquals(CharSequence other){
+            return other.length() == length() && regionMatches(0, other);
+        }
+
+        private boolean regionMatches(int from, CharSequence other){
+            int length = other.length();
+            if(from < 0 || from + length > end - start){
+                return false;
+            }
+            for(int i = 0; i < length; i++){
+                if(chars[start + from + i] != other.charAt(i)){
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the characters as a decimal long
+         * @throws NumberFormatException if they are not one
+         */
+        public long parseLong(){
+            if(start == end){
+                throw new NumberFormatException("For input string: \"\"");
+            }
+            int i = start;
+            boolean negative = false;
+            char first = chars[i];
+            if(first == '-' || first == '+'){
+                negative = first == '-';
+                if(++i == end){
+                    throw new NumberFormatException("For input string: \"" + this + "\"");
+                }
+            }
+            long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+            long value = 0;
+            for(; i < end; i++){
+                int digit = chars[i] - '0';
+                if(digit < 0 || digit > 9 || value < limit / 10 || value * 10 < limit + digit){
+                    throw new NumberFormatException("For input string: \"" + this + "\"");
+                }
+                value = value * 10 - digit;
+            }
+            return negative ? value : -value;
+        }
+
+        /**
+         * @return the characters as a decimal int
+         * @throws NumberFormatException if they are not one
+         */
+        public int parseInt(){
+            long value = parseLong();
+            if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE){
+                throw new NumberFormatException("For input string: \"" + this + "\"");
+            }
+            return (int) value;
+        }
+
+        /**
+         * Parse a double as {@link Double#parseDouble(String)} does.  Plain decimals of at most
+         * 15 significant digits and small exponents, the common case, are converted in place
+         * and exactly; anything else goes through a String.
+         *
+         * @return the characters as a double
+         * @throws NumberFormatException if they are not one
+         */
+        public double parseDouble(){
+            int i = start;
+            boolean negative = false;
+            if(i < end && (chars[i] == '-' || chars[i] == '+')){
+                negative = chars[i++] == '-';
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = 0;
+            boolean point = false;
+            boolean any = false;
+            for(; i < end; i++){
+                char c = chars[i];
+                if(c >= '0' && c <= '9'){
+                    any = true;
+                    if(mantissa != 0 || c != '0'){
+                        digits++;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                    if(point){
+                        scale--;
+                    }
+                    if(digits > 15){
+                        return Double.parseDouble(toString());
+                    }
+                }else if(c == '.' && !point){
+                    point = true;
+                }else{
+                    break;
+                }
+            }
+            if(i < end && any && (chars[i] == 'e' || chars[i] == 'E')){
+                int exponent = 0;
+                boolean negativeExponent = false;
+                if(++i < end && (chars[i] == '-' || chars[i] == '+')){
+                    negativeExponent = chars[i++] == '-';
+                }
+                int first = i;
+                for(; i < end && chars[i] >= '0' && chars[i] <= '9' && exponent < 1000; i++){
+                    exponent = exponent * 10 + (chars[i] - '0');
+                }
+                if(i == first){
+                    return Double.parseDouble(toString());
+                }
+                scale += negativeExponent ? -exponent : exponent;
+            }
+            if(i != end || !any || scale < -22 || scale > 22){
+                return Double.parseDouble(toString());
+            }
+            // Both the mantissa and the power of ten are exact doubles, so one operation rounds correctly.
+            double value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+            return negative ? -value : value;
+        }
+
+        final void set(char[] chars, int start, int end){
+            this.chars = chars;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * One line, without its terminator.  Only valid during the callback it was passed to.
+     */
+    public static final class Line extends View {
+        private final Field field = new Field(this);
+        private long number;
+
+        Line(){
+        }
+
+        /**
+         * @return number of the line, the first being 1
+         */
+        public long number(){
+            return number;
+        }
+
+        /**
+         * @param separator character between fields
+         * @return number of fields; an empty line has one empty field
+         */
+        public int fieldCount(char separator){
+            int count = 1;
+            for(int i = start; i < end; i++){
+                if(chars[i] == separator){
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Iterate over the fields with {@link Field#next()}.  The line has a single field
+         * view, shared with {@link #field(int, char)}.
+         *
+         * @param separator character between fields
+         * @return the line's field view, before the first field
+         */
+        public Field fields(char separator){
+            field.reset(separator);
+            return field;
+        }
+
+        /**
+         * @param index index of the field, the first being 0
+         * @param separator character between fields
+         * @return the line's field view, on the requested field
+         * @throws IndexOutOfBoundsException if the line has fewer fields
+         */
+        public Field field(int index, char separator){
+            field.reset(separator);
+            for(int i = 0; i <= index; i++){
+                if(!field.next()){
+                    throw new IndexOutOfBoundsException("Line " + number + " has " + i + " fields, not " + (index + 1));
+                }
+            }
+            return field;
+        }
+
+        void set(char[] chars, int start, int end, long number){
+            set(chars, start, end);
+            this.number = number;
+        }
+    }
+
+    /**
+     * A field of a {@link Line}, moved from field to field by {@link #next()}.
+     */
+    public static final class Field extends View {
+        private final Line line;
+        private char separator;
+        private int next;
+        private int index;
+
+        Field(Line line){
+            this.line = line;
+        }
+
+        /**
+         * Move to the next field.
+         *
+         * @return false if there are no more fields
+         */
+        public boolean next(){
+            if(next < 0){
+                return false;
+            }
+            int from = next;
+            int to = from;
+            while(to < line.end && line.chars[to] != separator){
+                to++;
+            }
+            set(line.chars, from, to);
+            next = to < line.end ? to + 1 : -1;
+            index++;
+            return true;
+        }
+
+        /**
+         * @return index of the current field, the first being 0
+         */
+        public int index(){
+            return index;
+        }
+
+        void reset(char separator){
+            this.separator = separator;
+            next = line.start;
+            index = -1;
+            set(line.chars, line.start, line.start);
+        }
+    }
+}
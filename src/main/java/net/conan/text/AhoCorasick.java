@@ -0,0 +1,177 @@
+package net.conan.text;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>Finds every occurrence of a fixed set of keywords in a single pass over the text, using
+ * the Aho-Corasick automaton.  The cost of a search depends on the length of the text and the
+ * number of occurrences, not on the number of keywords.</p>
+ *
+ * <p>Instances are immutable and thread safe.  Searching allocates nothing.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class AhoCorasick {
+    private static final int ROOT = 0;
+
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] failure;
+    private final int[][] outputs;
+    private final int[] outputLink;
+    private final int keywordCount;
+
+    /**
+     * @param keywords text to search for.  Empty keywords are reported at the start of every
+     *                 search.
+     */
+    public AhoCorasick(List<String> keywords){
+        keywordCount = keywords.size();
+        List<Map<Character,Integer>> children = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        children.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+        for(int k = 0; k < keywords.size(); k++){
+            int node = ROOT;
+            for(char c : keywords.get(k).toCharArray()){
+                Integer next = children.get(node).get(c);
+                if(next == null){
+                    next = children.size();
+                    children.get(node).put(c, next);
+                    children.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                }
+                node = next;
+            }
+            ends.get(node).add(k);
+        }
+
+        int size = children.size();
+        labels = new char[size][];
+        targets = new int[size][];
+        outputs = new int[size][];
+        for(int node = 0; node < size; node++){
+            Map<Character,Integer> nodeChildren = children.get(node);
+            labels[node] = new char[nodeChildren.size()];
+            targets[node] = new int[nodeChildren.size()];
+            int i = 0;
+            for(Map.Entry<Character,Integer> child : nodeChildren.entrySet()){
+                labels[node][i] = child.getKey();
+                targets[node][i++] = child.getValue();
+            }
+            outputs[node] = ends.get(node).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        // Breadth first, so a node's failure target is always complete before the node itself.
+        failure = new int[size];
+        outputLink = new int[size];
+        Arrays.fill(outputLink, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for(int child : targets[ROOT]){
+            queue.add(child);
+        }
+        while(!queue.isEmpty()){
+            int node = queue.poll();
+            for(int i = 0; i < labels[node].length; i++){
+                int child = targets[node][i];
+                int fallback = failure[node];
+                int next = child(fallback, labels[node][i]);
+                while(next < 0 && fallback != ROOT){
+                    fallback = failure[fallback];
+                    next = child(fallback, labels[node][i]);
+                }
+                failure[child] = next < 0 ? ROOT : next;
+                int target = failure[child];
+                outputLink[child] = outputs[target].length > 0 && target != ROOT ? target : outputLink[target];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @return number of keywords, including duplicates
+     */
+    public int size(){
+        return keywordCount;
+    }
+
+    /**
+     * Report each keyword occurrence in the text.  A keyword that occurs several times is
+     * reported several times.
+     *
+     * @param text text to search
+     * @param onMatch receives the index of the keyword, as given to the constructor
+     */
+    public void forEachMatch(CharSequence text, IntConsumer onMatch){
+        report(ROOT, onMatch);
+        int node = ROOT;
+        for(int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            int next = child(node, c);
+            while(next < 0 && node != ROOT){
+                node = failure[node];
+                next = child(node, c);
+            }
+            node = next < 0 ? ROOT : next;
+            if(node != ROOT){
+                report(node, onMatch);
+            }
+        }
+    }
+
+    /**
+     * @param text text to search
+     * @return true if any keyword occurs in the text
+     */
+    public boolean containsAny(CharSequence text){
+        if(outputs[ROOT].length > 0){
+            return true;
+        }
+        int node = ROOT;
+        for(int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            int next = child(node, c);
+            while(next < 0 && node != ROOT){
+                node = failure[node];
+                next = child(node, c);
+            }
+            node = next < 0 ? ROOT : next;
+            if(outputs[node].length > 0 || outputLink[node] >= 0){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void report(int node, IntConsumer onMatch){
+        for(int current = node; current >= 0; current = outputLink[current]){
+            for(int keyword : outputs[current]){
+                onMatch.accept(keyword);
+            }
+        }
+    }
+
+    private int child(int node, char c){
+        char[] nodeLabels = labels[node];
+        int low = 0;
+        int high = nodeLabels.length - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            if(nodeLabels[mid] < c){
+                low = mid + 1;
+            }else if(nodeLabels[mid] > c){
+                high = mid - 1;
+            }else{
+                return targets[node][mid];
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,256 @@
+package net.conan.text;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * <p>A compiled wildcard pattern, matched without {@link Pattern}.</p>
+ * <ul>
+ *     <li><code>*</code> matches any sequence of characters, including none</li>
+ *     <li><code>?</code> matches exactly one character</li>
+ *     <li><code>\</code> makes the next character literal, so <code>\*</code> matches a star</li>
+ * </ul>
+ * <p>Everything else matches itself, and the whole input must match.  Characters are UTF-16
+ * chars, so <code>?</code> matches half of a surrogate pair.</p>
+ *
+ * <p>The glob is split at its stars into a prefix, a suffix and the segments between them.
+ * The prefix and suffix are compared in place first; the middle segments are then found
+ * left to right, each as early as possible.  Placing each segment at its first occurrence is
+ * always safe when the only wildcards are <code>*</code> and <code>?</code>, so nothing is
+ * ever retried and a match costs at most input length times segment length comparisons.
+ * Matching allocates nothing.</p>
+ *
+ * <p>Instances are immutable and thread safe.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class Glob {
+    private static final char ANY_CHAR = '?';
+    private static final char ANY_SEQUENCE = '*';
+    private static final char ESCAPE = '\\';
+
+    private final String glob;
+    private final Segment prefix;
+    private final Segment suffix;
+    private final Segment[] middle;
+    private final boolean hasStar;
+    private final int minLength;
+
+    private Glob(String glob, List<Segment> segments, boolean hasStar){
+        this.glob = glob;
+        this.hasStar = hasStar;
+        prefix = segments.get(0);
+        suffix = hasStar ? segments.get(segments.size() - 1) : Segment.EMPTY;
+        middle = hasStar ? segments.subList(1, segments.size() - 1).toArray(new Segment[0]) : new Segment[0];
+        int length = 0;
+        for(Segment segment : segments){
+            length += segment.length();
+        }
+        minLength = length;
+    }
+
+    /**
+     * @param glob wildcard pattern
+     * @return the compiled pattern
+     * @throws IllegalArgumentException if the glob ends with an unescaped backslash
+     */
+    public static Glob compile(String glob){
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder chars = new StringBuilder();
+        StringBuilder wildcards = new StringBuilder();
+        boolean hasStar = false;
+        for(int i = 0; i < glob.length(); i++){
+            char c = glob.charAt(i);
+            if(c == ANY_SEQUENCE){
+                segments.add(new Segment(chars.toString(), wildcards.toString()));
+                chars.setLength(0);
+                wildcards.setLength(0);
+                hasStar = true;
+                continue;
+            }
+            if(c == ESCAPE){
+                if(++i == glob.length()){
+                    throw new IllegalArgumentException("Dangling escape at the end of glob " + glob);
+                }
+                c = glob.charAt(i);
+                wildcards.append('0');
+            }else{
+                wildcards.append(c == ANY_CHAR ? '1' : '0');
+            }
+            chars.append(c);
+        }
+        segments.add(new Segment(chars.toString(), wildcards.toString()));
+        return new Glob(glob, segments, hasStar);
+    }
+
+    /**
+     * @param glob text to check
+     * @return true if the text has no unescaped wildcard, so it only matches itself
+     */
+    public static boolean isLiteral(String glob){
+        for(int i = 0; i < glob.length(); i++){
+            char c = glob.charAt(i);
+            if(c == ESCAPE){
+                i++;
+            }else if(c == ANY_CHAR || c == ANY_SEQUENCE){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the glob as given to {@link #compile(String)}
+     */
+    public String glob(){
+        return glob;
+    }
+
+    /**
+     * @return the characters every match starts with, with escapes removed
+     */
+    public String literalPrefix(){
+        return prefix.literalPrefix();
+    }
+
+    /**
+     * @param input text to match
+     * @return true if the whole input matches the glob
+     */
+    public boolean matches(CharSequence input){
+        int length = input.length();
+        if(!hasStar){
+            return length == prefix.length() && prefix.matchesAt(input, 0);
+        }
+        if(length < minLength || !prefix.matchesAt(input, 0)){
+            return false;
+        }
+        int end = length - suffix.length();
+        if(!suffix.matchesAt(input, end)){
+            return false;
+        }
+        int position = prefix.length();
+        for(Segment segment : middle){
+            position = segment.indexIn(input, position, end);
+            if(position < 0){
+                return false;
+            }
+            position += segment.length();
+        }
+        return true;
+    }
+
+    /**
+     * Translate to an equivalent {@link Pattern} expression.
+     *
+     * @return the regular expression
+     */
+    public String toRegex(){
+        // DOTALL, as wildcards also match line terminators
+        StringBuilder regex = new StringBuilder(isLiteral(glob) ? "" : "(?s)");
+        Segment[] all = segments();
+        for(int s = 0; s < all.length; s++){
+            if(s > 0){
+                regex.append(".*");
+            }
+            all[s].appendRegex(regex);
+        }
+        return regex.toString();
+    }
+
+    @Override
+    public String toString(){
+        return glob;
+    }
+
+    private Segment[] segments(){
+        if(!hasStar){
+            return new Segment[]{prefix};
+        }
+        Segment[] all = new Segment[middle.length + 2];
+        all[0] = prefix;
+        System.arraycopy(middle, 0, all, 1, middle.length);
+        all[all.length - 1] = suffix;
+        return all;
+    }
+
+    /*
+    Characters between two stars.  wildcard[i] marks a '?' at position i; it is null when the
+    segment has none, so the common case compares chars only.
+     */
+    private static final class Segment {
+        static final Segment EMPTY = new Segment("", "");
+
+        private final char[] chars;
+        private final boolean[] wildcard;
+
+        Segment(String chars, String wildcards){
+            this.chars = chars.toCharArray();
+            boolean[] marks = null;
+            for(int i = 0; i < wildcards.length(); i++){
+                if(wildcards.charAt(i) == '1'){
+                    if(marks == null){
+                        marks = new boolean[wildcards.length()];
+                    }
+                    marks[i] = true;
+                }
+            }
+            wildcard = marks;
+        }
+
+        int length(){
+            return chars.length;
+        }
+
+        boolean matchesAt(CharSequence input, int offset){
+            if(wildcard == null){
+                for(int i = 0; i < chars.length; i++){
+                    if(input.charAt(offset + i) != chars[i]){
+                        return false;
+                    }
+                }
+            }else{
+                for(int i = 0; i < chars.length; i++){
+                    if(!wildcard[i] && input.charAt(offset + i) != chars[i]){
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        // First position >= from where the segment fits entirely before end, or -1.
+        int indexIn(CharSequence input, int from, int end){
+            for(int last = end - chars.length; from <= last; from++){
+                if(matchesAt(input, from)){
+                    return from;
+                }
+            }
+            return -1;
+        }
+
+        String literalPrefix(){
+            int length = 0;
+            while(length < chars.length && (wildcard == null || !wildcard[length])){
+                length++;
+            }
+            return new String(chars, 0, length);
+        }
+
+        void appendRegex(StringBuilder regex){
+            int literalStart = 0;
+            for(int i = 0; i <= chars.length; i++){
+                if(i == chars.length || (wildcard != null && wildcard[i])){
+                    if(i > literalStart){
+                        regex.append(Pattern.quote(new String(chars, literalStart, i - literalStart)));
+                    }
+                    if(i < chars.length){
+                        regex.append('.');
+                    }
+                    literalStart = i + 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package net.conan.text;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Matches an input against many regular expressions at once and reports which of them
+ * fully match.  The expressions are split by what they need:</p>
+ * <ul>
+ *     <li>Pure literals are found with one hash lookup.</li>
+ *     <li>Everything {@link RegexAutomaton} supports is compiled into one shared automaton,
+ *     so they all cost a single pass over the input together.</li>
+ *     <li>The rest use {@link Pattern}.  Those with a
+ *     {@link RegexLiterals#requiredLiteral(String) required literal} are only tried when an
+ *     {@link AhoCorasick} scan finds that literal in the input.</li>
+ * </ul>
+ *
+ * <p>Instances are thread safe.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class MultiPatternMatcher {
+
+    private final List<String> expressions;
+    private final Pattern[] patterns;
+    private final Map<String,int[]> literals = new HashMap<>();
+    private final RegexAutomaton automaton;
+    private final int[] automatonPatterns;
+    private volatile boolean automatonSaturated;
+    private final int[] fallbackPatterns;
+    private final AhoCorasick prefilter;
+    private final int[] prefilterOwners;
+    private final int[] unfilteredSlots;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * @param regularExpressions expressions in {@link Pattern} syntax
+     * @throws java.util.regex.PatternSyntaxException if any expression is invalid
+     */
+    public MultiPatternMatcher(List<String> regularExpressions){
+        expressions = new ArrayList<>(regularExpressions);
+        patterns = new Pattern[expressions.size()];
+        List<String> automatonExpressions = new ArrayList<>();
+        List<Integer> automatonIndexes = new ArrayList<>();
+        List<Integer> fallbackIndexes = new ArrayList<>();
+
+        for(int i = 0; i < expressions.size(); i++){
+            String expression = expressions.get(i);
+            patterns[i] = Pattern.compile(expression);
+            if(RegexLiterals.isLiteral(expression)){
+                literals.merge(RegexLiterals.literalPrefix(expression), new int[]{i}, MultiPatternMatcher::concat);
+            }else if(RegexAutomaton.isSupported(expression)){
+                automatonExpressions.add(expression);
+                automatonIndexes.add(i);
+            }else{
+                fallbackIndexes.add(i);
+            }
+        }
+
+        automaton = compileAutomaton(automatonExpressions, automatonIndexes, fallbackIndexes);
+        automatonPatterns = automatonIndexes.stream().mapToInt(Integer::intValue).toArray();
+        fallbackPatterns = fallbackIndexes.stream().mapToInt(Integer::intValue).toArray();
+
+        List<String> keywords = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        List<Integer> unfiltered = new ArrayList<>();
+        for(int slot = 0; slot < fallbackPatterns.length; slot++){
+            String required = RegexLiterals.requiredLiteral(expressions.get(fallbackPatterns[slot]));
+            if(required.isEmpty()){
+                unfiltered.add(slot);
+            }else{
+                keywords.add(required);
+                owners.add(slot);
+            }
+        }
+        prefilter = keywords.isEmpty() ? null : new AhoCorasick(keywords);
+        prefilterOwners = owners.stream().mapToInt(Integer::intValue).toArray();
+        unfilteredSlots = unfiltered.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return number of expressions
+     */
+    public int size(){
+        return expressions.size();
+    }
+
+    /**
+     * @param index position of the expression
+     * @return the expression as given to the constructor
+     */
+    public String expression(int index){
+        return expressions.get(index);
+    }
+
+    /**
+     * Report every expression that fully matches the input.  Each index is reported once,
+     * in no particular order.
+     *
+     * @param input text to match
+     * @param onMatch receives the index of each matching expression
+     */
+    public void forEachMatch(CharSequence input, IntConsumer onMatch){
+        visitMatches(input, index -> {
+            onMatch.accept(index);
+            return true;
+        });
+    }
+
+    /*
+    Hand each matching index to onMatch until it returns false.  Returns false if it was stopped.
+     */
+    private boolean visitMatches(CharSequence input, IntPredicate onMatch){
+        if(!literals.isEmpty()){
+            int[] exact = literals.get(input.toString());
+            if(exact != null){
+                for(int index : exact){
+                    if(!onMatch.test(index)){
+                        return false;
+                    }
+                }
+            }
+        }
+
+        Scratch current = scratch.get();
+        if(automaton != null){
+            if(!automatonSaturated){
+                try {
+                    int state = automaton.run(input);
+                    for(int i = 0; i < automaton.acceptedCount(state); i++){
+                        if(!onMatch.test(automatonPatterns[automaton.acceptedPattern(state, i)])){
+                            return false;
+                        }
+                    }
+                }catch (IllegalStateException e){
+                    automatonSaturated = true;
+                }
+            }
+            if(automatonSaturated){
+                for(int index : automatonPatterns){
+                    if(current.matcher(index).reset(input).matches() && !onMatch.test(index)){
+                        return false;
+                    }
+                }
+            }
+        }
+
+        if(fallbackPatterns.length > 0){
+            current.generation++;
+            if(prefilter != null){
+                prefilter.forEachMatch(input, current);
+            }
+            for(int slot : unfilteredSlots){
+                current.marks[slot] = current.generation;
+            }
+            for(int slot = 0; slot < fallbackPatterns.length; slot++){
+                int index = fallbackPatterns[slot];
+                if(current.marks[slot] == current.generation && current.matcher(index).reset(input).matches() &&
+                      !onMatch.test(index)){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param input text to match
+     * @return lowest index of a matching expression, or -1 if none match
+     */
+    public int firstMatch(CharSequence input){
+        int[] first = {-1};
+        forEachMatch(input, index -> {
+            if(first[0] < 0 || index < first[0]){
+                first[0] = index;
+            }
+        });
+        return first[0];
+    }
+
+    /**
+     * Stops at the first matching expression, whichever it is.
+     *
+     * @param input text to match
+     * @return true if any expression fully matches the input
+     */
+    public boolean matchesAny(CharSequence input){
+        return !visitMatches(input, index -> false);
+    }
+
+    /*
+    Compile the supported expressions into one automaton.  The parser accepts expressions too
+    large for the state limit, so those are moved to the Pattern fallback, alone first, then all
+    of them if their union is still too large.  Returns null if none are left.
+     */
+    private static RegexAutomaton compileAutomaton(List<String> automatonExpressions, List<Integer> automatonIndexes,
+                                                   List<Integer> fallbackIndexes){
+        if(automatonExpressions.isEmpty()){
+            return null;
+        }
+        Optional<RegexAutomaton> compiled = RegexAutomaton.compile(automatonExpressions);
+        if(!compiled.isPresent()){
+            for(int i = automatonExpressions.size() - 1; i >= 0; i--){
+                if(!RegexAutomaton.compile(automatonExpressions.get(i)).isPresent()){
+                    automatonExpressions.remove(i);
+                    fallbackIndexes.add(automatonIndexes.remove(i));
+                }
+            }
+            compiled = automatonExpressions.isEmpty() ? Optional.empty() : RegexAutomaton.compile(automatonExpressions);
+            if(!compiled.isPresent()){
+                fallbackIndexes.addAll(automatonIndexes);
+                automatonExpressions.clear();
+                automatonIndexes.clear();
+            }
+            Collections.sort(fallbackIndexes);
+        }
+        return compiled.orElse(null);
+    }
+
+    private static int[] concat(int[] a, int[] b){
+        int[] joined = new int[a.length + b.length];
+        System.arraycopy(a, 0, joined, 0, a.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    /*
+    Per thread state: reusable matchers, and the fallback slots whose required literal was seen
+    for the current input (marks[slot] == generation).
+     */
+    private final class Scratch implements IntConsumer {
+        final Matcher[] matchers = new Matcher[patterns.length];
+        final int[] marks = new int[fallbackPatterns.length];
+        int generation;
+
+        Matcher matcher(int index){
+            if(matchers[index] == null){
+                matchers[index] = patterns[index].matcher("");
+            }
+            return matchers[index];
+        }
+
+        @Override
+        public void accept(int keyword){
+            marks[prefilterOwners[keyword]] = generation;
+        }
+    }
+}
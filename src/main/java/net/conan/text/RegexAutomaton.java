@@ -0,0 +1,773 @@
+package net.conan.text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <p>A deterministic automaton compiled from a subset of {@link java.util.regex.Pattern}
+ * syntax.  Matching never backtracks: each character costs one transition, and the
+ * transition table is built lazily as states are reached.  As with {@link java.util.regex.Pattern},
+ * a character is a code point: a surrogate pair is consumed in one step.</p>
+ *
+ * <p>Supported constructs:</p>
+ * <ul>
+ *     <li>Literals, including escaped meta characters, <code>\t \n \r \f \e \xhh &#92;uhhhh</code>
+ *     and <code>\Q...\E</code> quoting</li>
+ *     <li><code>.</code>, <code>\d \D \w \W \s \S</code> and character classes such as
+ *     <code>[a-z_]</code> or <code>[^0-9]</code></li>
+ *     <li>Groups <code>(...)</code> and <code>(?:...)</code>, alternation <code>|</code></li>
+ *     <li>Greedy and reluctant <code>* + ?</code> and bounded repeats <code>{n} {n,} {n,m}</code></li>
+ *     <li><code>^</code> at the very start and <code>$</code> at the very end</li>
+ * </ul>
+ * <p>Anything else (back references, look-around, possessive quantifiers, inline flags,
+ * nested classes, ...) is not supported and {@link #compile(String)} returns an empty
+ * Optional, so the caller can fall back to {@link java.util.regex.Pattern}.  Only full
+ * matches are computed, as with {@link java.util.regex.Matcher#matches()}.</p>
+ *
+ * <p>Several expressions may be compiled into one automaton.  Each accepting state then
+ * reports which of the expressions matched, by their position in the compiled list.</p>
+ *
+ * <p>Instances are thread safe.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class RegexAutomaton {
+
+    /**
+     * The state reached once no match is possible anymore.  All its transitions lead back
+     * to itself.
+     */
+    public static final int DEAD = 0;
+
+    /**
+     * Upper limit on the number of states built lazily by one automaton.  It bounds memory for
+     * expressions whose deterministic form explodes, such as many <code>.*</code> patterns
+     * compiled together.
+     */
+    public static final int MAX_STATES = 1 << 14;
+
+    private static final int MAX_NFA_STATES = 1 << 14;
+    private static final int UNKNOWN = -1;
+    private static final int ASCII = 128;
+    private static final int[] NO_PATTERNS = new int[0];
+
+    // NFA: CHAR states consume a character in 'sets' and go to 'out1'.  SPLIT states are
+    // epsilon transitions to 'out1' and 'out2' (-1 when absent).  ACCEPT states carry the
+    // pattern index in 'out1'.
+    private static final byte CHAR = 0;
+    private static final byte SPLIT = 1;
+    private static final byte ACCEPT = 2;
+
+    private final byte[] kinds;
+    private final int[][] sets;
+    private final int[] out1;
+    private final int[] out2;
+
+    private final Map<StateSet,Integer> stateIds = new HashMap<>();
+    private volatile DState[] states = new DState[16];
+    private int stateCount;
+    private final int start;
+
+    private RegexAutomaton(Nfa nfa, int nfaStart){
+        kinds = Arrays.copyOf(nfa.kinds, nfa.size);
+        sets = Arrays.copyOf(nfa.sets, nfa.size);
+        out1 = Arrays.copyOf(nfa.out1, nfa.size);
+        out2 = Arrays.copyOf(nfa.out2, nfa.size);
+        synchronized (this) {
+            addState(new int[0]);
+            start = addState(closure(new int[]{nfaStart}));
+        }
+    }
+
+    /**
+     * Compile a single regular expression.
+     *
+     * @param regularExpression expression in {@link java.util.regex.Pattern} syntax
+     * @return the automaton, or an empty Optional if the expression uses unsupported syntax
+     */
+    public static Optional<RegexAutomaton> compile(String regularExpression){
+        return compile(Collections.singletonList(regularExpression));
+    }
+
+    /**
+     * Compile several regular expressions into one automaton.  The index of each
+     * expression in the list is what {@link #acceptedPattern(int, int)} reports.
+     *
+     * @param regularExpressions expressions in {@link java.util.regex.Pattern} syntax
+     * @return the automaton, or an empty Optional if any expression uses unsupported syntax
+     */
+    public static Optional<RegexAutomaton> compile(List<String> regularExpressions){
+        Nfa nfa = new Nfa();
+        int nfaStart = -1;
+        try {
+            for (int i = 0; i < regularExpressions.size(); i++) {
+                Node node = new Parser(regularExpressions.get(i)).parse();
+                int accept = nfa.add(ACCEPT, null, i, -1);
+                int entry = node.build(nfa, accept);
+                nfaStart = nfaStart < 0 ? entry : nfa.add(SPLIT, null, nfaStart, entry);
+            }
+        }catch (UnsupportedSyntax e){
+            return Optional.empty();
+        }
+        if(nfaStart < 0){
+            return Optional.empty();
+        }
+        return Optional.of(new RegexAutomaton(nfa, nfaStart));
+    }
+
+    /**
+     * @param regularExpression expression in {@link java.util.regex.Pattern} syntax
+     * @return true if the expression only uses syntax this class supports
+     */
+    public static boolean isSupported(String regularExpression){
+        try {
+            new Parser(regularExpression).parse();
+            return true;
+        }catch (UnsupportedSyntax e){
+            return false;
+        }
+    }
+
+    /**
+     * @return the state before any character has been consumed
+     */
+    public int start(){
+        return start;
+    }
+
+    /**
+     * Consume one character.
+     *
+     * @param state current state
+     * @param c next code point; a surrogate pair must be combined, as by {@link Character#codePointAt(CharSequence, int)}
+     * @return the following state
+     * @throws IllegalStateException if the transition needs a new state and {@link #MAX_STATES}
+     * states exist already
+     */
+    public int step(int state, int c){
+        DState current = states[state];
+        if(c < ASCII){
+            int next = current.ascii[c];
+            if(next != UNKNOWN){
+                DState[] snapshot = states;
+                if(next < snapshot.length && snapshot[next] != null){
+                    return next;
+                }
+            }
+        }
+        return computeStep(state, c);
+    }
+
+    /**
+     * @param state any state
+     * @return true if no further input can lead to a match
+     */
+    public boolean isDead(int state){
+        return state == DEAD;
+    }
+
+    /**
+     * @param state any state
+     * @return true if the input consumed so far is a full match of at least one expression
+     */
+    public boolean isAccepting(int state){
+        return states[state].accepts.length > 0;
+    }
+
+    /**
+     * @param state any state
+     * @return number of expressions the input consumed so far fully matches
+     */
+    public int acceptedCount(int state){
+        return states[state].accepts.length;
+    }
+
+    /**
+     * @param state any state
+     * @param i index between 0 and {@link #acceptedCount(int)}, exclusive
+     * @return position of the matched expression in the compiled list
+     */
+    public int acceptedPattern(int state, int i){
+        return states[state].accepts[i];
+    }
+
+    /**
+     * Full match of the input, equivalent to {@link java.util.regex.Matcher#matches()}.
+     *
+     * @param input text to match
+     * @return true if any of the compiled expressions matches the whole input
+     */
+    public boolean matches(CharSequence input){
+        return isAccepting(run(input));
+    }
+
+    /**
+     * @param input text to consume
+     * @return state after consuming all of input from {@link #start()}
+     * @throws IllegalStateException if {@link #MAX_STATES} is reached
+     */
+    public int run(CharSequence input){
+        int state = start;
+        for(int i = 0; i < input.length() && state != DEAD; ){
+            int codePoint = Character.codePointAt(input, i);
+            state = step(state, codePoint);
+            i += Character.charCount(codePoint);
+        }
+        return state;
+    }
+
+    private synchronized int computeStep(int state, int c){
+        DState current = states[state];
+        Integer known = c < ASCII ? (current.ascii[c] == UNKNOWN ? null : current.ascii[c]) : current.other.get(c);
+        if(known != null){
+            return known;
+        }
+        int[] moved = new int[current.nfaStates.length];
+        int count = 0;
+        for(int nfaState : current.nfaStates){
+            if(kinds[nfaState] == CHAR && contains(sets[nfaState], c)){
+                moved[count++] = out1[nfaState];
+            }
+        }
+        int next = count == 0 ? DEAD : addState(closure(Arrays.copyOf(moved, count)));
+        if(c < ASCII){
+            current.ascii[c] = next;
+        }else{
+            current.other.put(c, next);
+        }
+        return next;
+    }
+
+    private int addState(int[] nfaStates){
+        StateSet key = new StateSet(nfaStates);
+        Integer id = stateIds.get(key);
+        if(id != null){
+            return id;
+        }
+        if(stateCount == MAX_STATES){
+            throw new IllegalStateException("Automaton reached its limit of " + MAX_STATES + " states");
+        }
+        List<Integer> accepts = new ArrayList<>();
+        for(int nfaState : nfaStates){
+            if(kinds[nfaState] == ACCEPT && !accepts.contains(out1[nfaState])){
+                accepts.add(out1[nfaState]);
+            }
+        }
+        int[] acceptArray = accepts.isEmpty() ? NO_PATTERNS : accepts.stream().mapToInt(Integer::intValue).sorted().toArray();
+        DState state = new DState(nfaStates, acceptArray);
+        if(stateCount == 0){
+            Arrays.fill(state.ascii, DEAD);
+        }
+        DState[] grown = stateCount < states.length ? states : Arrays.copyOf(states, states.length * 2);
+        grown[stateCount] = state;
+        states = grown;
+        stateIds.put(key, stateCount);
+        return stateCount++;
+    }
+
+    // Epsilon closure, keeping only the states that matter for transitions and acceptance.
+    private int[] closure(int[] seeds){
+        boolean[] seen = new boolean[kinds.length];
+        int[] stack = new int[kinds.length];
+        int top = 0;
+        int[] result = new int[kinds.length];
+        int count = 0;
+        for(int seed : seeds){
+            if(!seen[seed]){
+                seen[seed] = true;
+                stack[top++] = seed;
+            }
+        }
+        while(top > 0){
+            int s = stack[--top];
+            if(kinds[s] == SPLIT){
+                for(int target : new int[]{out1[s], out2[s]}){
+                    if(target >= 0 && !seen[target]){
+                        seen[target] = true;
+                        stack[top++] = target;
+                    }
+                }
+            }else{
+                result[count++] = s;
+            }
+        }
+        int[] closed = Arrays.copyOf(result, count);
+        Arrays.sort(closed);
+        return closed;
+    }
+
+    private static boolean contains(int[] ranges, int c){
+        int low = 0;
+        int high = ranges.length / 2 - 1;
+        while(low <= high){
+            int mid = (low + high) >>> 1;
+            if(c < ranges[mid * 2]){
+                high = mid - 1;
+            }else if(c > ranges[mid * 2 + 1]){
+                low = mid + 1;
+            }else{
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class DState {
+        final int[] nfaStates;
+        final int[] accepts;
+        final int[] ascii = new int[ASCII];
+        final Map<Integer,Integer> other = new HashMap<>();
+
+        DState(int[] nfaStates, int[] accepts){
+            this.nfaStates = nfaStates;
+            this.accepts = accepts;
+            Arrays.fill(ascii, UNKNOWN);
+        }
+    }
+
+    private static final class StateSet {
+        private final int[] members;
+        private final int hash;
+
+        StateSet(int[] members){
+            this.members = members;
+            hash = Arrays.hashCode(members);
+        }
+
+        @Override
+        public int hashCode(){
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            return o instanceof StateSet && Arrays.equals(members, ((StateSet) o).members);
+        }
+    }
+
+    /*
+    Growable NFA arrays used while compiling.
+     */
+    private static final class Nfa {
+        byte[] kinds = new byte[64];
+        int[][] sets = new int[64][];
+        int[] out1 = new int[64];
+        int[] out2 = new int[64];
+        int size;
+
+        int add(byte kind, int[] set, int first, int second){
+            if(size == MAX_NFA_STATES){
+                throw new UnsupportedSyntax();
+            }
+            if(size == kinds.length){
+                kinds = Arrays.copyOf(kinds, size * 2);
+                sets = Arrays.copyOf(sets, size * 2);
+                out1 = Arrays.copyOf(out1, size * 2);
+                out2 = Arrays.copyOf(out2, size * 2);
+            }
+            kinds[size] = kind;
+            sets[size] = set;
+            out1[size] = first;
+            out2[size] = second;
+            return size++;
+        }
+    }
+
+    /*
+    Syntax tree.  build(..) emits the NFA for the node in front of 'next' and returns its entry state.
+     */
+    private interface Node {
+        int build(Nfa nfa, int next);
+    }
+
+    private static final class CharNode implements Node {
+        final int[] ranges;
+
+        CharNode(int[] ranges){
+            this.ranges = ranges;
+        }
+
+        @Override
+        public int build(Nfa nfa, int next){
+            return nfa.add(CHAR, ranges, next, -1);
+        }
+    }
+
+    private static final class SequenceNode implements Node {
+        final List<Node> parts;
+
+        SequenceNode(List<Node> parts){
+            this.parts = parts;
+        }
+
+        @Override
+        public int build(Nfa nfa, int next){
+            int entry = next;
+            for(int i = parts.size() - 1; i >= 0; i--){
+                entry = parts.get(i).build(nfa, entry);
+            }
+            return entry;
+        }
+    }
+
+    private static final class AlternationNode implements Node {
+        final List<Node> choices;
+
+        AlternationNode(List<Node> choices){
+            this.choices = choices;
+        }
+
+        @Override
+        public int build(Nfa nfa, int next){
+            int entry = choices.get(0).build(nfa, next);
+            for(int i = 1; i < choices.size(); i++){
+                entry = nfa.add(SPLIT, null, entry, choices.get(i).build(nfa, next));
+            }
+            return entry;
+        }
+    }
+
+    private static final class RepeatNode implements Node {
+        final Node node;
+        final int min;
+        final int max; // -1 for unbounded
+
+        RepeatNode(Node node, int min, int max){
+            this.node = node;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int build(Nfa nfa, int next){
+            int entry;
+            if(max < 0){
+                int loop = nfa.add(SPLIT, null, -1, next);
+                nfa.out1[loop] = node.build(nfa, loop);
+                entry = loop;
+            }else{
+                entry = next;
+                for(int i = min; i < max; i++){
+                    entry = nfa.add(SPLIT, null, node.build(nfa, entry), next);
+                }
+            }
+            for(int i = 0; i < min; i++){
+                entry = node.build(nfa, entry);
+            }
+            return entry;
+        }
+    }
+
+    private static final class UnsupportedSyntax extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedSyntax(){
+            super(null, null, false, false);
+        }
+    }
+
+    /*
+    Recursive descent parser for the supported subset.  Throws UnsupportedSyntax for anything else,
+    including malformed expressions, which Pattern will then report properly.
+     */
+    private static final class Parser {
+        private static final int[] ANY = {0, Character.MAX_CODE_POINT};
+        private static final int[] DOT = {0, 9, 11, 12, 14, 0x84, 0x86, 0x2027, 0x202A, Character.MAX_CODE_POINT};
+        private static final int[] DIGIT = {'0', '9'};
+        private static final int[] WORD = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+        private static final int[] SPACE = {9, 13, ' ', ' '};
+
+        private final String regex;
+        private int pos;
+
+        Parser(String regex){
+            this.regex = regex;
+        }
+
+        Node parse(){
+            if(regex.startsWith("^")){
+                pos++;
+            }
+            Node node = alternation(true);
+            if(pos != regex.length()){
+                throw new UnsupportedSyntax();
+            }
+            return node;
+        }
+
+        private Node alternation(boolean topLevel){
+            List<Node> choices = new ArrayList<>();
+            choices.add(sequence(topLevel));
+            while(pos < regex.length() && regex.charAt(pos) == '|'){
+                pos++;
+                choices.add(sequence(topLevel));
+            }
+            return choices.size() == 1 ? choices.get(0) : new AlternationNode(choices);
+        }
+
+        private Node sequence(boolean topLevel){
+            List<Node> parts = new ArrayList<>();
+            while(pos < regex.length()){
+                char c = regex.charAt(pos);
+                if(c == '|' || c == ')'){
+                    break;
+                }
+                if(c == '$' && topLevel && pos == regex.length() - 1){
+                    pos++;
+                    break;
+                }
+                if(c == '\\' && pos + 1 < regex.length() && regex.charAt(pos + 1) == 'Q'){
+                    parts.addAll(quoted());
+                    continue;
+                }
+                parts.add(quantified(atom()));
+            }
+            return new SequenceNode(parts);
+        }
+
+        private List<Node> quoted(){
+            int end = regex.indexOf("\\E", pos + 2);
+            String text = end < 0 ? regex.substring(pos + 2) : regex.substring(pos + 2, end);
+            pos = end < 0 ? regex.length() : end + 2;
+            List<Node> nodes = new ArrayList<>();
+            text.codePoints().forEach(c -> nodes.add(new CharNode(single(c))));
+            if(!nodes.isEmpty()){
+                int last = nodes.size() - 1;
+                nodes.set(last, quantified(nodes.get(last)));
+            }
+            return nodes;
+        }
+
+        private Node atom(){
+            int c = regex.codePointAt(pos);
+            pos += Character.charCount(c);
+            switch (c){
+                case '(':
+                    if(regex.startsWith("?:", pos)){
+                        pos += 2;
+                    }else if(pos < regex.length() && regex.charAt(pos) == '?'){
+                        throw new UnsupportedSyntax();
+                    }
+                    Node group = alternation(false);
+                    expect(')');
+                    return group;
+                case '[':
+                    return new CharNode(characterClass());
+                case '.':
+                    return new CharNode(DOT);
+                case '\\':
+                    return new CharNode(escape(false));
+                case '^': case '$': case '*': case '+': case '?': case '{': case ')': case ']': case '}':
+                    throw new UnsupportedSyntax();
+                default:
+                    return new CharNode(single(c));
+            }
+        }
+
+        private Node quantified(Node node){
+            if(pos >= regex.length()){
+                return node;
+            }
+            int min;
+            int max;
+            char c = regex.charAt(pos);
+            if(c == '*'){
+                min = 0; max = -1; pos++;
+            }else if(c == '+'){
+                min = 1; max = -1; pos++;
+            }else if(c == '?'){
+                min = 0; max = 1; pos++;
+            }else if(c == '{'){
+                pos++;
+                min = number();
+                max = min;
+                if(pos < regex.length() && regex.charAt(pos) == ','){
+                    pos++;
+                    max = pos < regex.length() && regex.charAt(pos) == '}' ? -1 : number();
+                }
+                expect('}');
+                if(max >= 0 && max < min){
+                    throw new UnsupportedSyntax();
+                }
+            }else{
+                return node;
+            }
+            if(pos < regex.length()){
+                char modifier = regex.charAt(pos);
+                if(modifier == '?'){
+                    // Reluctant quantifiers accept the same inputs under full matching.
+                    pos++;
+                }else if(modifier == '+' || modifier == '*' || modifier == '{'){
+                    throw new UnsupportedSyntax();
+                }
+            }
+            return new RepeatNode(node, min, max);
+        }
+
+        private int number(){
+            int begin = pos;
+            while(pos < regex.length() && Character.isDigit(regex.charAt(pos)) && pos - begin < 4){
+                pos++;
+            }
+            if(begin == pos){
+                throw new UnsupportedSyntax();
+            }
+            return Integer.parseInt(regex.substring(begin, pos));
+        }
+
+        private int[] characterClass(){
+            boolean negated = pos < regex.length() && regex.charAt(pos) == '^';
+            if(negated){
+                pos++;
+            }
+            if(pos < regex.length() && regex.charAt(pos) == ']'){
+                throw new UnsupportedSyntax();
+            }
+            List<int[]> parts = new ArrayList<>();
+            while(true){
+                if(pos >= regex.length()){
+                    throw new UnsupportedSyntax();
+                }
+                int c = regex.codePointAt(pos);
+                pos += Character.charCount(c);
+                if(c == ']'){
+                    break;
+                }
+                if(c == '[' || (c == '&' && pos < regex.length() && regex.charAt(pos) == '&')){
+                    throw new UnsupportedSyntax();
+                }
+                int[] low = c == '\\' ? escape(true) : single(c);
+                if(pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']'){
+                    pos++;
+                    int upper = regex.codePointAt(pos);
+                    pos += Character.charCount(upper);
+                    int[] high = upper == '\\' ? escape(true) : single(upper);
+                    if(!isSingle(low) || !isSingle(high) || high[0] < low[0]){
+                        throw new UnsupportedSyntax();
+                    }
+                    parts.add(new int[]{low[0], high[0]});
+                }else{
+                    parts.add(low);
+                }
+            }
+            int[] ranges = union(parts);
+            return negated ? complement(ranges) : ranges;
+        }
+
+        // Called with pos just past the backslash.
+        private int[] escape(boolean inClass){
+            if(pos >= regex.length()){
+                throw new UnsupportedSyntax();
+            }
+            int c = regex.codePointAt(pos);
+            pos += Character.charCount(c);
+            switch (c){
+                case 'd': return DIGIT;
+                case 'D': return complement(DIGIT);
+                case 'w': return WORD;
+                case 'W': return complement(WORD);
+                case 's': return SPACE;
+                case 'S': return complement(SPACE);
+                case 't': return single('\t');
+                case 'n': return single('\n');
+                case 'r': return single('\r');
+                case 'f': return single('\f');
+                case 'e': return single('\u001B');
+                case 'x': return single(hex(2));
+                case 'u': return single(utf16Escape());
+                default:
+                    if(Character.isLetterOrDigit(c)){
+                        throw new UnsupportedSyntax();
+                    }
+                    return single(c);
+            }
+        }
+
+        // Pattern reads a \\u escaped surrogate pair as the one code point it encodes.
+        private int utf16Escape(){
+            char high = (char) hex(4);
+            if(Character.isHighSurrogate(high) && regex.startsWith("\\u", pos)){
+                int mark = pos;
+                pos += 2;
+                char low = (char) hex(4);
+                if(Character.isLowSurrogate(low)){
+                    return Character.toCodePoint(high, low);
+                }
+                pos = mark;
+            }
+            return high;
+        }
+
+        private int hex(int digits){
+            if(pos + digits > regex.length()){
+                throw new UnsupportedSyntax();
+            }
+            try {
+                int value = Integer.parseInt(regex.substring(pos, pos + digits), 16);
+                pos += digits;
+                return value;
+            }catch (NumberFormatException e){
+                throw new UnsupportedSyntax();
+            }
+        }
+
+        private void expect(char c){
+            if(pos >= regex.length() || regex.charAt(pos) != c){
+                throw new UnsupportedSyntax();
+            }
+            pos++;
+        }
+
+        private static int[] single(int c){
+            return new int[]{c, c};
+        }
+
+        private static boolean isSingle(int[] ranges){
+            return ranges.length == 2 && ranges[0] == ranges[1];
+        }
+
+        private static int[] union(List<int[]> parts){
+            List<int[]> pairs = new ArrayList<>();
+            for(int[] part : parts){
+                for(int i = 0; i < part.length; i += 2){
+                    pairs.add(new int[]{part[i], part[i + 1]});
+                }
+            }
+            pairs.sort((a, b) -> Integer.compare(a[0], b[0]));
+            int[] merged = new int[pairs.size() * 2];
+            int count = 0;
+            for(int[] pair : pairs){
+                if(count > 0 && pair[0] <= merged[count - 1] + 1){
+                    merged[count - 1] = Math.max(merged[count - 1], pair[1]);
+                }else{
+                    merged[count++] = pair[0];
+                    merged[count++] = pair[1];
+                }
+            }
+            return Arrays.copyOf(merged, count);
+        }
+
+        private static int[] complement(int[] ranges){
+            int[] result = new int[ranges.length + 2];
+            int count = 0;
+            int next = ANY[0];
+            for(int i = 0; i < ranges.length; i += 2){
+                if(ranges[i] > next){
+                    result[count++] = next;
+                    result[count++] = ranges[i] - 1;
+                }
+                next = ranges[i + 1] + 1;
+            }
+            if(next <= ANY[1]){
+                result[count++] = next;
+                result[count++] = ANY[1];
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+}
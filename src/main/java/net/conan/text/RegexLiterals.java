@@ -0,0 +1,232 @@
+package net.conan.text;
+
+import java.util.regex.Pattern;
+
+/**
+ * <p>Static analysis of {@link Pattern} syntax.  The methods here look for literal text that
+ * every match of a regular expression is guaranteed to contain, so callers can narrow the
+ * candidates before handing anything to a {@link java.util.regex.Matcher}.</p>
+ *
+ * <p>The analysis is deliberately conservative.  Anything it does not understand ends the
+ * literal run, so the answers are always safe but not always the longest possible.</p>
+ *
+ * @author Conan Dombroski
+ */
+public final class RegexLiterals {
+
+    private static final String META_CHARACTERS = "[](){}.*+?^$|";
+    private static final String OPTIONAL_QUANTIFIERS = "?*{";
+
+    private RegexLiterals(){}
+
+    /**
+     * <p>Return the literal text that every full match of the regular expression must start
+     * with.  For example, <code>user\.name.*</code> returns <code>user.name</code> and
+     * <code>ab?c</code> returns <code>a</code>.</p>
+     *
+     * <p>An empty String is returned when the expression has no literal anchor, including
+     * any expression with a top level alternation.</p>
+     *
+     * @param regularExpression expression in {@link Pattern} syntax
+     * @return literal prefix, never null
+     */
+    public static String literalPrefix(String regularExpression){
+        if(hasTopLevelAlternation(regularExpression)){
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int start = regularExpression.startsWith("^") ? 1 : 0;
+        scanLiteral(regularExpression, start, prefix);
+        return prefix.toString();
+    }
+
+    /**
+     * Determine if the regular expression contains nothing but literal text, meaning it
+     * can only ever match a single String.
+     *
+     * @param regularExpression expression in {@link Pattern} syntax
+     * @return true if {@link #literalPrefix(String)} describes the entire expression
+     */
+    public static boolean isLiteral(String regularExpression){
+        if(hasTopLevelAlternation(regularExpression)){
+            return false;
+        }
+        int start = regularExpression.startsWith("^") ? 1 : 0;
+        int end = scanLiteral(regularExpression, start, new StringBuilder());
+        return end == regularExpression.length() ||
+              (end == regularExpression.length() - 1 && regularExpression.endsWith("$") &&
+                    !regularExpression.endsWith("\\$"));
+    }
+
+    /**
+     * <p>Return the longest literal text that every full match of the regular expression must
+     * contain somewhere.  For example, <code>\w+\.log\.\d+</code> returns <code>.log.</code>.
+     * A String that does not contain the result cannot match, which makes it a cheap filter
+     * to run before the full expression.</p>
+     *
+     * <p>An empty String is returned when nothing is guaranteed, including any expression with
+     * a top level alternation or with inline flags, which may change how text is compared.</p>
+     *
+     * @param regularExpression expression in {@link Pattern} syntax
+     * @return required literal, never null
+     */
+    public static String requiredLiteral(String regularExpression){
+        if(hasTopLevelAlternation(regularExpression) || hasSpecialGroup(regularExpression)){
+            return "";
+        }
+        String longest = "";
+        int i = regularExpression.startsWith("^") ? 1 : 0;
+        while(i < regularExpression.length()){
+            StringBuilder run = new StringBuilder();
+            i = scanLiteral(regularExpression, i, run);
+            if(run.length() > longest.length()){
+                longest = run.toString();
+            }
+            if(i < regularExpression.length()){
+                i = skipToken(regularExpression, i);
+            }
+        }
+        return longest;
+    }
+
+    /*
+    Append literal characters starting at 'from' and return the index where the literal run ended.
+    A character followed by an optional quantifier is not part of the run.
+     */
+    private static int scanLiteral(String regex, int from, StringBuilder literal){
+        int i = from;
+        while(i < regex.length()){
+            char c = regex.charAt(i);
+            String text;
+            int length;
+            if(c == '\\'){
+                if(i + 1 >= regex.length()){
+                    return i;
+                }
+                int escaped = regex.codePointAt(i + 1);
+                if(escaped == 'Q'){
+                    int end = regex.indexOf("\\E", i + 2);
+                    text = end < 0 ? regex.substring(i + 2) : regex.substring(i + 2, end);
+                    length = end < 0 ? regex.length() - i : end + 2 - i;
+                }else if(!Character.isLetterOrDigit(escaped)){
+                    text = new String(Character.toChars(escaped));
+                    length = 1 + text.length();
+                }else{
+                    return i;
+                }
+            }else if(META_CHARACTERS.indexOf(c) >= 0){
+                return i;
+            }else{
+                // A surrogate pair is one atom: a quantifier after it repeats the whole code point.
+                text = new String(Character.toChars(regex.codePointAt(i)));
+                length = text.length();
+            }
+
+            int next = i + length;
+            if(next < regex.length() && !text.isEmpty()){
+                char quantifier = regex.charAt(next);
+                if(OPTIONAL_QUANTIFIERS.indexOf(quantifier) >= 0){
+                    int last = Character.charCount(text.codePointBefore(text.length()));
+                    literal.append(text, 0, text.length() - last);
+                    return i;
+                }
+                if(quantifier == '+'){
+                    literal.append(text);
+                    return i;
+                }
+            }
+            literal.append(text);
+            i = next;
+        }
+        return i;
+    }
+
+    /*
+    Return the index just past the token at 'from': an escape, a \Q..\E block, a group, a class,
+    a bounded repeat or any single character.
+     */
+    private static int skipToken(String regex, int from){
+        char c = regex.charAt(from);
+        if(c == '\\'){
+            if(from + 1 < regex.length() && regex.charAt(from + 1) == 'Q'){
+                int end = regex.indexOf("\\E", from + 2);
+                return end < 0 ? regex.length() : end + 2;
+            }
+            return Math.min(from + 2, regex.length());
+        }
+        if(c == '{'){
+            int end = regex.indexOf('}', from);
+            return end < 0 ? regex.length() : end + 1;
+        }
+        if(c != '(' && c != '['){
+            return from + 1;
+        }
+        int depth = 0;
+        boolean inClass = false;
+        for(int i = from; i < regex.length(); i++){
+            char current = regex.charAt(i);
+            if(current == '\\'){
+                i++;
+            }else if(current == '['){
+                inClass = true;
+                depth += c == '[' ? 1 : 0;
+            }else if(current == ']' && inClass){
+                depth -= c == '[' ? 1 : 0;
+                inClass = c == '[' && depth > 0;
+            }else if(!inClass && current == '('){
+                depth++;
+            }else if(!inClass && current == ')'){
+                depth--;
+            }
+            if(depth == 0){
+                return i + 1;
+            }
+        }
+        return regex.length();
+    }
+
+    // Inline flags and look-arounds are not understood by the literal analysis.
+    private static boolean hasSpecialGroup(String regex){
+        for(int i = regex.indexOf("(?"); i >= 0; i = regex.indexOf("(?", i + 2)){
+            int backslashes = 0;
+            while(i - backslashes > 0 && regex.charAt(i - backslashes - 1) == '\\'){
+                backslashes++;
+            }
+            // An odd count escapes the parenthesis, an even count only escapes backslashes.
+            if(backslashes % 2 == 0 && !regex.startsWith("(?:", i)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasTopLevelAlternation(String regex){
+        int depth = 0;
+        boolean inClass = false;
+        for(int i = 0; i < regex.length(); i++){
+            char c = regex.charAt(i);
+            if(c == '\\'){
+                if(i + 1 < regex.length() && regex.charAt(i + 1) == 'Q'){
+                    int end = regex.indexOf("\\E", i + 2);
+                    if(end < 0){
+                        return false;
+                    }
+                    i = end + 1;
+                }else{
+                    i++;
+                }
+            }else if(inClass){
+                inClass = c != ']';
+            }else if(c == '['){
+                inClass = true;
+            }else if(c == '('){
+                depth++;
+            }else if(c == ')'){
+                depth--;
+            }else if(c == '|' && depth == 0){
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,98 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Conan Dombroski
+ */
+@SuppressWarnings("all") // Unit tests don't need warnings.
+public class AutomatonStringKeysLookupTest {
+
+    @Test
+    public void testLookup() throws Exception {
+        Map<String,List<String>> map = new HashMap<>();
+        map.put("Food List", Arrays.asList("apple","orange","steak","kiwi"));
+        map.put("Auto Makers",Arrays.asList("BMW","Porsche","Ferrari"));
+        map.put("Software Companies",Arrays.asList("Microsoft","IBM","Vertafore"));
+        AutomatonStringKeysLookup lookup = new AutomatonStringKeysLookup();
+        List<List<String>> lists = lookup.lookup("\\w+\\s\\w+i\\w+",map);
+        TestCase.assertEquals(2, lists.size());
+        TestCase.assertEquals(map.get("Food List"), lists.get(0));
+        TestCase.assertEquals(map.get("Software Companies"), lists.get(1));
+    }
+
+    @Test
+    public void testLookupSkipsSubtrees() throws Exception {
+        Map<String,Integer> map = createMap(new HashMap<>());
+        AutomatonStringKeysLookup<Integer> lookup = new AutomatonStringKeysLookup<>();
+        TestCase.assertEquals(Arrays.asList(1, 2), lookup.lookup("user\\.\\d+\\.session", map));
+        TestCase.assertEquals(Arrays.asList(4, 1, 2), lookup.lookup("(cache|user\\.\\d)\\.session", map));
+        TestCase.assertEquals(Arrays.asList(), lookup.lookup("zzz.*", map));
+    }
+
+    @Test
+    public void testLookupSortedMap() throws Exception {
+        Map<String,Integer> map = createMap(new TreeMap<>());
+        AutomatonStringKeysLookup<Integer> lookup = new AutomatonStringKeysLookup<>();
+        TestCase.assertEquals(Arrays.asList(1, 2, 3), lookup.lookup("user\\..*", map));
+        TestCase.assertEquals(Arrays.asList(4, 1, 2), lookup.lookup(".*session", map));
+    }
+
+    @Test
+    public void testLookupSupplementaryKeys() throws Exception {
+        for(Map<String,Integer> map : Arrays.<Map<String,Integer>>asList(new HashMap<>(), new TreeMap<>())){
+            map.put("a\uD83D\uDE00b", 1);
+            map.put("a\uD83D\uDE01b", 2);
+            map.put("a\uD83Db", 3);
+            map.put("axb", 4);
+            AutomatonStringKeysLookup<Integer> lookup = new AutomatonStringKeysLookup<>();
+            TestCase.assertEquals(Arrays.asList(4, 3, 1, 2), lookup.lookup("a.b", map));
+            TestCase.assertEquals(Arrays.asList(3, 1, 2), lookup.lookup("a\\Wb", map));
+            TestCase.assertEquals(Arrays.asList(2), lookup.lookup("a\uD83D\uDE01b", map));
+            TestCase.assertTrue(lookup.keyMatcher("a[^x]b").test("a\uD83D\uDE00b"));
+            TestCase.assertFalse(lookup.keyMatcher("a..b").test("a\uD83D\uDE00b"));
+        }
+    }
+
+    @Test
+    public void testLookupAfterKeyWithSurrogatePair() throws Exception {
+        for(Map<String,Integer> map : Arrays.<Map<String,Integer>>asList(new HashMap<>(), new TreeMap<>())){
+            map.put("X\uD83D\uDE00", 1);
+            map.put("X\uD83D\uE000", 2);
+            AutomatonStringKeysLookup<Integer> lookup = new AutomatonStringKeysLookup<>();
+            TestCase.assertEquals(new StringKeysLookup<Integer>().lookup("X..", map), lookup.lookup("X..", map));
+            TestCase.assertEquals(Arrays.asList(2), lookup.lookup("X..", map));
+        }
+    }
+
+    @Test
+    public void testLookupUnsupportedFallsBack() throws Exception {
+        Map<String,Integer> map = createMap(new HashMap<>());
+        AutomatonStringKeysLookup<Integer> lookup = new AutomatonStringKeysLookup<>();
+        TestCase.assertEquals(Arrays.asList(1, 2), lookup.lookup("user\\.(\\d)\\.\\w*(?<!name)", map));
+    }
+
+    @Test
+    public void testLookupSystemProps() throws Exception {
+        Map<String,String> map = (Map) System.getProperties();
+
+        List<String> values = (new AutomatonStringKeysLookup()).lookup("user.*",map);
+        TestCase.assertEquals(new StringKeysLookup().lookup("user.*", map).size(), values.size());
+    }
+
+    private Map<String,Integer> createMap(Map<String,Integer> map){
+        map.put("user.1.session", 1);
+        map.put("user.2.session", 2);
+        map.put("user.name", 3);
+        map.put("cache.session", 4);
+        map.put("users", 5);
+        return map;
+    }
+}
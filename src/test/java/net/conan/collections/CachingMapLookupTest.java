@@ -0,0 +1,100 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Conan Dombroski
+ */
+public class CachingMapLookupTest {
+
+    @Test
+    public void testCachesUntilMapChanges() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        map.put("user.1", 1);
+        map.put("user.2", 2);
+        CountingLookup counting = new CountingLookup();
+        CachingMapLookup<String,String,Integer> lookup = new CachingMapLookup<>(counting);
+
+        List<Integer> first = lookup.lookup("user\\..*", map);
+        List<Integer> second = lookup.lookup("user\\..*", map);
+        TestCase.assertSame(first, second);
+        TestCase.assertEquals(1, counting.calls.get());
+        TestCase.assertEquals(1, lookup.hitCount());
+        TestCase.assertEquals(1, lookup.missCount());
+
+        map.put("user.3", 3);
+        TestCase.assertEquals(3, lookup.lookup("user\\..*", map).size());
+        TestCase.assertEquals(2, counting.calls.get());
+        TestCase.assertEquals(2, lookup.missCount());
+        TestCase.assertEquals(1.0 / 3, lookup.hitRate(), 0.0001);
+    }
+
+    @Test
+    public void testUnversionedMapsBypassCache() throws Exception {
+        Map<String,Integer> map = new HashMap<>();
+        map.put("a", 1);
+        CountingLookup counting = new CountingLookup();
+        CachingMapLookup<String,String,Integer> lookup = new CachingMapLookup<>(counting);
+        lookup.lookup("a", map);
+        lookup.lookup("a", map);
+        TestCase.assertEquals(2, counting.calls.get());
+        TestCase.assertEquals(0, lookup.hitCount() + lookup.missCount());
+    }
+
+    @Test
+    public void testCustomVersionFunction() throws Exception {
+        Map<String,Integer> map = new HashMap<>();
+        map.put("a", 1);
+        long[] version = {1};
+        CountingLookup counting = new CountingLookup();
+        CachingMapLookup<String,String,Integer> lookup = new CachingMapLookup<>(counting, 2, m -> version[0]);
+        lookup.lookup("a", map);
+        lookup.lookup("a", map);
+        TestCase.assertEquals(1, counting.calls.get());
+
+        version[0]++;
+        lookup.lookup("a", map);
+        TestCase.assertEquals(2, counting.calls.get());
+
+        lookup.invalidateAll();
+        lookup.lookup("a", map);
+        TestCase.assertEquals(3, counting.calls.get());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        map.put("a", 1);
+        CountingLookup counting = new CountingLookup();
+        CachingMapLookup<String,String,Integer> lookup = new CachingMapLookup<>(counting, 2);
+        for(String expression : Arrays.asList("a", "b", "a", "c", "a", "b")){
+            lookup.lookup(expression, map);
+        }
+        // "b" was evicted by "c", "a" stayed because it kept being used.
+        TestCase.assertEquals(4, counting.calls.get());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testResultsAreUnmodifiable() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        map.put("a", 1);
+        new CachingMapLookup<>(new StringKeysLookup<Integer>()).lookup("a", map).add(2);
+    }
+
+    private static class CountingLookup extends StringKeysLookup<Integer> {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public List<Integer> lookup(String regularExpression, Map<String,Integer> map){
+            calls.incrementAndGet();
+            return super.lookup(regularExpression, map);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package net.conan.collections;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Rough timing of {@link GlobKeysLookup} against the equivalent regular expression through
+ * {@link StringKeysLookup}, for a few typical globs.  Not a unit test; run the main method
+ * with the test classpath:</p>
+ * <pre>    mvn test-compile
+ *    java -cp target/classes:target/test-classes net.conan.collections.GlobKeysLookupBenchmark</pre>
+ *
+ * @author Conan Dombroski
+ */
+public class GlobKeysLookupBenchmark {
+
+    private static final String[][] EXPRESSIONS = {
+          {"user.*.session", "user\\..*\\.session"},
+          {"cache-??-*", "cache-..-.*"},
+          {"*7.session", ".*7\\.session"},
+          {"user.12345.session", "user\\.12345\\.session"}
+    };
+    private static final int SIZE = 1 << 20;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args){
+        Map<String,Integer> map = createMap();
+        GlobKeysLookup<Integer> glob = new GlobKeysLookup<>();
+        StringKeysLookup<Integer> regex = new StringKeysLookup<>();
+        System.out.printf("%20s %12s %12s %8s%n", "glob", "glob(us)", "regex(us)", "matches");
+        for(String[] expression : EXPRESSIONS){
+            long globTime = time(glob, expression[0], map);
+            long regexTime = time(regex, expression[1], map);
+            System.out.printf("%20s %12d %12d %8d%n", expression[0], globTime / 1000, regexTime / 1000,
+                  glob.lookup(expression[0], map).size());
+        }
+    }
+
+    // Best of ROUNDS after the same number of warm up rounds, in nanoseconds.
+    private static long time(MapLookup<String,String,Integer> lookup, String criteria, Map<String,Integer> map){
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < ROUNDS * 2; i++){
+            long start = System.nanoTime();
+            lookup.lookup(criteria, map);
+            long elapsed = System.nanoTime() - start;
+            if(i >= ROUNDS){
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
+    }
+
+    private static Map<String,Integer> createMap(){
+        Map<String,Integer> map = new HashMap<>();
+        for(int i = 0; i < SIZE; i++){
+            map.put(i % 3 == 0 ? String.format("cache-%02d-%d", i % 100, i) : "user." + i + ".session", i);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,62 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Conan Dombroski
+ */
+public class GlobKeysLookupTest {
+
+    private static Map<String,Integer> createMap(){
+        Map<String,Integer> map = new HashMap<>();
+        map.put("user.1.session", 1);
+        map.put("user.2.session", 2);
+        map.put("user.2.name", 3);
+        map.put("cache-01-a", 4);
+        map.put("cache-1-b", 5);
+        map.put("nothing", null);
+        return map;
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        GlobKeysLookup<Integer> lookup = new GlobKeysLookup<>();
+        for(Map<String,Integer> map : Arrays.asList(createMap(), new TreeMap<>(createMap()))){
+            TestCase.assertEquals(Arrays.asList(1, 2), sorted(lookup.lookup("user.*.session", map)));
+            TestCase.assertEquals(Collections.singletonList(4), lookup.lookup("cache-??-*", map));
+            TestCase.assertEquals(Collections.singletonList(3), lookup.lookup("user.2.name", map));
+            TestCase.assertEquals(Collections.singletonList(null), lookup.lookup("nothing", map));
+            TestCase.assertEquals(Collections.emptyList(), lookup.lookup("missing", map));
+            TestCase.assertEquals(6, lookup.lookup("*", map).size());
+        }
+    }
+
+    @Test
+    public void testSortedMapKeepsKeyOrder() throws Exception {
+        GlobKeysLookup<Integer> lookup = new GlobKeysLookup<>();
+        TreeMap<String,Integer> map = new TreeMap<>(createMap());
+        TestCase.assertEquals(Arrays.asList(3, 2), lookup.lookup("user.2*", map));
+        TestCase.assertEquals(Collections.singletonList(1), lookup.lookup("user.*", map, 1));
+        TestCase.assertTrue(lookup.matchesAny("*-b", map));
+    }
+
+    @Test
+    public void testKeyMatcher() throws Exception {
+        GlobKeysLookup<Integer> lookup = new GlobKeysLookup<>();
+        TestCase.assertTrue(lookup.keyMatcher("user.*").test("user.x"));
+        TestCase.assertFalse(lookup.keyMatcher("user.?").test("user.xy"));
+    }
+
+    private static List<Integer> sorted(List<Integer> values){
+        Collections.sort(values);
+        return values;
+    }
+}
@@ -0,0 +1,80 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Conan Dombroski
+ */
+@SuppressWarnings("all") // Unit tests don't need warnings.
+public class IndexedStringKeysLookupTest {
+
+    @Test
+    public void testLookupWithPrefix() throws Exception {
+        Map<String,Integer> map = createMap(new HashMap<>());
+        IndexedStringKeysLookup<Integer> lookup = new IndexedStringKeysLookup<>();
+        List<Integer> values = lookup.lookup("user\\.\\d+\\.session", map);
+        TestCase.assertEquals(Arrays.asList(1, 2), values);
+    }
+
+    @Test
+    public void testLookupSortedMap() throws Exception {
+        Map<String,Integer> map = createMap(new TreeMap<>());
+        IndexedStringKeysLookup<Integer> lookup = new IndexedStringKeysLookup<>();
+        List<Integer> values = lookup.lookup("user\\..*", map);
+        TestCase.assertEquals(Arrays.asList(1, 2, 3), values);
+    }
+
+    @Test
+    public void testLookupWithoutPrefix() throws Exception {
+        Map<String,Integer> map = createMap(new HashMap<>());
+        IndexedStringKeysLookup<Integer> lookup = new IndexedStringKeysLookup<>();
+        List<Integer> values = lookup.lookup(".*session", map);
+        TestCase.assertEquals(3, values.size());
+        TestCase.assertTrue(values.containsAll(Arrays.asList(1, 2, 4)));
+    }
+
+    @Test
+    public void testLookupNotFound() throws Exception {
+        Map<String,Integer> map = createMap(new HashMap<>());
+        IndexedStringKeysLookup<Integer> lookup = new IndexedStringKeysLookup<>();
+        TestCase.assertEquals(0, lookup.lookup("fooooooooo", map).size());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        Map<String,Integer> map = createMap(new HashMap<>());
+        IndexedStringKeysLookup<Integer> lookup = new IndexedStringKeysLookup<>();
+        TestCase.assertEquals(3, lookup.lookup("user\\..*", map).size());
+
+        map.remove("user.1.session");
+        TestCase.assertEquals(2, lookup.lookup("user\\..*", map).size());
+
+        map.put("user.9.session", 9);
+        lookup.invalidate();
+        TestCase.assertEquals(3, lookup.lookup("user\\..*", map).size());
+    }
+
+    @Test
+    public void testLookupSystemProps() throws Exception {
+        Map<String,String> map = (Map) System.getProperties();
+
+        List<String> values = (new IndexedStringKeysLookup()).lookup("user.*",map);
+        TestCase.assertEquals(true,values.size() > 0);
+    }
+
+    private Map<String,Integer> createMap(Map<String,Integer> map){
+        map.put("user.1.session", 1);
+        map.put("user.2.session", 2);
+        map.put("user.name", 3);
+        map.put("cache.session", 4);
+        map.put("users", 5);
+        return map;
+    }
+}
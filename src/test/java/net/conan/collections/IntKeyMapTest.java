@@ -0,0 +1,71 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * The searching is the same as {@link LongKeyMap}'s, see LongKeyMapTest; these cover the int
+ * boundaries.
+ *
+ * @author Conan Dombroski
+ */
+public class IntKeyMapTest {
+
+    @Test
+    public void testExtremeKeysOrder() throws Exception {
+        IntKeyMap<String> map = new IntKeyMap.Builder<String>(2)
+              .put(Integer.MAX_VALUE, "max").put(0, "zero").put(Integer.MIN_VALUE, "min")
+              .put(-1, "minus one").put(1, "one").put(Integer.MIN_VALUE, "min again").build();
+        TestCase.assertEquals(5, map.size());
+        TestCase.assertEquals(Integer.MIN_VALUE, map.keyAt(0));
+        TestCase.assertEquals(-1, map.keyAt(1));
+        TestCase.assertEquals(Integer.MAX_VALUE, map.keyAt(4));
+        TestCase.assertEquals("min again", map.get(Integer.MIN_VALUE));
+        TestCase.assertEquals("max", map.get(Integer.MAX_VALUE));
+        TestCase.assertFalse(map.containsKey(Integer.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testRangesAtTheBoundaries() throws Exception {
+        IntKeyMap<String> map = new IntKeyMap.Builder<String>()
+              .put(Integer.MIN_VALUE, "min").put(-1, "minus one").put(0, "zero").put(Integer.MAX_VALUE, "max").build();
+        // The upper bound is exclusive, so Integer.MAX_VALUE is never in a range.
+        TestCase.assertEquals(Arrays.asList("min", "minus one", "zero"), map.lookupRange(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        TestCase.assertEquals(Collections.singletonList("min"), map.lookupRange(Integer.MIN_VALUE, Integer.MIN_VALUE + 1));
+        TestCase.assertEquals(Arrays.asList("minus one", "zero"), map.lookupRange(-1, 1));
+        TestCase.assertEquals(1, map.countRange(Integer.MIN_VALUE, -1));
+        TestCase.assertEquals(0, map.countRange(Integer.MAX_VALUE, Integer.MIN_VALUE));
+        List<String> visited = new ArrayList<>();
+        map.forEachInRange(Integer.MIN_VALUE, 0, (value, key) -> visited.add(key + "=" + value));
+        TestCase.assertEquals(Arrays.asList(Integer.MIN_VALUE + "=min", "-1=minus one"), visited);
+    }
+
+    @Test
+    public void testAgreesWithTreeMapOverTheWholeRange() throws Exception {
+        Random random = new Random(42);
+        Map<Integer,Integer> source = new HashMap<>();
+        for(int i = 0; i < 5000; i++){
+            source.put(random.nextInt(), i);
+        }
+        source.put(Integer.MIN_VALUE, -1);
+        source.put(Integer.MAX_VALUE, -2);
+        IntKeyMap<Integer> map = IntKeyMap.of(source);
+        TreeMap<Integer,Integer> expected = new TreeMap<>(source);
+        TestCase.assertEquals(expected.size(), map.size());
+        TestCase.assertEquals(new ArrayList<>(expected.keySet()).get(expected.size() / 2).intValue(), map.keyAt(expected.size() / 2));
+        for(int i = 0; i < 100; i++){
+            int from = random.nextInt();
+            int to = (int) Math.min(Integer.MAX_VALUE, (long) from + random.nextInt(1 << 30));
+            TestCase.assertEquals(new ArrayList<>(expected.subMap(from, to).values()), map.lookupRange(from, to));
+        }
+    }
+}
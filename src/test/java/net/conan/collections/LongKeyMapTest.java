@@ -0,0 +1,73 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * @author Conan Dombroski
+ */
+public class LongKeyMapTest {
+
+    @Test
+    public void testLookupRange() throws Exception {
+        LongKeyMap.Builder<String> builder = new LongKeyMap.Builder<>();
+        for(long key = 0; key < 100; key += 10){
+            builder.put(key, "v" + key);
+        }
+        LongKeyMap<String> map = builder.build();
+        TestCase.assertEquals(Arrays.asList("v20", "v30", "v40"), map.lookupRange(15, 50));
+        TestCase.assertEquals(Arrays.asList("v20"), map.lookupRange(20, 21));
+        TestCase.assertEquals(Collections.emptyList(), map.lookupRange(21, 29));
+        TestCase.assertEquals(Collections.emptyList(), map.lookupRange(50, 15));
+        TestCase.assertEquals(10, map.lookupRange(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        TestCase.assertEquals(3, map.countRange(15, 50));
+        TestCase.assertEquals(0, map.countRange(50, 15));
+    }
+
+    @Test
+    public void testUnsortedInputAndDuplicates() throws Exception {
+        LongKeyMap<String> map = new LongKeyMap.Builder<String>(2)
+              .put(5, "a").put(-3, "b").put(5, "c").put(1, "d").build();
+        TestCase.assertEquals(3, map.size());
+        TestCase.assertEquals(-3, map.keyAt(0));
+        TestCase.assertEquals("c", map.get(5));
+        TestCase.assertEquals("d", map.valueAt(1));
+        TestCase.assertNull(map.get(2));
+        TestCase.assertTrue(map.containsKey(-3));
+        TestCase.assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    public void testAgreesWithTreeMap() throws Exception {
+        Random random = new Random(42);
+        Map<Long,Integer> source = new HashMap<>();
+        for(int i = 0; i < 5000; i++){
+            source.put(random.nextLong() % 100000, i);
+        }
+        LongKeyMap<Integer> map = LongKeyMap.of(source);
+        TreeMap<Long,Integer> expected = new TreeMap<>(source);
+        TestCase.assertEquals(expected.size(), map.size());
+        for(int i = 0; i < 100; i++){
+            long from = random.nextLong() % 100000;
+            long to = from + random.nextInt(20000);
+            TestCase.assertEquals(new ArrayList<>(expected.subMap(from, to).values()), map.lookupRange(from, to));
+        }
+    }
+
+    @Test
+    public void testForEachInRange() throws Exception {
+        LongKeyMap<String> map = new LongKeyMap.Builder<String>().put(1, "a").put(2, "b").put(3, "c").build();
+        List<String> visited = new ArrayList<>();
+        map.forEachInRange(2, 10, (value, key) -> visited.add(key + value));
+        TestCase.assertEquals(Arrays.asList("2b", "3c"), visited);
+    }
+}
@@ -0,0 +1,164 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Conan Dombroski
+ */
+public class ObservableMapTest {
+
+    @Test
+    public void testRegisterComputesExistingMatches() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        map.put("user.1.session", 1);
+        map.put("user.name", 2);
+        StandingQuery<String,String,Integer> query = map.register("user\\.\\d+\\.session", new StringKeysLookup<>());
+        TestCase.assertEquals("user\\.\\d+\\.session", query.criteria());
+        TestCase.assertEquals(1, query.size());
+        TestCase.assertTrue(query.values().contains(1));
+    }
+
+    @Test
+    public void testWritesUpdateResults() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        StandingQuery<String,String,Integer> sessions = map.register(".*session", new StringKeysLookup<>());
+        StandingQuery<String,String,Integer> users = map.register("user\\..*", new AutomatonStringKeysLookup<>());
+
+        map.put("user.1.session", 1);
+        map.put("cache.session", 2);
+        map.put("user.name", 3);
+        TestCase.assertEquals(new HashSet<>(java.util.Arrays.asList(1, 2)), new HashSet<>(sessions.values()));
+        TestCase.assertEquals(new HashSet<>(java.util.Arrays.asList(1, 3)), new HashSet<>(users.values()));
+
+        map.put("user.1.session", 10);
+        TestCase.assertEquals(Integer.valueOf(10), sessions.matches().get("user.1.session"));
+
+        map.remove("user.1.session");
+        TestCase.assertEquals(1, sessions.size());
+        TestCase.assertEquals(1, users.size());
+
+        map.clear();
+        TestCase.assertEquals(0, sessions.size());
+        TestCase.assertEquals(0, users.size());
+    }
+
+    @Test
+    public void testEntrySetWritesAreObserved() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        StandingQuery<String,String,Integer> query = map.register("a.*", new StringKeysLookup<>());
+        map.put("a1", 1);
+        map.put("a2", 2);
+
+        for(Map.Entry<String,Integer> entry : map.entrySet()){
+            entry.setValue(entry.getValue() * 10);
+        }
+        TestCase.assertEquals(new HashSet<>(java.util.Arrays.asList(10, 20)), new HashSet<>(query.values()));
+
+        Iterator<String> keys = map.keySet().iterator();
+        keys.next();
+        keys.remove();
+        TestCase.assertEquals(1, map.size());
+        TestCase.assertEquals(1, query.size());
+    }
+
+    @Test
+    public void testUnregisterAndVersion() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        StandingQuery<String,String,Integer> query = map.register("a.*", new StringKeysLookup<>());
+        long version = map.version();
+        map.put("a1", 1);
+        TestCase.assertTrue(map.version() != version);
+
+        TestCase.assertTrue(map.unregister(query));
+        map.put("a2", 2);
+        TestCase.assertEquals(1, query.size());
+
+        version = map.version();
+        map.remove("missing");
+        TestCase.assertEquals(version, map.version());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testNullValue() throws Exception {
+        new ObservableMap<String,Integer>().put("a", null);
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        StandingQuery<String,String,Integer> even = map.register("key\\d*[02468]", new StringKeysLookup<>());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int t = 0; t < 4; t++){
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for(int i = 0; i < 2000; i++){
+                        String key = "key" + (i % 500);
+                        if((i + thread) % 3 == 0){
+                            map.remove(key);
+                        }else{
+                            map.put(key, i);
+                        }
+                    }
+                }));
+            }
+            for(Future<?> future : futures){
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }finally {
+            executor.shutdown();
+        }
+
+        int expected = 0;
+        for(Map.Entry<String,Integer> entry : map.entrySet()){
+            if(entry.getKey().matches("key\\d*[02468]")){
+                expected++;
+                TestCase.assertEquals(entry.getValue(), even.matches().get(entry.getKey()));
+            }
+        }
+        TestCase.assertEquals(expected, even.size());
+    }
+
+    @Test
+    public void testRegisterWhileInserting() throws Exception {
+        ObservableMap<String,Integer> map = new ObservableMap<>();
+        List<StandingQuery<String,String,Integer>> queries = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int t = 0; t < 4; t++){
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    for(int i = 0; i < 5000; i++){
+                        map.put("key" + thread + "." + i, i);
+                    }
+                }));
+            }
+            for(int i = 0; i < 100; i++){
+                queries.add(map.register("key.*", new StringKeysLookup<>()));
+            }
+            for(Future<?> future : futures){
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }finally {
+            executor.shutdown();
+        }
+
+        TestCase.assertEquals(20000, map.size());
+        for(StandingQuery<String,String,Integer> query : queries){
+            TestCase.assertEquals(map.size(), query.size());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * @author Conan Dombroski
+ */
+public class OffHeapKeyStoreTest {
+
+    private static final List<String> KEYS = Arrays.asList("user.2.session", "user.1.name", "admin",
+          "user.1.session", "caf\u00e9", "user.10.session", "\uD83D\uDE00smile", "admin", "");
+
+    @Test
+    public void testSortedAndUnique() throws Exception {
+        OffHeapKeyStore store = OffHeapKeyStore.of(KEYS);
+        List<String> expected = new ArrayList<>(new TreeSet<>(KEYS));
+        TestCase.assertEquals(expected.size(), store.size());
+        for(int i = 0; i < store.size(); i++){
+            TestCase.assertEquals(expected.get(i), store.keyAt(i));
+            TestCase.assertEquals(i, store.indexOf(expected.get(i)));
+        }
+        TestCase.assertEquals(-1, store.indexOf("user"));
+        TestCase.assertEquals(-1, store.indexOf("zzz"));
+    }
+
+    @Test
+    public void testForEachMatch() throws Exception {
+        OffHeapKeyStore store = OffHeapKeyStore.of(KEYS);
+        TestCase.assertEquals(Arrays.asList("user.1.session", "user.10.session", "user.2.session"),
+              matches(store, "user\\.\\d+\\.session"));
+        TestCase.assertEquals(Collections.singletonList("caf\u00e9"), matches(store, "caf."));
+        TestCase.assertEquals(Collections.singletonList("\uD83D\uDE00smile"), matches(store, ".smile"));
+        TestCase.assertEquals(Collections.singletonList(""), matches(store, ""));
+        TestCase.assertEquals(Collections.emptyList(), matches(store, "user"));
+        // Back reference, not supported by the automaton
+        TestCase.assertEquals(Arrays.asList("user.1.name", "user.1.session", "user.2.session"),
+              matches(store, "user\\.(\\d)\\1?\\..*"));
+        TestCase.assertEquals(Collections.singletonList("user.1.name"), matches(store, "(u)ser\\.1\\.(?!s).*"));
+    }
+
+    @Test
+    public void testMatchesPatternOnEveryKey() throws Exception {
+        OffHeapKeyStore store = OffHeapKeyStore.of(KEYS);
+        for(String regex : Arrays.asList(".*", "user.*", "[a-c].*", ".*\\.session", "a(dm|b)in", "(?i)ADMIN")){
+            List<String> expected = new ArrayList<>();
+            for(String key : new TreeSet<>(KEYS)){
+                if(Pattern.compile(regex).matcher(key).matches()){
+                    expected.add(key);
+                }
+            }
+            TestCase.assertEquals(regex, expected, matches(store, regex));
+        }
+    }
+
+    @Test
+    public void testSaveAndOpen() throws Exception {
+        Path file = Files.createTempFile("keys", ".bin");
+        try {
+            OffHeapKeyStore.of(KEYS).save(file);
+            OffHeapKeyStore reopened = OffHeapKeyStore.open(file);
+            TestCase.assertEquals(new ArrayList<>(new TreeSet<>(KEYS)), matches(reopened, ".*"));
+            TestCase.assertEquals(Collections.singletonList("admin"), matches(reopened, "adm.n"));
+        }finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOpenRejectsOtherFiles() throws Exception {
+        Path file = Files.createTempFile("keys", ".bin");
+        try {
+            Files.write(file, "not a key store".getBytes("UTF-8"));
+            OffHeapKeyStore.open(file);
+        }finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<String> matches(OffHeapKeyStore store, String regex){
+        List<String> keys = new ArrayList<>();
+        store.forEachMatch(regex, index -> keys.add(store.keyAt(index)));
+        return keys;
+    }
+}
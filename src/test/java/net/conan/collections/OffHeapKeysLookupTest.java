@@ -0,0 +1,64 @@
+package net.conan.collections;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Conan Dombroski
+ */
+public class OffHeapKeysLookupTest {
+
+    private static Map<String,Integer> source(){
+        Map<String,Integer> map = new HashMap<>();
+        map.put("user.1.name", 1);
+        map.put("user.1.session", 2);
+        map.put("user.2.session", 3);
+        map.put("admin", 4);
+        return map;
+    }
+
+    @Test
+    public void testMapBehavesLikeSource() throws Exception {
+        OffHeapKeyMap<Integer> map = OffHeapKeyMap.of(source());
+        TestCase.assertEquals(source(), map);
+        TestCase.assertEquals(new TreeMap<>(source()), new TreeMap<>(map));
+        TestCase.assertEquals(Integer.valueOf(2), map.get("user.1.session"));
+        TestCase.assertNull(map.get("user"));
+        TestCase.assertNull(map.get(42));
+        TestCase.assertTrue(map.containsKey("admin"));
+        TestCase.assertFalse(map.containsKey("Admin"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapIsImmutable() throws Exception {
+        OffHeapKeyMap.of(source()).put("new", 5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testValuesMustMatchKeys() throws Exception {
+        new OffHeapKeyMap<>(OffHeapKeyStore.of(Arrays.asList("a", "b")), Collections.singletonList(1));
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        OffHeapKeysLookup<Integer> lookup = new OffHeapKeysLookup<>();
+        OffHeapKeyMap<Integer> map = OffHeapKeyMap.of(source());
+        TestCase.assertEquals(Arrays.asList(2, 3), lookup.lookup("user\\.\\d\\.session", map));
+        TestCase.assertEquals(Arrays.asList(1, 2), lookup.lookup("user\\.1.*", map));
+        TestCase.assertEquals(Collections.emptyList(), lookup.lookup("nobody", map));
+        TestCase.assertEquals(Collections.singletonList(4), lookup.lookup("adm(?=i)in", map));
+    }
+
+    @Test
+    public void testLookupOnOrdinaryMap() throws Exception {
+        OffHeapKeysLookup<Integer> lookup = new OffHeapKeysLookup<>();
+        TestCase.assertEquals(Collections.singletonList(1), lookup.lookup("user\\.1\\.name", source()));
+        TestCase.assertTrue(lookup.keyMatcher("adm.n").test("admin"));
+    }
+}
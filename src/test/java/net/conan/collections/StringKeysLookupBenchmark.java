@@ -0,0 +1,88 @@
+package net.conan.collections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <p>Rough timing of sequential against parallel {@link StringKeysLookup} lookups for growing
+ * map sizes, used to pick {@link StringKeysLookup#DEFAULT_PARALLEL_THRESHOLD}.  Not a unit
+ * test; run the main method with the test classpath:</p>
+ * <pre>    mvn test-compile
+ *    java -cp target/classes:target/test-classes net.conan.collections.StringKeysLookupBenchmark</pre>
+ *
+ * <p>Besides the common pool, the parallel path is timed on a pool of one worker.  What that
+ * costs above the sequential lookup is the overhead of copying the entries and splitting the
+ * work, which does not depend on the number of cores, so the benchmark also prints the time
+ * projected for more workers, never more than there are tasks, and the smallest size from
+ * which each projection wins.  Waking the workers is not part of the projection.</p>
+ *
+ * @author Conan Dombroski
+ */
+public class StringKeysLookupBenchmark {
+
+    private static final String EXPRESSION = "user\\.\\d*7\\.session";
+    private static final int ROUNDS = 20;
+    private static final int[] PROJECTED_PARALLELISM = {2, 4, 8};
+
+    public static void main(String[] args){
+        ForkJoinPool single = new ForkJoinPool(1);
+        StringKeysLookup<Integer> sequential = new StringKeysLookup<>();
+        StringKeysLookup<Integer> parallel = new StringKeysLookup<>(1, ForkJoinPool.commonPool());
+        StringKeysLookup<Integer> overhead = new StringKeysLookup<>(1, single);
+        System.out.printf("cores=%d parallelism=%d%n", Runtime.getRuntime().availableProcessors(),
+              ForkJoinPool.commonPool().getParallelism());
+        System.out.printf("%10s %15s %15s %15s", "size", "sequential(us)", "parallel(us)", "1 worker(us)");
+        for(int workers : PROJECTED_PARALLELISM){
+            System.out.printf(" %15s", workers + " workers(us)");
+        }
+        System.out.println();
+        int[] crossover = new int[PROJECTED_PARALLELISM.length];
+        for(int size = 1 << 10; size <= 1 << 22; size <<= 1){
+            Map<String,Integer> map = createMap(size);
+            long sequentialTime = time(sequential, map);
+            long parallelTime = time(parallel, map);
+            long singleTime = time(overhead, map);
+            System.out.printf("%10d %15d %15d %15d", size, sequentialTime / 1000, parallelTime / 1000, singleTime / 1000);
+            long splitting = Math.max(0, singleTime - sequentialTime);
+            for(int i = 0; i < PROJECTED_PARALLELISM.length; i++){
+                // No more workers than tasks: smaller maps are matched by one task.
+                int workers = Math.min(PROJECTED_PARALLELISM[i], (size + StringKeysLookup.TASK_SIZE - 1) / StringKeysLookup.TASK_SIZE);
+                long projected = sequentialTime / workers + splitting;
+                System.out.printf(" %15d", projected / 1000);
+                if(projected >= sequentialTime){
+                    crossover[i] = 0;
+                }else if(crossover[i] == 0){
+                    crossover[i] = size;
+                }
+            }
+            System.out.println();
+        }
+        for(int i = 0; i < PROJECTED_PARALLELISM.length; i++){
+            System.out.printf("%d workers win from %d entries%n", PROJECTED_PARALLELISM[i], crossover[i]);
+        }
+        single.shutdown();
+    }
+
+    // Best of ROUNDS after the same number of warm up rounds, in nanoseconds.
+    private static long time(StringKeysLookup<Integer> lookup, Map<String,Integer> map){
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < ROUNDS * 2; i++){
+            long start = System.nanoTime();
+            lookup.lookup(EXPRESSION, map);
+            long elapsed = System.nanoTime() - start;
+            if(i >= ROUNDS){
+                best = Math.min(best, elapsed);
+            }
+        }
+        return best;
+    }
+
+    private static Map<String,Integer> createMap(int size){
+        Map<String,Integer> map = new HashMap<>();
+        for(int i = 0; i < size; i++){
+            map.put((i % 3 == 0 ? "cache." : "user.") + i + ".session", i);
+        }
+        return map;
+    }
+}
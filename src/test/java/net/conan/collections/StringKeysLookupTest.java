@@ -4,9 +4,13 @@ import junit.framework.TestCase;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Conan Dombroski ()
@@ -48,4 +52,130 @@ public class StringKeysLookupTest {
         List<String> values = (new StringKeysLookup()).lookup("user.*",map);
         TestCase.assertEquals(true,values.size() > 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParallelLookupKeepsOrder() throws Exception {
+        Map<String,Integer> map = new HashMap<>();
+        for(int i = 0; i < 50000; i++){
+            map.put("key" + i, i);
+        }
+        List<Integer> sequential = new StringKeysLookup<Integer>().lookup("key\\d*7", map);
+        List<Integer> parallel = new StringKeysLookup<Integer>(1000).lookup("key\\d*7", map);
+        TestCase.assertEquals(5000, parallel.size());
+        TestCase.assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testParallelLookupCustomPool() throws Exception {
+        Map<String,Integer> map = new TreeMap<>();
+        for(int i = 0; i < 20000; i++){
+            map.put(String.format("key%05d", i), i);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Integer> values = new StringKeysLookup<Integer>(1, pool).lookup("key1\\d{4}", map);
+            TestCase.assertEquals(10000, values.size());
+            for(int i = 0; i < values.size(); i++){
+                TestCase.assertEquals(10000 + i, values.get(i).intValue());
+            }
+        }finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidThreshold() throws Exception {
+        new StringKeysLookup<Integer>(0);
+    }
+
+    @Test
+    public void testLookupStream() throws Exception {
+        Map<String,Integer> map = new TreeMap<>();
+        for(int i = 0; i < 100; i++){
+            map.put(String.format("key%03d", i), i);
+        }
+        StringKeysLookup<Integer> lookup = new StringKeysLookup<>();
+        long count = lookup.lookupStream("key0\\d[05]", map)
+              .peek(e -> TestCase.assertEquals(map.get(e.getKey()), e.getValue()))
+              .count();
+        TestCase.assertEquals(20, count);
+    }
+
+    @Test
+    public void testLookupStreamParallel() throws Exception {
+        Map<String,Integer> map = new HashMap<>();
+        for(int i = 0; i < 100000; i++){
+            map.put("key" + i, i);
+        }
+        StringKeysLookup<Integer> lookup = new StringKeysLookup<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for(int i = 0; i < 5; i++){
+                long count = pool.submit(() -> lookup.lookupStream("key\\d*7", map)
+                      .parallel()
+                      .count()).get();
+                TestCase.assertEquals(10000, count);
+            }
+        }finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testLookupAllTooLargeForTheAutomaton() throws Exception {
+        Map<String,Integer> map = new HashMap<>();
+        map.put("bee", 1);
+        map.put("a", 2);
+        Map<String,List<Integer>> results = new StringKeysLookup<Integer>().lookupAll(Arrays.asList("(a{999}){999}", "b.*"), map);
+        TestCase.assertEquals(Collections.emptyList(), results.get("(a{999}){999}"));
+        TestCase.assertEquals(Arrays.asList(1), results.get("b.*"));
+    }
+
+    @Test
+    public void testLookupLimit() throws Exception {
+        Map<String,Integer> map = new TreeMap<>();
+        for(int i = 0; i < 100; i++){
+            map.put(String.format("key%03d", i), i);
+        }
+        StringKeysLookup<Integer> lookup = new StringKeysLookup<>();
+        TestCase.assertEquals(Arrays.asList(5, 15, 25), lookup.lookup("key\\d+5", map, 3));
+        TestCase.assertEquals(10, lookup.lookup("key\\d+5", map, 50).size());
+    }
+
+    @Test
+    public void testLookupFirstAndMatchesAny() throws Exception {
+        Map<String,Integer> map = new TreeMap<>();
+        map.put("a", 1);
+        map.put("b1", 2);
+        map.put("b2", 3);
+        StringKeysLookup<Integer> lookup = new StringKeysLookup<>();
+        TestCase.assertEquals(Optional.of(2), lookup.lookupFirst("b\\d", map));
+        TestCase.assertEquals(Optional.empty(), lookup.lookupFirst("c", map));
+        TestCase.assertTrue(lookup.matchesAny("b.", map));
+        TestCase.assertFalse(lookup.matchesAny("c.*", map));
+    }
+
+    @Test
+    public void testLookupAll() throws Exception {
+        Map<String,Integer> map = new HashMap<>();
+        for(int i = 0; i < 1000; i++){
+            map.put("user." + i + ".session", i);
+        }
+        map.put("user.name", -1);
+        List<String> expressions = Arrays.asList("user\\.\\d*7\\.session", "user.name", "(\\w+)\\.\\1",
+              "user\\.99\\.session", "nothing", "user.name");
+        StringKeysLookup<Integer> lookup = new StringKeysLookup<>();
+        Map<String,List<Integer>> results = lookup.lookupAll(expressions, map);
+
+        TestCase.assertEquals(Arrays.asList(expressions.get(0), "user.name", expressions.get(2),
+              expressions.get(3), "nothing"), new java.util.ArrayList<>(results.keySet()));
+        for(String expression : results.keySet()){
+            List<Integer> expected = lookup.lookup(expression, map);
+            List<Integer> actual = results.get(expression);
+            TestCase.assertEquals(expression, new java.util.HashSet<>(expected), new java.util.HashSet<>(actual));
+            TestCase.assertEquals(expression, expected.size(), actual.size());
+        }
+        TestCase.assertEquals(100, results.get(expressions.get(0)).size());
+        TestCase.assertEquals(Arrays.asList(-1), results.get("user.name"));
+    }
+}
@@ -0,0 +1,65 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @author Conan Dombroski
+ */
+public class BlockGzipChannelTest {
+
+    @Test
+    public void testMembersInOrder() throws Exception {
+        byte[] data = new byte[100000];
+        Random r = new Random(3);
+        for(int i = 0; i < data.length; i++){
+            data[i] = (byte) ('a' + r.nextInt(4));
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        BlockGzipChannel gzip = new BlockGzipChannel(Channels.newChannel(compressed), Deflater.DEFAULT_COMPRESSION, 3, 1000);
+        for(int offset = 0; offset < data.length; offset += 777){
+            ByteBuffer chunk = ByteBuffer.wrap(data, offset, Math.min(777, data.length - offset));
+            gzip.write(new ByteBuffer[]{chunk.duplicate(), ByteBuffer.allocate(0)});
+        }
+        gzip.close();
+        TestCase.assertFalse(gzip.isOpen());
+        TestCase.assertTrue(Arrays.equals(data, gunzip(compressed.toByteArray())));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new BlockGzipChannel(Channels.newChannel(compressed), 1, 2, 1000).close();
+        TestCase.assertEquals(0, gunzip(compressed.toByteArray()).length);
+    }
+
+    @Test(expected = ClosedChannelException.class)
+    public void testClosed() throws Exception {
+        BlockGzipChannel gzip = new BlockGzipChannel(Channels.newChannel(new ByteArrayOutputStream()), 1, 1, 1000);
+        gzip.close();
+        gzip.write(ByteBuffer.allocate(1));
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws Exception {
+        try(InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))){
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while((read = in.read(buffer)) > 0){
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+}
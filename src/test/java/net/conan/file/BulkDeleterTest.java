@@ -0,0 +1,132 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Conan Dombroski
+ */
+public class BulkDeleterTest {
+
+    private Path parent;
+    private Path root;
+
+    @Before
+    public void setup() throws Exception {
+        parent = Files.createTempDirectory("deleter");
+        root = Files.createDirectory(parent.resolve("tree"));
+        for(int a = 0; a < 4; a++){
+            Path dirA = Files.createDirectory(root.resolve("a" + a));
+            for(int b = 0; b < 5; b++){
+                Path dirB = Files.createDirectory(dirA.resolve("b" + b));
+                for(int f = 0; f < 10; f++){
+                    Files.write(dirB.resolve("file" + f), new byte[f]);
+                }
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if(Files.exists(parent)){
+            FileUtil.deleteRecursively(parent);
+        }
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        Path outside = Files.createDirectory(parent.resolve("outside"));
+        Files.write(outside.resolve("keep"), new byte[1]);
+        Files.createSymbolicLink(root.resolve("link"), outside);
+
+        BulkDeleter.Deletion deletion = new BulkDeleter().withParallelism(4).delete(root);
+        TestCase.assertTrue(deletion.toString(), deletion.succeeded());
+        TestCase.assertFalse(Files.exists(root));
+        TestCase.assertEquals(4 * 5 * 10 + 1, deletion.deletedFiles());
+        TestCase.assertEquals(1 + 4 + 4 * 5, deletion.deletedDirectories());
+        TestCase.assertTrue("link was followed", Files.exists(outside.resolve("keep")));
+    }
+
+    @Test
+    public void testDeleteSingleFile() throws Exception {
+        Path file = root.resolve("a0").resolve("b0").resolve("file1");
+        BulkDeleter.Deletion deletion = new BulkDeleter().delete(file);
+        TestCase.assertTrue(deletion.succeeded());
+        TestCase.assertEquals(1, deletion.deletedFiles());
+        TestCase.assertFalse(Files.exists(file));
+        TestCase.assertTrue(new BulkDeleter().delete(parent.resolve("missing")).succeeded());
+    }
+
+    @Test
+    public void testRenameAndStart() throws Exception {
+        BulkDeleter.Deletion deletion = new BulkDeleter().withParallelism(2).renameAndStart(root);
+        TestCase.assertFalse(Files.exists(root));
+        Files.createDirectory(root);
+        TestCase.assertEquals(parent, deletion.path().getParent());
+        TestCase.assertTrue(deletion.await(1, TimeUnit.MINUTES));
+        TestCase.assertTrue(deletion.succeeded());
+        TestCase.assertFalse(Files.exists(deletion.path()));
+        TestCase.assertTrue(Files.isDirectory(root));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        BulkDeleter.Deletion deletion = new BulkDeleter().withParallelism(1).start(root);
+        deletion.cancel();
+        deletion.await();
+        TestCase.assertTrue(deletion.isDone());
+        TestCase.assertTrue(deletion.isCancelled());
+        TestCase.assertFalse(deletion.succeeded());
+        TestCase.assertTrue(deletion.failures().isEmpty());
+    }
+
+    @Test
+    public void testFailuresAreReported() throws Exception {
+        if(System.getProperty("user.name").equals("root")){
+            // Permissions do not stop root from deleting.
+            return;
+        }
+        Path locked = root.resolve("a1").resolve("b1");
+        Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("r-xr-xr-x"));
+        try {
+            BulkDeleter.Deletion deletion = new BulkDeleter().delete(root);
+            TestCase.assertFalse(deletion.succeeded());
+            TestCase.assertEquals(10, deletion.failures().size());
+            TestCase.assertTrue(Files.exists(locked));
+            TestCase.assertFalse(Files.exists(root.resolve("a0")));
+        }finally {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwxr-xr-x"));
+        }
+    }
+
+    @Test
+    public void testErrorStillFinishes() throws Exception {
+        Path broken = (Path) Proxy.newProxyInstance(Path.class.getClassLoader(), new Class<?>[]{Path.class},
+              (proxy, method, args) -> {
+                  switch(method.getName()){
+                      case "hashCode": return System.identityHashCode(proxy);
+                      case "equals": return proxy == args[0];
+                      case "toString": return "broken";
+                      default: throw new AssertionError("TEST FAIL");
+                  }
+              });
+        BulkDeleter.Deletion deletion = new BulkDeleter().start(broken);
+        TestCase.assertTrue(deletion.await(10, TimeUnit.SECONDS));
+        TestCase.assertFalse(deletion.succeeded());
+        TestCase.assertEquals("TEST FAIL", deletion.failures().get(broken).getCause().getMessage());
+    }
+
+    @Test
+    public void testDeleteParallel() throws Exception {
+        FileUtil.deleteParallel(root);
+        TestCase.assertFalse(Files.exists(root));
+    }
+}
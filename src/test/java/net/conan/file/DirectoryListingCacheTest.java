@@ -0,0 +1,139 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * @author Conan Dombroski
+ */
+public class DirectoryListingCacheTest {
+
+    private Path dir;
+    private DirectoryListingCache cache;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("listing");
+        Files.write(dir.resolve("a.log"), new byte[1]);
+        Files.write(dir.resolve("b.txt"), new byte[1]);
+        cache = new DirectoryListingCache();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.close();
+        FileUtil.deleteRecursively(dir);
+    }
+
+    @Test
+    public void testCachesListings() throws Exception {
+        NameFilter logs = NameFilter.extension("log");
+        TestCase.assertEquals(Arrays.asList(dir.resolve("a.log"), dir.resolve("b.txt")), cache.list(dir));
+        TestCase.assertEquals(Collections.singletonList(dir.resolve("a.log")), cache.list(dir, logs));
+        TestCase.assertEquals(Collections.singletonList(dir.resolve("a.log")), cache.list(dir, logs));
+        File[] files = cache.listFiles(dir.toFile(), (FileFilter) logs);
+        TestCase.assertEquals(1, files.length);
+        TestCase.assertEquals(new File(dir.toFile(), "a.log"), files[0]);
+        TestCase.assertEquals(1, cache.missCount());
+        TestCase.assertEquals(3, cache.hitCount());
+        TestCase.assertEquals(0.75, cache.hitRate(), 0.0001);
+        TestCase.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testFollowsChanges() throws Exception {
+        NameFilter logs = NameFilter.extension("log");
+        TestCase.assertEquals(1, cache.list(dir, logs).size());
+        Files.write(dir.resolve("c.log"), new byte[1]);
+        Files.delete(dir.resolve("a.log"));
+        awaitEquals(Collections.singletonList(dir.resolve("c.log")), () -> cache.list(dir, logs));
+        TestCase.assertEquals(1, cache.missCount());
+        TestCase.assertTrue(cache.eventCount() >= 2);
+    }
+
+    @Test
+    public void testModifiedTimeAfterOverflow() throws Exception {
+        TestCase.assertEquals(2, cache.list(dir).size());
+        cache.simulateOverflow(dir);
+        TestCase.assertEquals(2, cache.list(dir).size());
+        TestCase.assertEquals(1, cache.missCount());
+
+        cache.simulateOverflow(dir);
+        Files.setLastModifiedTime(dir, FileTime.fromMillis(Files.getLastModifiedTime(dir).toMillis() + 10000));
+        TestCase.assertEquals(2, cache.list(dir).size());
+        TestCase.assertEquals(2, cache.missCount());
+        TestCase.assertEquals(2, cache.overflowCount());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        cache.list(dir);
+        cache.invalidate(dir);
+        TestCase.assertEquals(0, cache.size());
+        cache.list(dir);
+        TestCase.assertEquals(2, cache.missCount());
+    }
+
+    @Test
+    public void testFileFilterSeesModifiedFiles() throws Exception {
+        FileFilter large = file -> file.length() > 1;
+        TestCase.assertEquals(0, cache.listFiles(dir.toFile(), large).length);
+        Files.write(dir.resolve("b.txt"), new byte[10]);
+        File[] files = cache.listFiles(dir.toFile(), large);
+        TestCase.assertEquals(1, files.length);
+        TestCase.assertEquals(new File(dir.toFile(), "b.txt"), files[0]);
+        TestCase.assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyListed() throws Exception {
+        Path other = Files.createTempDirectory("listing");
+        Path third = Files.createTempDirectory("listing");
+        try(DirectoryListingCache small = new DirectoryListingCache(dir.getFileSystem(), 2)){
+            small.list(dir);
+            small.list(other);
+            small.list(dir);
+            small.list(third);
+            TestCase.assertEquals(2, small.size());
+            TestCase.assertEquals(3, small.missCount());
+            small.list(dir);
+            TestCase.assertEquals(3, small.missCount());
+            small.list(other);
+            TestCase.assertEquals(4, small.missCount());
+            TestCase.assertEquals(2, small.size());
+        }finally {
+            FileUtil.deleteRecursively(other);
+            FileUtil.deleteRecursively(third);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNoDirectories() throws Exception {
+        new DirectoryListingCache(dir.getFileSystem(), 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingDirectory() throws Exception {
+        cache.list(dir.resolve("missing"));
+    }
+
+    private static void awaitEquals(List<Path> expected, Supplier<List<Path>> actual) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while(!expected.equals(actual.get()) && System.currentTimeMillis() < deadline){
+            Thread.sleep(20);
+        }
+        TestCase.assertEquals(expected, actual.get());
+    }
+}
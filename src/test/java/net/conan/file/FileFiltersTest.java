@@ -5,6 +5,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Conan Dombroski ()
@@ -41,4 +50,31 @@ public class FileFiltersTest {
         File[] files = testFile.listFiles(FileFilters.literalFilter("classes"));
         TestCase.assertEquals(1,files.length);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAttributePredicates() throws Exception {
+        Path dir = Files.createTempDirectory("attributes");
+        try {
+            Path small = Files.write(dir.resolve("small.txt"), new byte[10]);
+            Path large = Files.write(dir.resolve("large.bin"), new byte[1000]);
+            Files.setLastModifiedTime(small, FileTime.from(Instant.parse("2000-01-01T00:00:00Z")));
+            Path link = Files.createSymbolicLink(dir.resolve("link"), large);
+
+            TestCase.assertEquals(1, find(dir, FileFilters.regularFile().and(FileFilters.sizeBetween(0, 100))).size());
+            TestCase.assertEquals(large, find(dir, FileFilters.sizeBetween(100, 1001).and(FileFilters.regularFile())).get(0));
+            TestCase.assertEquals(small, find(dir, FileFilters.modifiedBefore(Instant.parse("2001-01-01T00:00:00Z"))).get(0));
+            TestCase.assertEquals(3, find(dir, FileFilters.modifiedSince(Instant.parse("2001-01-01T00:00:00Z"))).size());
+            TestCase.assertEquals(link, find(dir, FileFilters.symbolicLink()).get(0));
+            TestCase.assertEquals(dir, find(dir, FileFilters.directory()).get(0));
+            TestCase.assertEquals(small, find(dir, FileFilters.named(NameFilter.suffix(".txt"))).get(0));
+        }finally {
+            FileUtil.deleteRecursively(dir);
+        }
+    }
+
+    private static List<Path> find(Path dir, BiPredicate<Path,BasicFileAttributes> filter) throws Exception {
+        try(Stream<Path> found = Files.find(dir, 1, filter)){
+            return found.collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Conan Dombroski
+ */
+public class FileFollowerTest {
+
+    private Path dir;
+    private Path file;
+    private final List<String> lines = new ArrayList<>();
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("follow");
+        file = dir.resolve("app.log");
+        Files.write(file, "one\r\ntwo\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtil.deleteRecursively(dir);
+    }
+
+    @Test
+    public void testAppends() throws Exception {
+        try(FileFollower follower = new FileFollower(file)){
+            TestCase.assertEquals(2, follower.poll(lines::add));
+            TestCase.assertEquals(0, follower.poll(lines::add));
+            append("thr");
+            TestCase.assertEquals(0, follower.poll(lines::add));
+            append("ee\nfour\n");
+            TestCase.assertEquals(2, follower.poll(lines::add));
+            TestCase.assertEquals(Arrays.asList("one", "two", "three", "four"), lines);
+            TestCase.assertEquals(Files.size(file), follower.checkpoint().offset());
+        }
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        Path state = dir.resolve("state");
+        TestCase.assertEquals(FileFollower.Checkpoint.START, FileFollower.Checkpoint.load(state));
+        try(FileFollower follower = new FileFollower(file)){
+            follower.poll(lines::add);
+            follower.checkpoint().save(state);
+            TestCase.assertEquals(follower.checkpoint(), FileFollower.Checkpoint.load(state));
+        }
+        append("three\n");
+        try(FileFollower follower = new FileFollower(file, FileFollower.Checkpoint.load(state))){
+            TestCase.assertEquals(1, follower.poll(lines::add));
+        }
+        TestCase.assertEquals(Arrays.asList("one", "two", "three"), lines);
+    }
+
+    @Test
+    public void testTruncation() throws Exception {
+        try(FileFollower follower = new FileFollower(file)){
+            follower.poll(lines::add);
+            Files.write(file, "new\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+            TestCase.assertEquals(1, follower.poll(lines::add));
+            TestCase.assertEquals(Arrays.asList("one", "two", "new"), lines);
+        }
+    }
+
+    @Test
+    public void testRotation() throws Exception {
+        try(FileFollower follower = new FileFollower(file)){
+            follower.poll(lines::add);
+            append("last\npartial");
+            Files.move(file, dir.resolve("app.log.1"));
+            Files.write(file, "first\n".getBytes(StandardCharsets.UTF_8));
+            TestCase.assertEquals(3, follower.poll(lines::add));
+            TestCase.assertEquals(Arrays.asList("one", "two", "last", "partial", "first"), lines);
+            TestCase.assertEquals(6, follower.checkpoint().offset());
+        }
+    }
+
+    @Test
+    public void testRotationBetweenRuns() throws Exception {
+        FileFollower.Checkpoint checkpoint;
+        try(FileFollower follower = new FileFollower(file)){
+            follower.poll(lines::add);
+            checkpoint = follower.checkpoint();
+        }
+        Files.move(file, dir.resolve("app.log.1"));
+        Files.write(file, "a much longer first line\n".getBytes(StandardCharsets.UTF_8));
+        try(FileFollower follower = new FileFollower(file, checkpoint)){
+            follower.poll(lines::add);
+        }
+        if(checkpoint.fileKey() != null){
+            TestCase.assertEquals("a much longer first line", lines.get(2));
+        }
+    }
+
+    @Test
+    public void testMissingFile() throws Exception {
+        Files.delete(file);
+        try(FileFollower follower = new FileFollower(file)){
+            TestCase.assertEquals(0, follower.poll(lines::add));
+            Files.write(file, "late\n".getBytes(StandardCharsets.UTF_8));
+            TestCase.assertEquals(1, follower.poll(lines::add));
+        }
+    }
+
+    @Test
+    public void testFollow() throws Exception {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        FileFollower follower = new FileFollower(file);
+        Thread thread = new Thread(() -> follower.follow(seen::add));
+        thread.start();
+        try {
+            append("three\n");
+            long deadline = System.currentTimeMillis() + 10000;
+            while(seen.size() < 3 && System.currentTimeMillis() < deadline){
+                Thread.sleep(20);
+            }
+            TestCase.assertEquals(Arrays.asList("one", "two", "three"), seen);
+        }finally {
+            follower.close();
+            thread.join(10000);
+        }
+        TestCase.assertFalse(thread.isAlive());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() throws Exception {
+        FileFollower follower = new FileFollower(file);
+        follower.close();
+        follower.poll(lines::add);
+    }
+
+    @Test
+    public void testSingleByteTerminatorCharsets() throws Exception {
+        Files.write(file, "caf\u00e9\n".getBytes(StandardCharsets.ISO_8859_1));
+        try(FileFollower follower = new FileFollower(file, FileFollower.Checkpoint.START, StandardCharsets.ISO_8859_1)){
+            TestCase.assertEquals(1, follower.poll(lines::add));
+            TestCase.assertEquals("caf\u00e9", lines.get(0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedCharset() throws Exception {
+        new FileFollower(file, FileFollower.Checkpoint.START, StandardCharsets.UTF_16);
+    }
+
+    private void append(String text) throws Exception {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+}
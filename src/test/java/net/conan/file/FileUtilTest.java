@@ -1,6 +1,7 @@
 package net.conan.file;
 
 import junit.framework.TestCase;
+import net.conan.io.IOUtil;
 import net.conan.lambda.ExceptionWrapper;
 import org.junit.After;
 import org.junit.Before;
@@ -10,7 +11,13 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.stream.Collectors;
@@ -79,6 +86,99 @@ public class FileUtilTest {
         ));
     }
 
+    @Test
+    public void testForAllLinesParallel() throws Exception {
+        target = createTempFile("./target/testForAllLinesParallel.txt");
+        List<String> sequential = new ArrayList<>();
+        FileUtil.forAllLines(target, sequential::add);
+        List<String> ordered = new ArrayList<>();
+        FileUtil.forAllLinesParallel(target, ordered::add, true);
+        TestCase.assertEquals(sequential, ordered);
+        List<String> unordered = Collections.synchronizedList(new ArrayList<>());
+        FileUtil.forAllLinesParallel(target, unordered::add, false);
+        TestCase.assertEquals(sequential.size(), unordered.size());
+        TestCase.assertTrue(unordered.containsAll(sequential));
+    }
+
+    @Test
+    public void testScanLines() throws Exception {
+        target = createTempFile("./target/testScanLines.txt");
+        List<String> lines = new ArrayList<>();
+        long count = FileUtil.scanLines(target, line -> lines.add(line.toString()));
+        TestCase.assertEquals(4, count);
+        TestCase.assertEquals(IOUtil.getFileContent(target), lines);
+    }
+
+    @Test
+    public void testForNewLines() throws Exception {
+        target = createTempFile("./target/testForNewLines.txt");
+        Path checkpoint = new File("./target/testForNewLines.checkpoint").toPath();
+        try {
+            List<String> lines = new ArrayList<>();
+            TestCase.assertEquals(4, FileUtil.forNewLines(target, checkpoint, lines::add));
+            TestCase.assertEquals(0, FileUtil.forNewLines(target, checkpoint, lines::add));
+            Files.write(target.toPath(), "appended\n".getBytes(), StandardOpenOption.APPEND);
+            TestCase.assertEquals(1, FileUtil.forNewLines(target, checkpoint, lines::add));
+            TestCase.assertEquals("appended", lines.get(4));
+        }finally {
+            Files.deleteIfExists(checkpoint);
+        }
+    }
+
+    @Test
+    public void testWalk() throws Exception {
+        List<String> newList = createStructure("testWalk");
+        target = new File(newList.get(0));
+        List<Path> found = new ArrayList<>();
+        FileUtil.walk(target.toPath(), FileFilters.regularFile().and(FileFilters.named(NameFilter.extension("txt"))),
+              (path, attributes) -> found.add(path));
+        TestCase.assertEquals(2, found.size());
+
+        found.clear();
+        FileUtil.walk(target.toPath(), FileFilters.directory(), (path, attributes) -> found.add(path));
+        TestCase.assertEquals(4, found.size());
+        TestCase.assertEquals(target.toPath(), found.get(0));
+
+        found.clear();
+        FileUtil.walk(target.toPath(), 1, false, (path, attributes) -> true, (path, attributes) -> found.add(path));
+        TestCase.assertEquals(3, found.size());
+    }
+
+    @Test
+    public void testWalkSkipsFailures() throws Exception {
+        List<String> newList = createStructure("testWalkSkipsFailures");
+        target = new File(newList.get(0));
+        Path loop = Files.createSymbolicLink(target.toPath().resolve("dir1").resolve("loop"), target.toPath().toAbsolutePath());
+        List<Path> found = new ArrayList<>();
+        List<Path> failed = new ArrayList<>();
+        FileUtil.walk(target.toPath(), Integer.MAX_VALUE, true, FileFilters.regularFile(),
+              (path, attributes) -> found.add(path), (path, e) -> failed.add(path));
+        TestCase.assertEquals(Collections.singletonList(loop), failed);
+        TestCase.assertEquals(newList.size() - 4, found.size());
+
+        if(System.getProperty("user.name").equals("root")){
+            // Permissions do not stop root from reading.
+            return;
+        }
+        Path locked = target.toPath().resolve("dir1");
+        Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("-wx------"));
+        try {
+            found.clear();
+            failed.clear();
+            FileUtil.walk(target.toPath(), Integer.MAX_VALUE, false, FileFilters.regularFile(),
+                  (path, attributes) -> found.add(path), (path, e) -> failed.add(path));
+            TestCase.assertEquals(Collections.singletonList(locked), failed);
+            TestCase.assertFalse(found.isEmpty());
+        }finally {
+            Files.setPosixFilePermissions(locked, PosixFilePermissions.fromString("rwx------"));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testWalkMissing() throws Exception {
+        FileUtil.walk(new File("./target/noSuchDirectory").toPath(), (path, attributes) -> true, (path, attributes) -> {});
+    }
+
     private File createTempFile(String name){
         File f = new File(name);
         createTempFile(f);
@@ -0,0 +1,76 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * @author Conan Dombroski
+ */
+public class MultiPatternFileFilterTest {
+
+    @Test
+    public void testReportsMatchingPattern() throws Exception {
+        MultiPatternFileFilter filter = new MultiPatternFileFilter(".*\\.log", "app-\\d+\\.log", "README", ".*?\\.tmp",
+              "(?i)readme");
+        TestCase.assertEquals(Optional.of(".*\\.log"), filter.matchingPattern(new File("x/app-12.log")));
+        TestCase.assertEquals(Arrays.asList(".*\\.log", "app-\\d+\\.log"), filter.matchingPatterns(new File("app-12.log")));
+        TestCase.assertEquals(Arrays.asList("README", "(?i)readme"), filter.matchingPatterns(new File("README")));
+        TestCase.assertEquals(Collections.singletonList("(?i)readme"), filter.matchingPatterns(new File("ReadMe")));
+        TestCase.assertEquals(3, filter.firstMatch("a.tmp"));
+        TestCase.assertEquals(-1, filter.firstMatch("a.tmp.gz"));
+        TestCase.assertFalse(filter.matches("bad\nname.log"));
+        TestCase.assertEquals(5, filter.size());
+        TestCase.assertEquals("README", filter.pattern(2));
+    }
+
+    @Test
+    public void testSameAsPatterns() throws Exception {
+        List<String> regexes = new ArrayList<>();
+        for(int i = 0; i < 150; i++){
+            switch(i % 5){
+                case 0: regexes.add(".*\\.ext" + i); break;
+                case 1: regexes.add("file" + i + "\\.txt"); break;
+                case 2: regexes.add("log-" + i + "-\\d{2}\\..*"); break;
+                case 3: regexes.add("(a|b)+" + i); break;
+                default: regexes.add("x(?=y)y" + i + "\\w*"); break;
+            }
+        }
+        MultiPatternFileFilter filter = new MultiPatternFileFilter(regexes);
+        List<String> names = Arrays.asList("a.ext0", "file1.txt", "log-2-12.gz", "abab3", "xy4z", "xy4", "a.ext5.bak",
+              "nothing", ".ext10", "log-7-1.gz", "ba113");
+        for(String name : names){
+            List<String> expected = new ArrayList<>();
+            for(String regex : regexes){
+                if(Pattern.matches(regex, name)){
+                    expected.add(regex);
+                }
+            }
+            TestCase.assertEquals(name, expected, filter.matchingPatterns(new File(name)));
+            TestCase.assertEquals(name, !expected.isEmpty(), filter.matches(name));
+        }
+    }
+
+    @Test
+    public void testAsFileFilter() throws Exception {
+        File target = new File("./target");
+        MultiPatternFileFilter filter = new MultiPatternFileFilter("classes", "test-classes", "nothing.*");
+        TestCase.assertEquals(2, target.listFiles((FileFilter) filter).length);
+        TestCase.assertEquals(2, target.list(filter).length);
+    }
+
+    @Test
+    public void testPatternTooLargeForTheAutomaton() throws Exception {
+        MultiPatternFileFilter filter = new MultiPatternFileFilter("(a{999}){999}", ".*\\.log");
+        TestCase.assertTrue(filter.accept(new File("app.log")));
+        TestCase.assertFalse(filter.accept(new File("a")));
+    }
+}
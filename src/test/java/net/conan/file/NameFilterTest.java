@@ -0,0 +1,92 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * @author Conan Dombroski
+ */
+public class NameFilterTest {
+
+    @Test
+    public void testPrimitives() throws Exception {
+        TestCase.assertTrue(NameFilter.literal("a.log").matches("a.log"));
+        TestCase.assertFalse(NameFilter.literal("a.log").matches("b.log"));
+        TestCase.assertTrue(NameFilter.prefix("report-").matches("report-1.txt"));
+        TestCase.assertFalse(NameFilter.prefix("report-").matches("reports"));
+        TestCase.assertTrue(NameFilter.suffix(".log").matches("a.log"));
+        TestCase.assertTrue(NameFilter.extension("log").matches("a.log"));
+        TestCase.assertTrue(NameFilter.extension(".log").matches("a.log"));
+        TestCase.assertFalse(NameFilter.extension("log").matches("alog"));
+        TestCase.assertTrue(NameFilter.contains("tmp").matches("a.tmp.1"));
+        TestCase.assertTrue(NameFilter.all().matches("x"));
+        TestCase.assertFalse(NameFilter.none().matches("x"));
+    }
+
+    @Test
+    public void testSimpleRegexAvoidsMatcher() throws Exception {
+        TestCase.assertEquals("suffix(.log)", NameFilter.regex(".*\\.log").toString());
+        TestCase.assertEquals("prefix(report-)", NameFilter.regex("report-.*?").toString());
+        TestCase.assertEquals("contains(ass)", NameFilter.regex(".*?ass.*?").toString());
+        TestCase.assertEquals("literal(classes)", NameFilter.regex("\\Qclasses\\E").toString());
+        TestCase.assertEquals("prefix(a)&suffix(b)", NameFilter.regex("^a.+b$").toString());
+        TestCase.assertEquals("regex(\\w+\\.log)", NameFilter.regex("\\w+\\.log").toString());
+        TestCase.assertEquals("regex(.*\\.log)", NameFilter.regex(Pattern.compile(".*\\.log", Pattern.CASE_INSENSITIVE)).toString());
+        TestCase.assertEquals("suffix(.tmp)", NameFilter.glob("*.tmp").toString());
+        TestCase.assertEquals("glob(cache-??-*)", NameFilter.glob("cache-??-*").toString());
+    }
+
+    @Test
+    public void testSameAsPattern() throws Exception {
+        List<String> regexes = Arrays.asList(".*\\.log", "a.*", ".*a.*", "a.+b", ".+a", "a.*b.+a", "ab", "^a.*$",
+              ".*\\.l.g", "a.*+b", ".*", ".+", "a.*\\n", "\\Qa.\\E.*");
+        Random random = new Random(11);
+        for(int round = 0; round < 3000; round++){
+            StringBuilder name = new StringBuilder();
+            for(int i = random.nextInt(7); i > 0; i--){
+                name.append("ab.log\n".charAt(random.nextInt(7)));
+            }
+            for(String regex : regexes){
+                TestCase.assertEquals(regex + " on " + name, Pattern.matches(regex, name),
+                      NameFilter.regex(regex).matches(name.toString()));
+            }
+        }
+    }
+
+    @Test
+    public void testCombinators() throws Exception {
+        NameFilter logs = NameFilter.extension("log").and(NameFilter.prefix("app")).and(NameFilter.regex("\\w+\\d\\.log").negate());
+        TestCase.assertTrue(logs.matches("app.log"));
+        TestCase.assertFalse(logs.matches("app1.log"));
+        TestCase.assertFalse(logs.matches("web.log"));
+        TestCase.assertTrue(logs.toString().startsWith("and["));
+        TestCase.assertTrue(logs.toString().endsWith("not(regex(\\w+\\d\\.log))]"));
+
+        NameFilter names = NameFilter.literal("a").or(NameFilter.literal("b")).or(NameFilter.suffix(".x"));
+        TestCase.assertTrue(names.matches("a"));
+        TestCase.assertTrue(names.matches("b"));
+        TestCase.assertTrue(names.matches("c.x"));
+        TestCase.assertFalse(names.matches("c"));
+        TestCase.assertEquals(2, names.toString().split("\\), ").length);
+
+        TestCase.assertSame(NameFilter.none(), NameFilter.prefix("a").and(NameFilter.none()));
+        TestCase.assertSame(NameFilter.all(), NameFilter.prefix("a").or(NameFilter.all()));
+        NameFilter prefix = NameFilter.prefix("a");
+        TestCase.assertSame(prefix, prefix.negate().negate());
+        TestCase.assertSame(prefix, NameFilter.allOf(prefix, NameFilter.all()));
+    }
+
+    @Test
+    public void testAsFileFilters() throws Exception {
+        File target = new File("./target");
+        TestCase.assertEquals(1, target.list(NameFilter.literal("classes").or(NameFilter.literal("missing"))).length);
+        TestCase.assertEquals(2, target.listFiles((FileFilter) NameFilter.contains("ass").and(NameFilter.suffix("classes"))).length);
+    }
+}
@@ -0,0 +1,181 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Conan Dombroski
+ */
+public class ParallelFileWalkerTest {
+
+    private Path root;
+
+    @Before
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("walker");
+        for(int a = 0; a < 5; a++){
+            Path dirA = Files.createDirectory(root.resolve("a" + a));
+            for(int b = 0; b < 4; b++){
+                Path dirB = Files.createDirectory(dirA.resolve("b" + b));
+                for(int f = 0; f < 10; f++){
+                    Files.write(dirB.resolve("file" + f + (f % 2 == 0 ? ".txt" : ".bin")), new byte[f]);
+                }
+            }
+            Files.write(dirA.resolve("top.txt"), new byte[100]);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtil.deleteRecursively(root);
+    }
+
+    @Test
+    public void testSameAsFilesWalk() throws Exception {
+        Set<Path> found = ConcurrentHashMap.newKeySet();
+        new ParallelFileWalker().withParallelism(4).walk(root, (path, attributes) -> TestCase.assertTrue(found.add(path)));
+        TestCase.assertEquals(walk(root, Integer.MAX_VALUE), found);
+        TestCase.assertEquals(1 + 5 + 5 * 4 + 5 * 4 * 10 + 5, found.size());
+    }
+
+    @Test
+    public void testFilterAndDepth() throws Exception {
+        ParallelFileWalker walker = new ParallelFileWalker().withParallelism(3)
+              .withFilter(FileFilters.regularFile().and(FileFilters.named(NameFilter.extension("txt"))));
+        TestCase.assertEquals(5 * 4 * 5 + 5, walker.count(root));
+        TestCase.assertEquals(5, walker.withMaxDepth(2).count(root));
+        TestCase.assertEquals(0, walker.withMaxDepth(1).count(root));
+        TestCase.assertEquals(1, new ParallelFileWalker().withMaxDepth(0).count(root));
+        TestCase.assertEquals(walk(root, 2).size(), new ParallelFileWalker().withMaxDepth(2).count(root));
+        TestCase.assertEquals(5 * 4 * 3, new ParallelFileWalker()
+              .withFilter(FileFilters.sizeBetween(7, 10).and(FileFilters.regularFile())).count(root));
+    }
+
+    @Test
+    public void testSymlinkPolicies() throws Exception {
+        Path loop = Files.createSymbolicLink(root.resolve("a0").resolve("loop"), root);
+        Path linked = Files.createSymbolicLink(root.resolve("linked"), root.resolve("a1"));
+        Path dangling = Files.createSymbolicLink(root.resolve("dangling"), root.resolve("missing"));
+        try {
+            assertSymlinkPolicies();
+        }finally {
+            Files.delete(loop);
+            Files.delete(linked);
+            Files.delete(dangling);
+        }
+    }
+
+    private void assertSymlinkPolicies(){
+        long plain = 1 + 5 + 5 * 4 + 5 * 4 * 10 + 5;
+
+        TestCase.assertEquals(plain, new ParallelFileWalker().withSymlinkPolicy(ParallelFileWalker.SymlinkPolicy.SKIP).count(root));
+        TestCase.assertEquals(plain + 3, new ParallelFileWalker().count(root));
+        ParallelFileWalker follow = new ParallelFileWalker().withSymlinkPolicy(ParallelFileWalker.SymlinkPolicy.FOLLOW);
+        // linked repeats a1 (1 + 4 + 40 + 1 entries), loop is reported but not descended into
+        TestCase.assertEquals(plain + 3 + 4 + 40 + 1, follow.count(root));
+        TestCase.assertEquals(1, follow.withFilter(FileFilters.symbolicLink()).count(root));
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        ParallelFileWalker walker = new ParallelFileWalker().withParallelism(2).withFilter(FileFilters.regularFile());
+        try(Stream<Path> paths = walker.stream(root)){
+            TestCase.assertEquals(205, paths.collect(Collectors.toSet()).size());
+        }
+        try(Stream<Path> paths = walker.stream(root)){
+            TestCase.assertEquals(3, paths.limit(3).count());
+        }
+        try(Stream<Path> paths = FileUtil.findParallel(root.resolve("a0").resolve("b0"), FileFilters.directory())){
+            TestCase.assertEquals(1, paths.count());
+        }
+    }
+
+    @Test
+    public void testWideTreeListedInline() throws Exception {
+        Path wide = Files.createDirectory(root.resolve("wide"));
+        for(int i = 0; i < ParallelFileWalker.QUEUED_DIRECTORIES_PER_THREAD * 3; i++){
+            Files.write(Files.createDirectory(wide.resolve("d" + i)).resolve("file"), new byte[1]);
+        }
+        Set<Path> found = ConcurrentHashMap.newKeySet();
+        new ParallelFileWalker().withParallelism(1).walk(root, (path, attributes) -> TestCase.assertTrue(found.add(path)));
+        TestCase.assertEquals(walk(root, Integer.MAX_VALUE), found);
+    }
+
+    @Test
+    public void testAbandonedStreamStops() throws Exception {
+        Path many = Files.createDirectory(root.resolve("many"));
+        for(int i = 0; i < ParallelFileWalker.STREAM_BUFFER_SIZE + 1000; i++){
+            Files.createFile(many.resolve("f" + i));
+        }
+        Set<Thread> walkers = ConcurrentHashMap.newKeySet();
+        abandonStream(walkers);
+        // The start is offered by the calling thread.
+        walkers.remove(Thread.currentThread());
+        TestCase.assertFalse(walkers.isEmpty());
+        long deadline = System.currentTimeMillis() + 20000;
+        while(walkers.stream().anyMatch(Thread::isAlive) && System.currentTimeMillis() < deadline){
+            System.gc();
+            Thread.sleep(100);
+        }
+        TestCase.assertFalse(walkers.stream().anyMatch(Thread::isAlive));
+    }
+
+    private void abandonStream(Set<Thread> walkers){
+        Iterator<Path> paths = new ParallelFileWalker().withParallelism(2).withFilter((path, attributes) -> {
+            walkers.add(Thread.currentThread());
+            return true;
+        }).stream(root).iterator();
+        for(int i = 0; i < 10; i++){
+            paths.next();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testStreamFailure() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        try(Stream<Path> paths = new ParallelFileWalker().withFilter((path, attributes) -> {
+            if(calls.incrementAndGet() == 50){
+                throw new IllegalStateException("TEST FAIL");
+            }
+            return true;
+        }).stream(root)){
+            paths.count();
+        }
+    }
+
+    @Test
+    public void testConsumerFailure() throws Exception {
+        try {
+            FileUtil.walkParallel(root, FileFilters.regularFile(), (path, attributes) -> {
+                throw new IllegalArgumentException("TEST FAIL");
+            });
+            TestCase.fail("Expected the consumer failure");
+        }catch (IllegalArgumentException e){
+            TestCase.assertEquals("TEST FAIL", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingStart() throws Exception {
+        new ParallelFileWalker().count(root.resolve("missing"));
+    }
+
+    private static Set<Path> walk(Path start, int depth) throws IOException {
+        try(Stream<Path> paths = Files.walk(start, depth)){
+            return paths.collect(Collectors.toCollection(HashSet::new));
+        }
+    }
+}
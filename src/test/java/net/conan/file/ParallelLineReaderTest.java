@@ -0,0 +1,116 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Conan Dombroski
+ */
+public class ParallelLineReaderTest {
+
+    private Path dir;
+    private Path file;
+    private List<String> expected;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("lines");
+        file = dir.resolve("lines.txt");
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 500; i++){
+            text.append("line ").append(i).append(" \u00e9\u4e2d\ud83d\ude00");
+            text.append(i % 7 == 0 ? "\r\n" : i % 11 == 0 ? "\r" : "\n");
+            if(i % 13 == 0){
+                text.append('\n');
+            }
+        }
+        text.append("last");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+        expected = Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtil.deleteRecursively(dir);
+    }
+
+    @Test
+    public void testOrdered() throws Exception {
+        for(int chunkSize : new int[]{1, 7, 64, 4096, ParallelLineReader.DEFAULT_CHUNK_SIZE}){
+            List<String> lines = new ArrayList<>();
+            new ParallelLineReader().withParallelism(4).withChunkSize(chunkSize).withOrdered(true)
+                  .forEachLine(file, lines::add);
+            TestCase.assertEquals("chunk size " + chunkSize, expected, lines);
+        }
+    }
+
+    @Test
+    public void testUnordered() throws Exception {
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        new ParallelLineReader().withParallelism(4).withChunkSize(100).forEachLine(file, lines::add);
+        List<String> sorted = new ArrayList<>(expected);
+        Collections.sort(sorted);
+        Collections.sort(lines);
+        TestCase.assertEquals(sorted, lines);
+    }
+
+    @Test
+    public void testEmptyAndTrailingNewline() throws Exception {
+        Files.write(file, new byte[0]);
+        List<String> lines = new ArrayList<>();
+        new ParallelLineReader().withOrdered(true).forEachLine(file, lines::add);
+        TestCase.assertTrue(lines.isEmpty());
+
+        Files.write(file, "a\n\nb\n".getBytes(StandardCharsets.UTF_8));
+        new ParallelLineReader().withOrdered(true).withChunkSize(1).forEachLine(file, lines::add);
+        TestCase.assertEquals(Arrays.asList("a", "", "b"), lines);
+    }
+
+    @Test
+    public void testSequentialCharset() throws Exception {
+        Files.write(file, "one\ntwo\r\nthree".getBytes(StandardCharsets.UTF_16));
+        List<String> lines = new ArrayList<>();
+        new ParallelLineReader().withCharset(StandardCharsets.UTF_16).withChunkSize(2).forEachLine(file, lines::add);
+        TestCase.assertEquals(Arrays.asList("one", "two", "three"), lines);
+        TestCase.assertFalse(ParallelLineReader.splitsOnNewlineBytes(StandardCharsets.UTF_16));
+        TestCase.assertTrue(ParallelLineReader.splitsOnNewlineBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMalformed() throws Exception {
+        Files.write(file, new byte[]{'a', '\n', (byte) 0xff, '\n'});
+        new ParallelLineReader().forEachLine(file, line -> {});
+    }
+
+    @Test
+    public void testConsumerFailureStops() throws Exception {
+        AtomicInteger seen = new AtomicInteger();
+        try {
+            new ParallelLineReader().withParallelism(2).withChunkSize(1).forEachLine(file, line -> {
+                if(seen.incrementAndGet() == 10){
+                    throw new IllegalArgumentException("stop");
+                }
+            });
+            TestCase.fail("Expected the consumer's failure");
+        }catch (IllegalArgumentException e){
+            TestCase.assertEquals("stop", e.getMessage());
+        }
+        TestCase.assertTrue(seen.get() < expected.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMissingFile() throws Exception {
+        new ParallelLineReader().forEachLine(dir.resolve("missing.txt"), line -> {});
+    }
+}
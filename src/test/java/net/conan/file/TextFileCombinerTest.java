@@ -1,18 +1,26 @@
 package net.conan.file;
 
 import junit.framework.TestCase;
+import net.conan.io.IOUtil;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileWriter;
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
 
 /**
  * @author Conan Dombroski ()
@@ -86,6 +94,186 @@ public class TextFileCombinerTest {
         }
     }
 
+    @Test
+    public void testCombineParallel() throws Exception {
+        List<File> files = new ArrayList<>();
+        for(int i=0; i<50; i++){
+            File f = File.createTempFile("tempFile" + i, "txt");
+            f.deleteOnExit();
+            files.add(f);
+            if(i % 10 != 0){
+                createTempFile(f);
+            }
+        }
+        File sequential = new File("./target/testCombineParallel-sequential.txt");
+        File parallel = new File("./target/testCombineParallel-parallel.txt");
+        try {
+            TextFileCombiner fc = new TextFileCombiner("---------TEST");
+            fc.combine(files, sequential);
+            Files.write(parallel.toPath(), new byte[(int) sequential.length() * 2]);
+            File result = fc.withParallelism(4).combine(files, parallel);
+            TestCase.assertEquals(parallel, result);
+            TestCase.assertTrue("Parallel result differs",
+                  Arrays.equals(Files.readAllBytes(sequential.toPath()), Files.readAllBytes(parallel.toPath())));
+
+            fc.withParallelism(4).combine(new ArrayList<>(), parallel);
+            TestCase.assertEquals(0, parallel.length());
+        }finally {
+            sequential.delete();
+            parallel.delete();
+            files.forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testCombineSmallFileBatches() throws Exception {
+        List<File> files = new ArrayList<>();
+        Random r = new Random(42);
+        for(int i=0; i<1500; i++){
+            File f = File.createTempFile("tempFile" + i, "txt");
+            f.deleteOnExit();
+            files.add(f);
+            byte[] content = new byte[i % 100 == 0 ? 3000 : r.nextInt(200)];
+            r.nextBytes(content);
+            Files.write(f.toPath(), content);
+        }
+        File sequential = new File("./target/testCombineSmallFileBatches-sequential.txt");
+        File batched = new File("./target/testCombineSmallFileBatches-batched.txt");
+        try {
+            TextFileCombiner fc = new TextFileCombiner("---------TEST");
+            fc.combine(files, sequential);
+            fc.withSmallFileThreshold(1024).combine(files, batched);
+            TestCase.assertTrue("Batched result differs",
+                  Arrays.equals(Files.readAllBytes(sequential.toPath()), Files.readAllBytes(batched.toPath())));
+        }finally {
+            sequential.delete();
+            batched.delete();
+            files.forEach(File::delete);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSmallFileThreshold() throws Exception {
+        new TextFileCombiner().withSmallFileThreshold(-1);
+    }
+
+    @Test
+    public void testCombineTranscoding() throws Exception {
+        String text = "caf\u00e9 \u4e2d\u6587 \ud83d\ude00";
+        StringBuilder large = new StringBuilder();
+        for(int i=0; i<20000; i++){
+            large.append(text).append(i).append('\n');
+        }
+        File utf16 = File.createTempFile("utf16", "txt");
+        File utf8Bom = File.createTempFile("utf8Bom", "txt");
+        File latin1 = File.createTempFile("latin1", "txt");
+        File utf8 = File.createTempFile("utf8", "txt");
+        File target = new File("./target/testCombineTranscoding-target.txt");
+        try {
+            Files.write(utf16.toPath(), concat(new byte[]{(byte) 0xFF, (byte) 0xFE}, large.toString().getBytes(StandardCharsets.UTF_16LE)));
+            Files.write(utf8Bom.toPath(), concat(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, text.getBytes(StandardCharsets.UTF_8)));
+            Files.write(latin1.toPath(), "na\u00efve".getBytes(StandardCharsets.ISO_8859_1));
+            Files.write(utf8.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+            TextFileCombiner fc = new TextFileCombiner("\u00a7")
+                  .withOutputCharset(StandardCharsets.UTF_8)
+                  .withCharsets(Collections.singletonMap(latin1, StandardCharsets.ISO_8859_1));
+            fc.combine(Arrays.asList(utf16, utf8Bom, latin1, utf8), target);
+            String separator = "\u00a7" + System.getProperty("line.separator");
+            String expected = large + separator + text + separator + "na\u00efve" + separator + text + separator;
+            TestCase.assertEquals(expected, new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+
+            fc.withOutputCharset(StandardCharsets.UTF_16BE).withInputCharset(StandardCharsets.UTF_8)
+                  .combine(Arrays.asList(utf16, utf8Bom, latin1, utf8), target);
+            TestCase.assertEquals(expected, new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_16BE));
+        }finally {
+            utf16.delete();
+            utf8Bom.delete();
+            latin1.delete();
+            utf8.delete();
+            target.delete();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCombineUnmappable() throws Exception {
+        File utf8 = File.createTempFile("utf8", "txt");
+        File target = new File("./target/testCombineUnmappable-target.txt");
+        try {
+            Files.write(utf8.toPath(), "\u4e2d".getBytes(StandardCharsets.UTF_8));
+            new TextFileCombiner().withOutputCharset(StandardCharsets.ISO_8859_1).withInputCharset(StandardCharsets.UTF_8)
+                  .combine(Arrays.asList(utf8), target);
+        }finally {
+            utf8.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void testCombineGzip() throws Exception {
+        List<File> files = new ArrayList<>();
+        Random r = new Random(7);
+        for(int i=0; i<3; i++){
+            File f = File.createTempFile("tempFile" + i, "txt");
+            files.add(f);
+            StringBuilder text = new StringBuilder();
+            while(text.length() < 1500000){
+                text.append("line ").append(r.nextInt(1000)).append('\n');
+            }
+            Files.write(f.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        File plain = new File("./target/testCombineGzip-target.txt");
+        File gzip = new File("./target/testCombineGzip-target.txt.gz");
+        try {
+            TextFileCombiner fc = new TextFileCombiner("---------TEST").withSmallFileThreshold(1024);
+            fc.combine(files, plain);
+            fc.withGzip(Deflater.BEST_SPEED, 3).combine(files, gzip);
+            TestCase.assertTrue("Not compressed", gzip.length() < plain.length());
+            TestCase.assertTrue("Decompressed result differs", Arrays.equals(Files.readAllBytes(plain.toPath()), gunzip(gzip)));
+
+            fc.withGzip(Deflater.DEFAULT_COMPRESSION).combine(new ArrayList<>(), gzip);
+            TestCase.assertEquals(0, gunzip(gzip).length);
+        }finally {
+            plain.delete();
+            gzip.delete();
+            files.forEach(File::delete);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidGzipLevel() throws Exception {
+        new TextFileCombiner().withGzip(10);
+    }
+
+    static byte[] gunzip(File gzip) throws Exception {
+        try(InputStream in = new GZIPInputStream(new FileInputStream(gzip))){
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            IOUtil.readWrite(in, out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second){
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCombineParallelFileNotFound() throws Exception {
+        File target = new File("./target/testCombineParallelFileNotFound-target.txt");
+        try {
+            new TextFileCombiner().withParallelism(2).combine(Arrays.asList(new File("bogus.txt")), target);
+        }finally {
+            target.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidParallelism() throws Exception {
+        new TextFileCombiner().withParallelism(0);
+    }
+
     private void createTempFile(File f) throws Exception{
         try(PrintWriter out = new PrintWriter(new FileWriter(f))){
             Random r = new Random();
@@ -0,0 +1,76 @@
+package net.conan.file;
+
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Conan Dombroski
+ */
+public class TreeStatisticsTest {
+
+    private Path root;
+
+    @Before
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("statistics");
+        Path logs = Files.createDirectories(root.resolve("logs").resolve("old"));
+        Files.write(root.resolve("README"), new byte[5]);
+        Files.write(root.resolve(".hidden"), new byte[1]);
+        Files.write(root.resolve("logs").resolve("a.log"), new byte[100]);
+        Files.write(root.resolve("logs").resolve("b.LOG"), new byte[50]);
+        Files.write(logs.resolve("c.log.gz"), new byte[20]);
+        Files.createSymbolicLink(root.resolve("link"), logs);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.delete(root.resolve("link"));
+        FileUtil.deleteRecursively(root);
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        TreeStatistics statistics = TreeStatistics.of(root, new ParallelFileWalker().withParallelism(2));
+        TestCase.assertEquals(5, statistics.fileCount());
+        TestCase.assertEquals(2, statistics.directoryCount());
+        TestCase.assertEquals(1, statistics.otherCount());
+        TestCase.assertEquals(8, statistics.entryCount());
+        TestCase.assertEquals(176, statistics.totalBytes());
+
+        Map<String,Long> files = new HashMap<>();
+        files.put("", 2L);
+        files.put("log", 2L);
+        files.put("gz", 1L);
+        TestCase.assertEquals(files, statistics.filesByExtension());
+        TestCase.assertEquals(Long.valueOf(150), statistics.bytesByExtension().get("log"));
+
+        TestCase.assertEquals(3, statistics.maxDepth());
+        TestCase.assertEquals(4, statistics.entriesAtDepth(1));
+        TestCase.assertEquals(3, statistics.entriesAtDepth(2));
+        TestCase.assertEquals(1, statistics.entriesAtDepth(3));
+        TestCase.assertEquals(0, statistics.entriesAtDepth(4));
+    }
+
+    @Test
+    public void testWalkerOptions() throws Exception {
+        TestCase.assertEquals(4, TreeStatistics.of(root, new ParallelFileWalker().withMaxDepth(1)).entryCount());
+        TreeStatistics followed = TreeStatistics.of(root, new ParallelFileWalker()
+              .withSymlinkPolicy(ParallelFileWalker.SymlinkPolicy.FOLLOW));
+        TestCase.assertEquals(3, followed.directoryCount());
+        TestCase.assertEquals(6, followed.fileCount());
+        TestCase.assertEquals(0, TreeStatistics.of(root.resolve("README")).entryCount());
+    }
+
+    @Test
+    public void testCountAll() throws Exception {
+        TestCase.assertEquals(9, FileUtil.countAll(root.toFile()));
+        TestCase.assertEquals(0, FileUtil.countAll(root.resolve("README").toFile()));
+    }
+}
@@ -0,0 +1,146 @@
+package net.conan.io;
+
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Conan Dombroski
+ */
+public class LineIndexTest {
+
+    private Path dir;
+    private Path file;
+    private List<String> expected;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("index");
+        file = dir.resolve("lines.txt");
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < 1000; i++){
+            text.append("line ").append(i).append(" \u00e9\u4e2d");
+            for(int j = 0; j < i % 300; j++){
+                text.append('x');
+            }
+            text.append(i % 5 == 0 ? "\r\n" : i % 7 == 0 ? "\r" : "\n");
+            if(i % 13 == 0){
+                text.append('\n');
+            }
+        }
+        text.append("last");
+        Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+        expected = Files.readAllLines(file, StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(LineIndex.sidecarOf(file));
+        Files.deleteIfExists(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testRandomAccess() throws Exception {
+        try(LineIndex index = LineIndex.build(file)){
+            TestCase.assertEquals(expected.size(), index.lineCount());
+            for(int i = expected.size() - 1; i >= 0; i--){
+                TestCase.assertEquals(expected.get(i), index.line(i));
+            }
+            TestCase.assertEquals(expected.subList(60, 200), index.lines(60, 200));
+            TestCase.assertEquals(expected, index.lines(0, expected.size()));
+            TestCase.assertTrue(index.lines(5, 5).isEmpty());
+            TestCase.assertEquals(0, index.offsetOf(0));
+            TestCase.assertFalse(Files.exists(LineIndex.sidecarOf(file)));
+        }
+    }
+
+    @Test
+    public void testTerminators() throws Exception {
+        Files.write(file, "a\r\n\rb\n\nc\n".getBytes(StandardCharsets.UTF_8));
+        try(LineIndex index = LineIndex.build(file)){
+            TestCase.assertEquals(Arrays.asList("a", "", "b", "", "c"), index.lines(0, index.lineCount()));
+            TestCase.assertEquals(4, index.offsetOf(2));
+        }
+        Files.write(file, new byte[0]);
+        try(LineIndex index = LineIndex.build(file)){
+            TestCase.assertEquals(0, index.lineCount());
+        }
+    }
+
+    @Test
+    public void testSidecar() throws Exception {
+        try(LineIndex index = LineIndex.open(file)){
+            TestCase.assertEquals(expected.get(500), index.line(500));
+        }
+        Path sidecar = LineIndex.sidecarOf(file);
+        TestCase.assertTrue(Files.exists(sidecar));
+        FileTime written = Files.getLastModifiedTime(sidecar);
+
+        Files.setLastModifiedTime(sidecar, FileTime.fromMillis(written.toMillis() - 10000));
+        FileTime before = Files.getLastModifiedTime(sidecar);
+        try(LineIndex index = LineIndex.open(file)){
+            TestCase.assertEquals(expected.size(), index.lineCount());
+            TestCase.assertEquals(expected.get(999), index.line(999));
+        }
+        TestCase.assertEquals("Current sidecar rewritten", before, Files.getLastModifiedTime(sidecar));
+
+        Files.write(file, "changed\nfile".getBytes(StandardCharsets.UTF_8));
+        try(LineIndex index = LineIndex.open(file)){
+            TestCase.assertEquals(2, index.lineCount());
+            TestCase.assertEquals("file", index.line(1));
+        }
+        try(LineIndex index = LineIndex.open(file)){
+            TestCase.assertTrue(index.isCurrent());
+            TestCase.assertEquals("changed", index.line(0));
+        }
+    }
+
+    @Test
+    public void testCorruptSidecar() throws Exception {
+        Files.write(LineIndex.sidecarOf(file), new byte[]{1, 2, 3});
+        try(LineIndex index = LineIndex.open(file)){
+            TestCase.assertEquals(expected.size(), index.lineCount());
+        }
+    }
+
+    @Test
+    public void testCorruptSidecarSizes() throws Exception {
+        LineIndex.open(file).close();
+        Path sidecar = LineIndex.sidecarOf(file);
+        byte[] saved = Files.readAllBytes(sidecar);
+        int checkpoints = 4 + 4 + 8 + 8 + 8;
+        int deltaLength = checkpoints + 4 + ByteBuffer.wrap(saved, checkpoints, 4).getInt() * 12;
+        for(int[] corruption : new int[][]{{checkpoints, -1}, {checkpoints, Integer.MAX_VALUE},
+              {deltaLength, -1}, {deltaLength, Integer.MAX_VALUE}}){
+            byte[] corrupt = saved.clone();
+            ByteBuffer.wrap(corrupt).putInt(corruption[0], corruption[1]);
+            Files.write(sidecar, corrupt);
+            try(LineIndex index = LineIndex.open(file)){
+                TestCase.assertEquals(expected.size(), index.lineCount());
+                TestCase.assertEquals(expected.get(999), index.line(999));
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfRange() throws Exception {
+        try(LineIndex index = LineIndex.build(file)){
+            index.line(expected.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedCharset() throws Exception {
+        LineIndex.build(file, StandardCharsets.UTF_16);
+    }
+}
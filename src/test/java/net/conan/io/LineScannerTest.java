@@ -0,0 +1,169 @@
+package net.conan.io;
+
+import junit.framework.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Conan Dombroski
+ */
+public class LineScannerTest {
+
+    private Path dir;
+    private Path file;
+    private String text;
+
+    @Before
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("scanner");
+        file = dir.resolve("lines.txt");
+        StringBuilder builder = new StringBuilder();
+        for(int i = 0; i < 300; i++){
+            builder.append("row,").append(i).append(",\u00e9\u4e2d\ud83d\ude00,").append(i * 1.5);
+            builder.append(i % 5 == 0 ? "\r\n" : i % 7 == 0 ? "\r" : "\n");
+            if(i % 17 == 0){
+                builder.append("\r\n");
+            }
+        }
+        builder.append("tail");
+        text = builder.toString();
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.delete(dir);
+    }
+
+    @Test
+    public void testScan() throws Exception {
+        List<String> expected = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for(int bufferSize : new int[]{16, 17, 100, LineScanner.DEFAULT_BUFFER_SIZE}){
+            List<String> lines = new ArrayList<>();
+            long count = new LineScanner().withBufferSize(bufferSize).scan(file, line -> {
+                TestCase.assertEquals(lines.size() + 1, line.number());
+                lines.add(line.toString());
+            });
+            TestCase.assertEquals("buffer size " + bufferSize, expected, lines);
+            TestCase.assertEquals(expected.size(), count);
+        }
+    }
+
+    @Test
+    public void testScanBytes() throws Exception {
+        List<String> expected = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for(int bufferSize : new int[]{16, 33, LineScanner.DEFAULT_BUFFER_SIZE}){
+            List<String> lines = new ArrayList<>();
+            new LineScanner().withBufferSize(bufferSize).scanBytes(file,
+                  line -> lines.add(StandardCharsets.UTF_8.decode(line).toString()));
+            TestCase.assertEquals("buffer size " + bufferSize, expected, lines);
+        }
+    }
+
+    @Test
+    public void testBuffers() throws Exception {
+        List<String> lines = new ArrayList<>();
+        CharBuffer chars = CharBuffer.wrap("a\r\n\rb\nc");
+        TestCase.assertEquals(4, LineScanner.forEachLine(chars, line -> lines.add(line.toString())));
+        TestCase.assertEquals(Arrays.asList("a", "", "b", "c"), lines);
+        TestCase.assertEquals(0, chars.position());
+
+        lines.clear();
+        ByteBuffer bytes = ByteBuffer.wrap("x\ny\r\n".getBytes(StandardCharsets.UTF_8));
+        LineScanner.forEachLine(bytes, line -> lines.add(StandardCharsets.UTF_8.decode(line).toString()));
+        TestCase.assertEquals(Arrays.asList("x", "y"), lines);
+    }
+
+    @Test
+    public void testFields() throws Exception {
+        long[] sum = {0};
+        double[] total = {0};
+        new LineScanner().scan(file, line -> {
+            if(line.startsWith("row,")){
+                TestCase.assertEquals(4, line.fieldCount(','));
+                sum[0] += line.field(1, ',').parseLong();
+                total[0] += line.field(3, ',').parseDouble();
+                TestCase.assertTrue(line.field(2, ',').contentEquals("\u00e9\u4e2d\ud83d\ude00"));
+            }
+        });
+        TestCase.assertEquals(299 * 300 / 2, sum[0]);
+        TestCase.assertEquals(299 * 300 / 2 * 1.5, total[0], 0.0001);
+
+        LineScanner.forEachLine(CharBuffer.wrap("a,,b"), line -> {
+            LineScanner.Field field = line.fields(',');
+            List<String> fields = new ArrayList<>();
+            while(field.next()){
+                TestCase.assertEquals(fields.size(), field.index());
+                fields.add(field.toString());
+            }
+            TestCase.assertEquals(Arrays.asList("a", "", "b"), fields);
+            TestCase.assertTrue(line.endsWith(",b"));
+            TestCase.assertEquals(3, line.indexOf('b'));
+            TestCase.assertEquals(",b", line.subSequence(2, 4).toString());
+            try {
+                line.field(3, ',');
+                TestCase.fail("Expected too few fields");
+            }catch (IndexOutOfBoundsException e){
+                // expected
+            }
+        });
+    }
+
+    @Test
+    public void testParsing() throws Exception {
+        String[] longs = {"0", "-0", "+12", "9223372036854775807", "-9223372036854775808"};
+        for(String s : longs){
+            LineScanner.forEachLine(CharBuffer.wrap(s), line -> TestCase.assertEquals(s, Long.parseLong(s), line.parseLong()));
+            ByteBuffer bytes = ByteBuffer.wrap(s.getBytes(StandardCharsets.US_ASCII));
+            TestCase.assertEquals(s, Long.parseLong(s), LineScanner.parseLong(bytes, 0, bytes.limit()));
+        }
+        String[] badLongs = {"", "-", "1a", "9223372036854775808", "-9223372036854775809"};
+        for(String s : badLongs){
+            try {
+                LineScanner.forEachLine(CharBuffer.wrap(s + "\n"), LineScanner.View::parseLong);
+                TestCase.fail("Parsed " + s);
+            }catch (NumberFormatException e){
+                // expected
+            }
+        }
+        String[] doubles = {"0", "-0.0", "1.5", ".25", "3.", "1e10", "-2.5E-3", "0.1", "123456789012345",
+              "1234567890123456789", "1e-30", "4.9e-324", "Infinity", "NaN", " 7 ", "1d", "0.30000000000000004"};
+        for(String s : doubles){
+            LineScanner.forEachLine(CharBuffer.wrap(s), line ->
+                  TestCase.assertEquals(s, Double.doubleToLongBits(Double.parseDouble(s)), Double.doubleToLongBits(line.parseDouble())));
+        }
+        for(String s : new String[]{"e5", "1e", "-", "1.2.3"}){
+            try {
+                LineScanner.forEachLine(CharBuffer.wrap(s), LineScanner.View::parseDouble);
+                TestCase.fail("Parsed " + s);
+            }catch (NumberFormatException e){
+                // expected
+            }
+        }
+        LineScanner.forEachLine(CharBuffer.wrap("2147483648"), line -> {
+            try {
+                line.parseInt();
+                TestCase.fail("Parsed an int out of range");
+            }catch (NumberFormatException e){
+                // expected
+            }
+        });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMalformed() throws Exception {
+        Files.write(file, new byte[]{'a', '\n', (byte) 0xff});
+        new LineScanner().scan(file, line -> {});
+    }
+}
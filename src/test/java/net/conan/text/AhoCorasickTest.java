@@ -0,0 +1,43 @@
+package net.conan.text;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Conan Dombroski
+ */
+public class AhoCorasickTest {
+
+    @Test
+    public void testForEachMatch() throws Exception {
+        AhoCorasick ac = new AhoCorasick(Arrays.asList("he", "she", "his", "hers"));
+        List<Integer> found = new ArrayList<>();
+        ac.forEachMatch("ushers", found::add);
+        Collections.sort(found);
+        TestCase.assertEquals(Arrays.asList(0, 1, 3), found);
+    }
+
+    @Test
+    public void testRepeatedOccurrences() throws Exception {
+        AhoCorasick ac = new AhoCorasick(Arrays.asList("aa", "a"));
+        List<Integer> found = new ArrayList<>();
+        ac.forEachMatch("aaa", found::add);
+        TestCase.assertEquals(5, found.size());
+        TestCase.assertEquals(3, found.stream().filter(i -> i == 1).count());
+    }
+
+    @Test
+    public void testContainsAny() throws Exception {
+        AhoCorasick ac = new AhoCorasick(Arrays.asList(".log", ".tmp", "session"));
+        TestCase.assertTrue(ac.containsAny("server.log.1"));
+        TestCase.assertTrue(ac.containsAny("user.1.session"));
+        TestCase.assertFalse(ac.containsAny("server.lo"));
+        TestCase.assertFalse(ac.containsAny(""));
+        TestCase.assertEquals(3, ac.size());
+    }
+}
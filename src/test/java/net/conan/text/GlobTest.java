@@ -0,0 +1,83 @@
+package net.conan.text;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * @author Conan Dombroski
+ */
+public class GlobTest {
+
+    @Test
+    public void testStar() throws Exception {
+        Glob glob = Glob.compile("user.*.session");
+        TestCase.assertTrue(glob.matches("user.1.session"));
+        TestCase.assertTrue(glob.matches("user..session"));
+        TestCase.assertTrue(glob.matches("user.a.b.session"));
+        TestCase.assertFalse(glob.matches("user.session"));
+        TestCase.assertFalse(glob.matches("user.1.sessions"));
+        TestCase.assertFalse(glob.matches("admin.1.session"));
+        TestCase.assertTrue(Glob.compile("*").matches(""));
+        TestCase.assertTrue(Glob.compile("**").matches("anything"));
+    }
+
+    @Test
+    public void testQuestionMark() throws Exception {
+        Glob glob = Glob.compile("cache-??-*");
+        TestCase.assertTrue(glob.matches("cache-01-"));
+        TestCase.assertTrue(glob.matches("cache-ab-entry"));
+        TestCase.assertFalse(glob.matches("cache-1-entry"));
+        TestCase.assertFalse(glob.matches("cache-123-entry"));
+        TestCase.assertTrue(Glob.compile("a*?b?").matches("axbb1"));
+        TestCase.assertFalse(Glob.compile("a*?b?").matches("abb"));
+    }
+
+    @Test
+    public void testLiteralAndEscapes() throws Exception {
+        TestCase.assertTrue(Glob.compile("Food List").matches("Food List"));
+        TestCase.assertFalse(Glob.compile("Food List").matches("Food List2"));
+        TestCase.assertTrue(Glob.compile("what\\?").matches("what?"));
+        TestCase.assertFalse(Glob.compile("what\\?").matches("whats"));
+        TestCase.assertTrue(Glob.compile("5\\*\\\\*").matches("5*\\x"));
+        TestCase.assertTrue(Glob.isLiteral("a\\*b"));
+        TestCase.assertFalse(Glob.isLiteral("a*b"));
+        TestCase.assertEquals("cache-", Glob.compile("cache-?*").literalPrefix());
+        TestCase.assertEquals("a*b", Glob.compile("a\\*b").literalPrefix());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDanglingEscape() throws Exception {
+        Glob.compile("abc\\");
+    }
+
+    @Test
+    public void testSameAsRegex() throws Exception {
+        List<String> globs = Arrays.asList("*a*b*", "a*a*a", "?*?", "*ab?a*", "b*", "*a", "a?b*ba", "", "ab", "\\?*");
+        Random random = new Random(7);
+        for(int round = 0; round < 2000; round++){
+            StringBuilder input = new StringBuilder();
+            for(int i = random.nextInt(8); i > 0; i--){
+                input.append("ab?\n".charAt(random.nextInt(4)));
+            }
+            for(String glob : globs){
+                Glob compiled = Glob.compile(glob);
+                TestCase.assertEquals(glob + " on " + input, Pattern.matches(compiled.toRegex(), input),
+                      compiled.matches(input));
+            }
+        }
+    }
+
+    @Test
+    public void testNoBacktrackingBlowup() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for(int i = 0; i < 100000; i++){
+            input.append('a');
+        }
+        TestCase.assertFalse(Glob.compile("*a*a*a*a*a*a*a*a*b").matches(input));
+    }
+}
@@ -0,0 +1,73 @@
+package net.conan.text;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * @author Conan Dombroski
+ */
+public class MultiPatternMatcherTest {
+
+    private static final List<String> EXPRESSIONS = Arrays.asList(
+          "user.name",               // literal
+          "user\\.\\d+\\.session",   // automaton
+          ".*session",               // automaton
+          "(\\w+)\\.\\1\\.session",  // back reference, required literal ".session"
+          "(?i)USER\\..*",           // inline flag, no required literal
+          "user.name");              // duplicate literal
+
+    @Test
+    public void testForEachMatchAgreesWithPattern() throws Exception {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(EXPRESSIONS);
+        for(String input : Arrays.asList("user.name", "user.1.session", "ab.ab.session", "ab.cd.session",
+              "cache", "USER.x", "")){
+            List<Integer> expected = new ArrayList<>();
+            for(int i = 0; i < EXPRESSIONS.size(); i++){
+                if(Pattern.compile(EXPRESSIONS.get(i)).matcher(input).matches()){
+                    expected.add(i);
+                }
+            }
+            List<Integer> found = new ArrayList<>();
+            matcher.forEachMatch(input, found::add);
+            Collections.sort(found);
+            TestCase.assertEquals(input, expected, found);
+        }
+    }
+
+    @Test
+    public void testFirstMatch() throws Exception {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(EXPRESSIONS);
+        TestCase.assertEquals(0, matcher.firstMatch("user.name"));
+        TestCase.assertEquals(2, matcher.firstMatch("ab.ab.session"));
+        TestCase.assertEquals(-1, matcher.firstMatch("nothing"));
+        TestCase.assertFalse(matcher.matchesAny("nothing"));
+        TestCase.assertEquals("(?i)USER\\..*", matcher.expression(4));
+        TestCase.assertEquals(6, matcher.size());
+    }
+
+    @Test
+    public void testInlineFlagAfterEscapedBackslash() throws Exception {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Collections.singletonList("\\\\(?i)abc"));
+        TestCase.assertTrue(matcher.matchesAny("\\ABC"));
+        TestCase.assertTrue(matcher.matchesAny("\\abc"));
+    }
+
+    @Test
+    public void testExpressionsTooLargeForTheAutomaton() throws Exception {
+        String nines = String.join("", Collections.nCopies(9999, "9"));
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList("(a{999}){999}", "b.*", "\\w{9999}", "\\d{9999}"));
+        TestCase.assertEquals(0, matcher.firstMatch(String.join("", Collections.nCopies(999 * 999, "a"))));
+        TestCase.assertEquals(1, matcher.firstMatch("bcd"));
+        List<Integer> matches = new ArrayList<>();
+        matcher.forEachMatch(nines, matches::add);
+        Collections.sort(matches);
+        TestCase.assertEquals(Arrays.asList(2, 3), matches);
+        TestCase.assertFalse(matcher.matchesAny("c"));
+    }
+}
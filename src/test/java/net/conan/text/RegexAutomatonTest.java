@@ -0,0 +1,84 @@
+package net.conan.text;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * @author Conan Dombroski
+ */
+public class RegexAutomatonTest {
+
+    private static final List<String> INPUTS = Arrays.asList(
+          "", "a", "ab", "abc", "abcabc", "aaa", "user.name", "user.1.session", "user..session",
+          "Food List", "Software Companies", "cache-12-x", "x\ny", "A_9", "-", "]", "1234", "12345");
+
+    @Test
+    public void testMatchesLikePattern() throws Exception {
+        List<String> expressions = Arrays.asList(
+              "abc", "^abc$", "a*", "a+b?c*", "(abc)+", "(?:ab|a)(bc|c)?", "a{2}", "a{2,}", "a{1,2}b?",
+              "user\\.\\w+", "user\\.\\d+\\.session", "user.*session", ".*", "\\w+\\s\\w+i\\w+",
+              "cache-[0-9]{2}-.", "[^a-c]+", "[a-c-]+", "\\d{4}", "\\d{4,5}", "x.y", "\\Qa\\E+b*c",
+              "[\\w.]+", "\\x41_\\u0039", "\\]|-", "(a|b|c)*?", "a??b??c??");
+        for(String expression : expressions){
+            RegexAutomaton automaton = RegexAutomaton.compile(expression).get();
+            Pattern pattern = Pattern.compile(expression);
+            for(String input : INPUTS){
+                TestCase.assertEquals(expression + " against '" + input + "'",
+                      pattern.matcher(input).matches(), automaton.matches(input));
+            }
+        }
+    }
+
+    @Test
+    public void testSupplementaryCharacters() throws Exception {
+        List<String> expressions = Arrays.asList(
+              "a.b", "a[^x]b", "a\\Wb", "a\\Db", "a\\Sb", "a\uD83D\uDE00b", "a\\uD83D\\uDE00b", "a\uD83D\uDE00?b",
+              "\\Qa\uD83D\uDE00\\E+b", "a[\uD83D\uDE00-\uD83D\uDE4F]b", "a..b", ".{3}");
+        List<String> inputs = Arrays.asList("a\uD83D\uDE00b", "ab", "a\uD83D\uDE00\uD83D\uDE00b", "a\uD83D\uDE01b",
+              "a\uD83Db", "axb", "a\uDE00\uD83Db");
+        for(String expression : expressions){
+            RegexAutomaton automaton = RegexAutomaton.compile(expression).get();
+            Pattern pattern = Pattern.compile(expression);
+            for(String input : inputs){
+                TestCase.assertEquals(expression + " against '" + input + "'",
+                      pattern.matcher(input).matches(), automaton.matches(input));
+            }
+        }
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        for(String expression : Arrays.asList("(a)\\1", "(?=a)a", "a*+", "(?i)abc", "\\bword", "[a[b]]",
+              "\\p{Alpha}", "a{2", "(abc", "a$b")){
+            TestCase.assertFalse(expression, RegexAutomaton.compile(expression).isPresent());
+        }
+    }
+
+    @Test
+    public void testDeadState() throws Exception {
+        RegexAutomaton automaton = RegexAutomaton.compile("user\\..*").get();
+        int state = automaton.run("usr");
+        TestCase.assertTrue(automaton.isDead(state));
+        TestCase.assertEquals(RegexAutomaton.DEAD, automaton.step(state, 'x'));
+        TestCase.assertFalse(automaton.isDead(automaton.run("user")));
+    }
+
+    @Test
+    public void testMultiplePatterns() throws Exception {
+        RegexAutomaton automaton = RegexAutomaton.compile(Arrays.asList("user\\..*", ".*session", "cache.*")).get();
+        int state = automaton.run("user.1.session");
+        TestCase.assertEquals(2, automaton.acceptedCount(state));
+        TestCase.assertEquals(0, automaton.acceptedPattern(state, 0));
+        TestCase.assertEquals(1, automaton.acceptedPattern(state, 1));
+
+        state = automaton.run("cache");
+        TestCase.assertEquals(1, automaton.acceptedCount(state));
+        TestCase.assertEquals(2, automaton.acceptedPattern(state, 0));
+
+        TestCase.assertFalse(automaton.isAccepting(automaton.run("other")));
+    }
+}
@@ -0,0 +1,71 @@
+package net.conan.text;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * @author Conan Dombroski
+ */
+public class RegexLiteralsTest {
+
+    @Test
+    public void testLiteralPrefix() throws Exception {
+        TestCase.assertEquals("user.name", RegexLiterals.literalPrefix("user\\.name.*"));
+        TestCase.assertEquals("user", RegexLiterals.literalPrefix("^user.*"));
+        TestCase.assertEquals("java.", RegexLiterals.literalPrefix("\\Qjava.\\E\\w+"));
+        TestCase.assertEquals("Food List", RegexLiterals.literalPrefix("Food List"));
+    }
+
+    @Test
+    public void testLiteralPrefixQuantifiers() throws Exception {
+        TestCase.assertEquals("a", RegexLiterals.literalPrefix("ab?c"));
+        TestCase.assertEquals("a", RegexLiterals.literalPrefix("ab*c"));
+        TestCase.assertEquals("a", RegexLiterals.literalPrefix("ab{0,2}c"));
+        TestCase.assertEquals("ab", RegexLiterals.literalPrefix("ab+c"));
+        TestCase.assertEquals("ja", RegexLiterals.literalPrefix("\\Qjav\\E?"));
+    }
+
+    @Test
+    public void testLiteralPrefixSupplementaryQuantifier() throws Exception {
+        TestCase.assertEquals("x", RegexLiterals.literalPrefix("x\uD83D\uDE00*"));
+        TestCase.assertEquals("x", RegexLiterals.literalPrefix("\\Qx\uD83D\uDE00\\E?"));
+        TestCase.assertEquals("x\uD83D\uDE00", RegexLiterals.literalPrefix("x\uD83D\uDE00+y"));
+        TestCase.assertEquals("x\uD83D\uDE00y", RegexLiterals.literalPrefix("x\uD83D\uDE00y"));
+    }
+
+    @Test
+    public void testNoLiteralPrefix() throws Exception {
+        TestCase.assertEquals("", RegexLiterals.literalPrefix(".*user"));
+        TestCase.assertEquals("", RegexLiterals.literalPrefix("\\w+\\s\\w+i\\w+"));
+        TestCase.assertEquals("", RegexLiterals.literalPrefix("user.*|java.*"));
+        TestCase.assertEquals("", RegexLiterals.literalPrefix("(?i)user"));
+        TestCase.assertEquals("abc", RegexLiterals.literalPrefix("abc(d|e)"));
+    }
+
+    @Test
+    public void testIsLiteral() throws Exception {
+        TestCase.assertTrue(RegexLiterals.isLiteral("Food List"));
+        TestCase.assertTrue(RegexLiterals.isLiteral("^java\\.home$"));
+        TestCase.assertTrue(RegexLiterals.isLiteral("\\Qa.b\\E"));
+        TestCase.assertFalse(RegexLiterals.isLiteral("java.home"));
+        TestCase.assertFalse(RegexLiterals.isLiteral("ab+"));
+        TestCase.assertFalse(RegexLiterals.isLiteral("a|b"));
+    }
+
+    @Test
+    public void testRequiredLiteral() throws Exception {
+        TestCase.assertEquals(".log.", RegexLiterals.requiredLiteral("\\w+\\.log\\.\\d+"));
+        TestCase.assertEquals(".session", RegexLiterals.requiredLiteral("user\\.\\d+\\.session"));
+        TestCase.assertEquals("Food", RegexLiterals.requiredLiteral("Food\\s+(List|Menu)"));
+        TestCase.assertEquals("cache-", RegexLiterals.requiredLiteral("[a-z]{2,3}cache-x?"));
+        TestCase.assertEquals("", RegexLiterals.requiredLiteral("a|b"));
+        TestCase.assertEquals("", RegexLiterals.requiredLiteral("(?i)session"));
+        TestCase.assertEquals("", RegexLiterals.requiredLiteral(".*"));
+    }
+
+    @Test
+    public void testRequiredLiteralEscapedBackslashBeforeFlags() throws Exception {
+        TestCase.assertEquals("", RegexLiterals.requiredLiteral("\\\\(?i)abc"));
+        TestCase.assertEquals("", RegexLiterals.requiredLiteral("x\\\\\\\\(?i)abc"));
+    }
+}